@@ -9,6 +9,17 @@ CREATE TABLE IF NOT EXISTS buildings (
     region VARCHAR(64)
 );
 
+-- Cluster dictionary (V4__product_cluster_dictionary.sql), maintained by the app's productIngestJob
+CREATE TABLE IF NOT EXISTS product_clusters (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    arrival_date DATE,
+    room_type VARCHAR(64),
+    no_of_beds INT,
+    grade INT,
+    private_pool BOOLEAN,
+    CONSTRAINT uk_product_clusters_key UNIQUE (arrival_date, room_type, no_of_beds, grade, private_pool)
+);
+
 -- Products table
 CREATE TABLE IF NOT EXISTS products (
     id VARCHAR(64) PRIMARY KEY,
@@ -20,7 +31,9 @@ CREATE TABLE IF NOT EXISTS products (
     grade INT,
     private_pool BOOLEAN,
     product_group VARCHAR(64),
-    CONSTRAINT fk_products_building FOREIGN KEY (building_id) REFERENCES buildings(id)
+    cluster_id INT,
+    CONSTRAINT fk_products_building FOREIGN KEY (building_id) REFERENCES buildings(id),
+    CONSTRAINT fk_products_cluster FOREIGN KEY (cluster_id) REFERENCES product_clusters(id)
 );
 
 -- Bookings table
@@ -52,7 +65,15 @@ CREATE TABLE IF NOT EXISTS price_confirmations (
     currency VARCHAR(8),
     user_id VARCHAR(64),
     confirmed_at TIMESTAMP,
-    synced BOOLEAN
+    synced BOOLEAN,
+    write_ref VARCHAR(36),
+    lease_owner VARCHAR(64),
+    lease_until TIMESTAMP NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    next_attempt_at TIMESTAMP NULL,
+    dead_lettered BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_price_confirmations_write_ref UNIQUE (write_ref)
 );
 
 -- Users table
@@ -62,3 +83,48 @@ CREATE TABLE IF NOT EXISTS users (
     role VARCHAR(64),
     region VARCHAR(64)
 );
+
+-- Cluster lookup and aggregate indexes (V3__cluster_aggregate_indexes.sql)
+CREATE INDEX idx_products_cluster ON products (arrival_date, room_type, no_of_beds, grade, private_pool);
+CREATE INDEX idx_bookings_product_arrival ON bookings (product_id, arrival_date, nights, price_paid);
+CREATE INDEX idx_products_cluster_id ON products (cluster_id);
+
+-- Daily occupancy rollups (V5__daily_occupancy_rollups.sql, V6__rollup_product_group.sql)
+CREATE TABLE IF NOT EXISTS daily_occupancy_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    scope VARCHAR(16) NOT NULL,
+    scope_id VARCHAR(64) NOT NULL,
+    product_group VARCHAR(64) NOT NULL DEFAULT '',
+    bookings BIGINT,
+    room_nights BIGINT,
+    products_available BIGINT,
+    revenue DOUBLE,
+    refreshed_at TIMESTAMP,
+    CONSTRAINT uk_daily_occupancy_rollups UNIQUE (scope, scope_id, product_group, rollup_date)
+);
+CREATE INDEX idx_daily_occupancy_rollups_date ON daily_occupancy_rollups (rollup_date);
+CREATE INDEX idx_bookings_arrival ON bookings (arrival_date, product_id, nights, price_paid);
+
+-- Sync outbox claiming (V8__confirmation_outbox_lease.sql, V9__sync_retry_dead_letters.sql)
+CREATE INDEX idx_price_confirmations_outbox ON price_confirmations (synced, dead_lettered, next_attempt_at, id);
+
+-- Sync lag polling (V10__sync_backlog_index.sql)
+CREATE INDEX idx_price_confirmations_backlog ON price_confirmations (synced, dead_lettered, confirmed_at);
+
+-- Per-key ordering of the sync outbox (V11__confirmation_key_index.sql)
+CREATE INDEX idx_price_confirmations_key ON price_confirmations (product_id, currency, confirmed_at, id);
+
+-- Sync dead letters (V9__sync_retry_dead_letters.sql)
+CREATE TABLE IF NOT EXISTS sync_dead_letters (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    confirmation_id BIGINT NOT NULL,
+    product_id VARCHAR(64),
+    currency VARCHAR(8),
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    dead_lettered_at TIMESTAMP NOT NULL,
+    replayed_at TIMESTAMP NULL
+);
+CREATE INDEX idx_sync_dead_letters_open ON sync_dead_letters (replayed_at, id);
+CREATE INDEX idx_sync_dead_letters_confirmation ON sync_dead_letters (confirmation_id);
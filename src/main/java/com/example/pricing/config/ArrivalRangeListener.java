@@ -0,0 +1,70 @@
+package com.example.pricing.config;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Tracks the min/max arrival date of the items an ingest step wrote and hands the range to later
+ * steps through the job execution context ({@link #FROM_KEY} / {@link #TO_KEY}).
+ * Register it step-scoped so every execution, and every partition, starts with an empty range.
+ */
+public class ArrivalRangeListener<T> implements StepExecutionListener, ItemWriteListener<T> {
+    public static final String FROM_KEY = "arrivalRange.from";
+    public static final String TO_KEY = "arrivalRange.to";
+
+    private final Function<T, LocalDate> arrivalDate;
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    public ArrivalRangeListener(Function<T, LocalDate> arrivalDate) {
+        this.arrivalDate = arrivalDate;
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends T> items) {
+        for (T item : items) {
+            LocalDate date = arrivalDate.apply(item);
+            if (date == null) continue;
+            long day = date.toEpochDay();
+            min.accumulateAndGet(day, Math::min);
+            max.accumulateAndGet(day, Math::max);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (min.get() <= max.get()) {
+            ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+            // Partitions of the same step finish on different threads and share the job context
+            synchronized (jobContext) {
+                widen(jobContext, FROM_KEY, LocalDate.ofEpochDay(min.get()), true);
+                widen(jobContext, TO_KEY, LocalDate.ofEpochDay(max.get()), false);
+            }
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    public static LocalDate from(ExecutionContext jobContext) {
+        return jobContext.containsKey(FROM_KEY) ? LocalDate.parse(jobContext.getString(FROM_KEY)) : null;
+    }
+
+    public static LocalDate to(ExecutionContext jobContext) {
+        return jobContext.containsKey(TO_KEY) ? LocalDate.parse(jobContext.getString(TO_KEY)) : null;
+    }
+
+    private static void widen(ExecutionContext ctx, String key, LocalDate value, boolean lower) {
+        if (ctx.containsKey(key)) {
+            LocalDate current = LocalDate.parse(ctx.getString(key));
+            if (lower ? !value.isBefore(current) : !value.isAfter(current)) return;
+        }
+        ctx.putString(key, value.toString());
+    }
+}
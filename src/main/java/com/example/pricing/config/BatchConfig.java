@@ -9,44 +9,129 @@ import com.example.pricing.model.Booking;
 import com.example.pricing.model.Price;
 import com.example.pricing.model.PriceId;
 import com.example.pricing.model.Building;
-import jakarta.persistence.EntityManagerFactory;
+import com.example.pricing.service.ClusteringService;
+import com.example.pricing.service.OccupancyRollupService;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
+import javax.sql.DataSource;
+import java.net.MalformedURLException;
 import java.time.LocalDate;
 
+/**
+ * CSV ingest jobs. Every ingest step is partitioned: {@link LineRangePartitioner} splits the input into
+ * line-aligned byte ranges (or takes pre-split files one by one), and the partitions run on up to
+ * {@code batch.ingest.threads} threads, each with its own step-scoped reader and chunk transactions.
+ * Chunks are written with {@link IngestUpsertWriters}, one batched upsert per chunk.
+ */
 @Configuration
 public class BatchConfig {
+    private static final String[] BOOKING_FIELDS = {"id","productId","arrivalDate","nights","pricePaid"};
+    private static final String[] PRICE_FIELDS = {"productId","currency","value","lastUpdated"};
+    private static final String[] BUILDING_FIELDS = {"id","name","type"};
+    private static final String[] PRODUCT_FIELDS = {"id","buildingId","roomName","arrivalDate","noOfBeds","roomType","grade","privatePool"};
+
     private final JobRepository jobRepository;
+    private final int threads;
+    private final int partitions;
+    private final long minPartitionBytes;
 
-    public BatchConfig(JobRepository jobRepository) {
+    public BatchConfig(JobRepository jobRepository,
+                       @Value("${batch.ingest.threads:4}") int threads,
+                       @Value("${batch.ingest.partitions:0}") int partitions,
+                       @Value("${batch.ingest.min-partition-bytes:1048576}") long minPartitionBytes) {
         this.jobRepository = jobRepository;
+        this.threads = Math.max(1, threads);
+        this.partitions = partitions > 0 ? partitions : this.threads; // default: one range per thread
+        this.minPartitionBytes = minPartitionBytes;
     }
-    // --- Booking ingestion ---
-    @Bean
-    public FlatFileItemReader<BookingCsv> bookingReader(@Value("${batch.bookings.file:classpath:sample/bookings.csv}") Resource resource) {
-        return new FlatFileItemReaderBuilder<BookingCsv>()
-                .name("bookingCsvReader")
-                .resource(resource)
+
+    // Step-scoped reader over the byte range of the partition it runs in
+    private static <T> FlatFileItemReader<T> partitionReader(String name, String resource, long start, long end,
+                                                            String[] names, Class<T> type) throws MalformedURLException {
+        return new FlatFileItemReaderBuilder<T>()
+                .name(name)
+                .resource(new ByteRangeResource(new UrlResource(resource), start, end))
                 .delimited()
-                .names(new String[]{"id","productId","arrivalDate","nights","pricePaid"})
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<BookingCsv>() {{ setTargetType(BookingCsv.class); }})
+                .names(names)
+                .fieldSetMapper(new BeanWrapperFieldSetMapper<T>() {{ setTargetType(type); }})
                 .build();
     }
 
+    private Step partitioned(String name, Step worker, Partitioner partitioner) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ingest-");
+        executor.setConcurrencyLimit(threads);
+        return new StepBuilder(name, jobRepository)
+            .partitioner(worker.getName(), partitioner)
+            .step(worker)
+            .gridSize(partitions)
+            .taskExecutor(executor)
+            .build();
+    }
+
+    // Announces finished ingests so derived caches (facets, lookups) are refreshed
+    @Bean
+    public JobExecutionListener ingestCompletedListener(ApplicationEventPublisher events) {
+        return new JobExecutionListener() {
+            @Override
+            public void afterJob(JobExecution jobExecution) {
+                if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+                    events.publishEvent(new IngestCompletedEvent(jobExecution.getJobInstance().getJobName()));
+                }
+            }
+        };
+    }
+    // Rebuilds daily_occupancy_rollups for the arrival dates the preceding ingest step wrote
+    @Bean
+    public Step occupancyRollupStep(PlatformTransactionManager transactionManager, OccupancyRollupService rollupService) {
+        return new StepBuilder("occupancyRollupStep", jobRepository)
+            .tasklet((contribution, chunkContext) -> {
+                ExecutionContext jobContext = chunkContext.getStepContext().getStepExecution().getJobExecution().getExecutionContext();
+                contribution.incrementWriteCount(rollupService.refresh(ArrivalRangeListener.from(jobContext), ArrivalRangeListener.to(jobContext)));
+                return RepeatStatus.FINISHED;
+            }, transactionManager)
+            .build();
+    }
+
+    // --- Booking ingestion ---
+    @Bean
+    public LineRangePartitioner bookingPartitioner(@Value("${batch.bookings.file:classpath:sample/bookings.csv}") Resource[] resources) {
+        return new LineRangePartitioner(resources, minPartitionBytes);
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<BookingCsv> bookingReader(@Value("#{stepExecutionContext['resource']}") String resource,
+                                                        @Value("#{stepExecutionContext['start']}") long start,
+                                                        @Value("#{stepExecutionContext['end']}") long end) throws MalformedURLException {
+        return partitionReader("bookingCsvReader", resource, start, end, BOOKING_FIELDS, BookingCsv.class);
+    }
+
     @Bean
     public ItemProcessor<BookingCsv, Booking> bookingProcessor() {
         return csv -> {
@@ -61,43 +146,60 @@ public class BatchConfig {
     }
 
     @Bean
-    public JpaItemWriter<Booking> bookingWriter(EntityManagerFactory emf) {
-        JpaItemWriter<Booking> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
-        return writer;
+    public JdbcBatchItemWriter<Booking> bookingWriter(DataSource dataSource) {
+        return IngestUpsertWriters.bookings(dataSource);
     }
 
     @Bean
-    public Step bookingIngestStep(PlatformTransactionManager transactionManager,
-                                  FlatFileItemReader<BookingCsv> reader,
-                                  ItemProcessor<BookingCsv, Booking> processor,
-                                  JpaItemWriter<Booking> writer) {
-        return new StepBuilder("bookingIngestStep", jobRepository)
+    @StepScope
+    public ArrivalRangeListener<Booking> bookingArrivalRangeListener() {
+        return new ArrivalRangeListener<>(Booking::getArrivalDate);
+    }
+
+    @Bean
+    public Step bookingIngestWorkerStep(PlatformTransactionManager transactionManager,
+                                        FlatFileItemReader<BookingCsv> reader,
+                                        ItemProcessor<BookingCsv, Booking> processor,
+                                        JdbcBatchItemWriter<Booking> writer,
+                                        ArrivalRangeListener<Booking> bookingArrivalRangeListener) {
+        return new StepBuilder("bookingIngestWorkerStep", jobRepository)
             .<BookingCsv, Booking>chunk(500, transactionManager)
             .reader(reader)
             .processor(processor)
             .writer(writer)
+            .listener((ItemWriteListener<Booking>) bookingArrivalRangeListener)
+            .listener((StepExecutionListener) bookingArrivalRangeListener)
+            .listener(new PartitionThroughputListener())
             .build();
     }
 
     @Bean
-    public Job bookingIngestJob(Step bookingIngestStep) {
+    public Step bookingIngestStep(Step bookingIngestWorkerStep, LineRangePartitioner bookingPartitioner) {
+        return partitioned("bookingIngestStep", bookingIngestWorkerStep, bookingPartitioner);
+    }
+
+    @Bean
+    public Job bookingIngestJob(Step bookingIngestStep, Step occupancyRollupStep, JobExecutionListener ingestCompletedListener) {
         return new JobBuilder("bookingIngestJob", jobRepository)
             .incrementer(new RunIdIncrementer())
+            .listener(ingestCompletedListener)
             .start(bookingIngestStep)
+            .next(occupancyRollupStep)
             .build();
     }
 
     // --- Price ingestion ---
     @Bean
-    public FlatFileItemReader<PriceCsv> priceReader(@Value("${batch.prices.file:classpath:sample/prices.csv}") Resource resource) {
-        return new FlatFileItemReaderBuilder<PriceCsv>()
-                .name("priceCsvReader")
-                .resource(resource)
-                .delimited()
-                .names(new String[]{"productId","currency","value","lastUpdated"})
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<PriceCsv>() {{ setTargetType(PriceCsv.class); }})
-                .build();
+    public LineRangePartitioner pricePartitioner(@Value("${batch.prices.file:classpath:sample/prices.csv}") Resource[] resources) {
+        return new LineRangePartitioner(resources, minPartitionBytes);
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<PriceCsv> priceReader(@Value("#{stepExecutionContext['resource']}") String resource,
+                                                    @Value("#{stepExecutionContext['start']}") long start,
+                                                    @Value("#{stepExecutionContext['end']}") long end) throws MalformedURLException {
+        return partitionReader("priceCsvReader", resource, start, end, PRICE_FIELDS, PriceCsv.class);
     }
 
     @Bean
@@ -112,43 +214,50 @@ public class BatchConfig {
     }
 
     @Bean
-    public JpaItemWriter<Price> priceWriter(EntityManagerFactory emf) {
-        JpaItemWriter<Price> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
-        return writer;
+    public JdbcBatchItemWriter<Price> priceWriter(DataSource dataSource) {
+        return IngestUpsertWriters.prices(dataSource);
     }
 
     @Bean
-    public Step priceIngestStep(PlatformTransactionManager transactionManager,
-                                FlatFileItemReader<PriceCsv> reader,
-                                ItemProcessor<PriceCsv, Price> processor,
-                                JpaItemWriter<Price> writer) {
-        return new StepBuilder("priceIngestStep", jobRepository)
+    public Step priceIngestWorkerStep(PlatformTransactionManager transactionManager,
+                                      FlatFileItemReader<PriceCsv> reader,
+                                      ItemProcessor<PriceCsv, Price> processor,
+                                      JdbcBatchItemWriter<Price> writer) {
+        return new StepBuilder("priceIngestWorkerStep", jobRepository)
             .<PriceCsv, Price>chunk(500, transactionManager)
             .reader(reader)
             .processor(processor)
             .writer(writer)
+            .listener(new PartitionThroughputListener())
             .build();
     }
 
     @Bean
-    public Job priceIngestJob(Step priceIngestStep) {
+    public Step priceIngestStep(Step priceIngestWorkerStep, LineRangePartitioner pricePartitioner) {
+        return partitioned("priceIngestStep", priceIngestWorkerStep, pricePartitioner);
+    }
+
+    @Bean
+    public Job priceIngestJob(Step priceIngestStep, JobExecutionListener ingestCompletedListener) {
         return new JobBuilder("priceIngestJob", jobRepository)
             .incrementer(new RunIdIncrementer())
+            .listener(ingestCompletedListener)
             .start(priceIngestStep)
             .build();
     }
 
     // --- Building ingestion ---
     @Bean
-    public FlatFileItemReader<BuildingCsv> buildingReader(@Value("${batch.buildings.file:classpath:sample/buildings.csv}") Resource resource) {
-        return new FlatFileItemReaderBuilder<BuildingCsv>()
-                .name("buildingCsvReader")
-                .resource(resource)
-                .delimited()
-                .names(new String[]{"id","name","type"})
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<BuildingCsv>() {{ setTargetType(BuildingCsv.class); }})
-                .build();
+    public LineRangePartitioner buildingPartitioner(@Value("${batch.buildings.file:classpath:sample/buildings.csv}") Resource[] resources) {
+        return new LineRangePartitioner(resources, minPartitionBytes);
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<BuildingCsv> buildingReader(@Value("#{stepExecutionContext['resource']}") String resource,
+                                                          @Value("#{stepExecutionContext['start']}") long start,
+                                                          @Value("#{stepExecutionContext['end']}") long end) throws MalformedURLException {
+        return partitionReader("buildingCsvReader", resource, start, end, BUILDING_FIELDS, BuildingCsv.class);
     }
 
     @Bean
@@ -163,42 +272,49 @@ public class BatchConfig {
     }
 
     @Bean
-    public JpaItemWriter<Building> buildingWriter(EntityManagerFactory emf) {
-        JpaItemWriter<Building> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
-        return writer;
+    public JdbcBatchItemWriter<Building> buildingWriter(DataSource dataSource) {
+        return IngestUpsertWriters.buildings(dataSource);
     }
 
     @Bean
-    public Step buildingIngestStep(PlatformTransactionManager transactionManager,
-                                   FlatFileItemReader<BuildingCsv> reader,
-                                   ItemProcessor<BuildingCsv, Building> processor,
-                                   JpaItemWriter<Building> writer) {
-        return new StepBuilder("buildingIngestStep", jobRepository)
+    public Step buildingIngestWorkerStep(PlatformTransactionManager transactionManager,
+                                         FlatFileItemReader<BuildingCsv> reader,
+                                         ItemProcessor<BuildingCsv, Building> processor,
+                                         JdbcBatchItemWriter<Building> writer) {
+        return new StepBuilder("buildingIngestWorkerStep", jobRepository)
             .<BuildingCsv, Building>chunk(500, transactionManager)
             .reader(reader)
             .processor(processor)
             .writer(writer)
+            .listener(new PartitionThroughputListener())
             .build();
     }
 
     @Bean
-    public Job buildingIngestJob(Step buildingIngestStep) {
+    public Step buildingIngestStep(Step buildingIngestWorkerStep, LineRangePartitioner buildingPartitioner) {
+        return partitioned("buildingIngestStep", buildingIngestWorkerStep, buildingPartitioner);
+    }
+
+    @Bean
+    public Job buildingIngestJob(Step buildingIngestStep, JobExecutionListener ingestCompletedListener) {
         return new JobBuilder("buildingIngestJob", jobRepository)
             .incrementer(new RunIdIncrementer())
+            .listener(ingestCompletedListener)
             .start(buildingIngestStep)
             .build();
     }
 
     @Bean
-    public FlatFileItemReader<ProductCsv> productReader(@Value("${batch.products.file:classpath:sample/products.csv}") Resource resource) {
-        return new FlatFileItemReaderBuilder<ProductCsv>()
-                .name("productCsvReader")
-                .resource(resource)
-                .delimited()
-                .names(new String[]{"id","buildingId","roomName","arrivalDate","noOfBeds","roomType","grade","privatePool"})
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<ProductCsv>() {{ setTargetType(ProductCsv.class); }})
-                .build();
+    public LineRangePartitioner productPartitioner(@Value("${batch.products.file:classpath:sample/products.csv}") Resource[] resources) {
+        return new LineRangePartitioner(resources, minPartitionBytes);
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<ProductCsv> productReader(@Value("#{stepExecutionContext['resource']}") String resource,
+                                                        @Value("#{stepExecutionContext['start']}") long start,
+                                                        @Value("#{stepExecutionContext['end']}") long end) throws MalformedURLException {
+        return partitionReader("productCsvReader", resource, start, end, PRODUCT_FIELDS, ProductCsv.class);
     }
 
     @Bean
@@ -220,30 +336,58 @@ public class BatchConfig {
     }
 
     @Bean
-    public JpaItemWriter<Product> productWriter(EntityManagerFactory emf) {
-        JpaItemWriter<Product> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
-        return writer;
+    public JdbcBatchItemWriter<Product> productWriter(DataSource dataSource) {
+        return IngestUpsertWriters.products(dataSource);
+    }
+
+    @Bean
+    @StepScope
+    public ArrivalRangeListener<Product> productArrivalRangeListener() {
+        return new ArrivalRangeListener<>(Product::getArrivalDate);
     }
 
     @Bean
-    public Step productIngestStep(PlatformTransactionManager transactionManager,
-                                  FlatFileItemReader<ProductCsv> reader,
-                                  ItemProcessor<ProductCsv, Product> processor,
-                                  JpaItemWriter<Product> writer) {
-        return new StepBuilder("productIngestStep", jobRepository)
+    public Step productIngestWorkerStep(PlatformTransactionManager transactionManager,
+                                        FlatFileItemReader<ProductCsv> reader,
+                                        ItemProcessor<ProductCsv, Product> processor,
+                                        JdbcBatchItemWriter<Product> writer,
+                                        ArrivalRangeListener<Product> productArrivalRangeListener) {
+        return new StepBuilder("productIngestWorkerStep", jobRepository)
             .<ProductCsv, Product>chunk(500, transactionManager)
             .reader(reader)
             .processor(processor)
             .writer(writer)
+            .listener((ItemWriteListener<Product>) productArrivalRangeListener)
+            .listener((StepExecutionListener) productArrivalRangeListener)
+            .listener(new PartitionThroughputListener())
+            .build();
+    }
+
+    @Bean
+    public Step productIngestStep(Step productIngestWorkerStep, LineRangePartitioner productPartitioner) {
+        return partitioned("productIngestStep", productIngestWorkerStep, productPartitioner);
+    }
+
+    // Keeps product_clusters and products.cluster_id in sync with the freshly ingested products
+    @Bean
+    public Step clusterDictionaryStep(PlatformTransactionManager transactionManager, ClusteringService clusteringService) {
+        return new StepBuilder("clusterDictionaryStep", jobRepository)
+            .tasklet((contribution, chunkContext) -> {
+                contribution.incrementWriteCount(clusteringService.refreshClusterDictionary());
+                return RepeatStatus.FINISHED;
+            }, transactionManager)
             .build();
     }
 
     @Bean
-    public Job productIngestJob(Step productIngestStep) {
+    public Job productIngestJob(Step productIngestStep, Step clusterDictionaryStep, Step occupancyRollupStep,
+                                JobExecutionListener ingestCompletedListener) {
         return new JobBuilder("productIngestJob", jobRepository)
             .incrementer(new RunIdIncrementer())
+            .listener(ingestCompletedListener)
             .start(productIngestStep)
+            .next(clusterDictionaryStep)
+            .next(occupancyRollupStep)
             .build();
     }
 }
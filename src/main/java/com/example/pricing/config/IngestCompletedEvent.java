@@ -0,0 +1,19 @@
+package com.example.pricing.config;
+
+/**
+ * Published after a Spring Batch ingest job completes successfully, so caches derived from
+ * products, buildings, bookings or prices can be dropped or rebuilt.
+ */
+public class IngestCompletedEvent {
+    private final String jobName;
+
+    public IngestCompletedEvent(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getJobName() { return jobName; }
+
+    public boolean isProductOrBuildingIngest() {
+        return "productIngestJob".equals(jobName) || "buildingIngestJob".equals(jobName);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.pricing.config;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits CSV input for a partitioned ingest step. Several resources (a {@code batch.*.file} pattern matching
+ * pre-split files) become one partition each; a single file is cut into about {@code gridSize} byte ranges of
+ * at least {@code minPartitionBytes}, every cut moved forward to the start of the next line so no row is split.
+ *
+ * Each partition's context carries {@link #RESOURCE_KEY} (URL), {@link #START_KEY} and {@link #END_KEY}
+ * (byte offsets, end exclusive) for a step-scoped reader over a {@link ByteRangeResource}.
+ */
+public class LineRangePartitioner implements Partitioner {
+    public static final String RESOURCE_KEY = "resource";
+    public static final String START_KEY = "start";
+    public static final String END_KEY = "end";
+
+    private final Resource[] resources;
+    private final long minPartitionBytes;
+
+    public LineRangePartitioner(Resource[] resources, long minPartitionBytes) {
+        this.resources = resources;
+        this.minPartitionBytes = Math.max(1, minPartitionBytes);
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        try {
+            for (Resource resource : resources) {
+                if (!resource.exists()) continue;
+                long length = resource.contentLength();
+                List<Long> cuts = resources.length == 1 ? lineAlignedCuts(resource, length, gridSize) : List.of(0L, length);
+                for (int i = 0; i + 1 < cuts.size(); i++) {
+                    if (cuts.get(i) >= cuts.get(i + 1)) continue;
+                    ExecutionContext context = new ExecutionContext();
+                    context.putString(RESOURCE_KEY, resource.getURL().toString());
+                    context.putLong(START_KEY, cuts.get(i));
+                    context.putLong(END_KEY, cuts.get(i + 1));
+                    partitions.put("partition" + partitions.size(), context);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot partition ingest input", ex);
+        }
+        return partitions;
+    }
+
+    private List<Long> lineAlignedCuts(Resource resource, long length, int gridSize) throws IOException {
+        int parts = (int) Math.max(1, Math.min(gridSize, length / minPartitionBytes));
+        List<Long> cuts = new ArrayList<>(parts + 1);
+        cuts.add(0L);
+        for (int i = 1; i < parts; i++) {
+            long cut = nextLineStart(resource, length * i / parts);
+            if (cut > cuts.get(cuts.size() - 1) && cut < length) cuts.add(cut);
+        }
+        cuts.add(length);
+        return cuts;
+    }
+
+    // First line start at or after offset: the byte after the first '\n' at or after offset - 1
+    private static long nextLineStart(Resource resource, long offset) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            in.skipNBytes(offset - 1);
+            long position = offset - 1;
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') return position + i + 1;
+                }
+                position += n;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.pricing.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Logs rows written and rows/sec for each ingest partition, and keeps the rate in the partition's
+ * execution context ({@code rowsPerSecond}) next to the batch metadata.
+ */
+public class PartitionThroughputListener implements StepExecutionListener {
+    private static final Logger log = LoggerFactory.getLogger(PartitionThroughputListener.class);
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        LocalDateTime started = stepExecution.getStartTime();
+        long elapsedMs = started == null ? 0 : Math.max(1, Duration.between(started, LocalDateTime.now()).toMillis());
+        long rows = stepExecution.getWriteCount();
+        long rowsPerSecond = elapsedMs == 0 ? 0 : rows * 1000 / elapsedMs;
+        stepExecution.getExecutionContext().putLong("rowsPerSecond", rowsPerSecond);
+        log.info("{}: {} rows written, {} skipped, in {} ms ({} rows/s) [{}-{})", stepExecution.getStepName(), rows,
+                stepExecution.getSkipCount(), elapsedMs, rowsPerSecond,
+                stepExecution.getExecutionContext().getLong(LineRangePartitioner.START_KEY, 0),
+                stepExecution.getExecutionContext().getLong(LineRangePartitioner.END_KEY, 0));
+        return stepExecution.getExitStatus();
+    }
+}
@@ -2,6 +2,8 @@ package com.example.pricing.config;
 
 import com.example.pricing.model.*;
 import com.example.pricing.repository.*;
+import com.example.pricing.service.ClusteringService;
+import com.example.pricing.service.OccupancyRollupService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -16,15 +18,21 @@ public class SampleDataLoader implements CommandLineRunner {
     private final ProductRepository productRepository;
     private final PriceRepository priceRepository;
     private final BookingRepository bookingRepository;
+    private final ClusteringService clusteringService;
+    private final OccupancyRollupService rollupService;
 
     public SampleDataLoader(BuildingRepository buildingRepository,
                             ProductRepository productRepository,
                             PriceRepository priceRepository,
-                            BookingRepository bookingRepository) {
+                            BookingRepository bookingRepository,
+                            ClusteringService clusteringService,
+                            OccupancyRollupService rollupService) {
         this.buildingRepository = buildingRepository;
         this.productRepository = productRepository;
         this.priceRepository = priceRepository;
         this.bookingRepository = bookingRepository;
+        this.clusteringService = clusteringService;
+        this.rollupService = rollupService;
     }
 
     @Override
@@ -78,6 +86,7 @@ public class SampleDataLoader implements CommandLineRunner {
         pT.setPrivatePool(false);
 
         productRepository.saveAll(List.of(pS4, pL, pT));
+        clusteringService.refreshClusterDictionary();
 
         // Prices (multi-currency)
         Price ps4Usd = new Price();
@@ -125,6 +134,7 @@ public class SampleDataLoader implements CommandLineRunner {
         bkg3.setPricePaid(150.0);
 
         bookingRepository.saveAll(List.of(bkg1, bkg2, bkg3));
+        rollupService.refreshAll();
     }
 }
 
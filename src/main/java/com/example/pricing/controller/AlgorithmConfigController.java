@@ -1,8 +1,8 @@
 package com.example.pricing.controller;
 
 import com.example.pricing.service.AlgorithmConfigService;
-import com.example.pricing.model.User;
-import com.example.pricing.repository.UserRepository;
+import com.example.pricing.service.AuthorizationCache;
+import com.example.pricing.service.AuthorizationCache.Grant;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -14,11 +14,11 @@ import java.util.Map;
 @RequestMapping("/api/config")
 public class AlgorithmConfigController {
     private final AlgorithmConfigService service;
-    private final UserRepository userRepository;
+    private final AuthorizationCache authorizationCache;
 
-    public AlgorithmConfigController(AlgorithmConfigService service, UserRepository userRepository) {
+    public AlgorithmConfigController(AlgorithmConfigService service, AuthorizationCache authorizationCache) {
         this.service = service;
-        this.userRepository = userRepository;
+        this.authorizationCache = authorizationCache;
     }
 
     @GetMapping("/pricing")
@@ -37,7 +37,7 @@ public class AlgorithmConfigController {
         
         // Authorization check: only ADMIN users can update algorithm config
         if (userId != null && !userId.isBlank()) {
-            User user = userRepository.findById(userId).orElse(null);
+            Grant user = authorizationCache.grant(userId).orElse(null);
             if (user == null) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid user");
             }
@@ -57,7 +57,3 @@ public class AlgorithmConfigController {
         return getConfig();
     }
 }
-
-
-
-
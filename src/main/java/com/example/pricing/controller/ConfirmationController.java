@@ -1,42 +1,94 @@
 package com.example.pricing.controller;
 
 import com.example.pricing.service.ConfirmationService;
+import com.example.pricing.service.ConfirmationUploadService;
+import com.example.pricing.service.ConfirmationUploadService.Format;
+import com.example.pricing.service.ConfirmationService.ConfirmationRequest;
+import com.example.pricing.service.ConfirmationService.ConfirmationResult;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/confirmations")
 public class ConfirmationController {
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationController.class);
+    private static final String TEXT_CSV = "text/csv";
+
     private final ConfirmationService service;
+    private final ConfirmationUploadService uploadService;
 
-    public ConfirmationController(ConfirmationService service) {
+    public ConfirmationController(ConfirmationService service, ConfirmationUploadService uploadService) {
         this.service = service;
+        this.uploadService = uploadService;
+    }
+
+    /**
+     * Streaming bulk upload: the body is a CSV file with a header row ({@code Content-Type: text/csv}) or
+     * NDJSON ({@code application/x-ndjson}). Rows are persisted in chunks and one NDJSON result line per
+     * input row is streamed back as each chunk completes, so memory does not grow with the file size.
+     */
+    @PostMapping(value = "/upload", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void upload(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? Format.CSV : Format.NDJSON;
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        Map<String, Integer> summary = uploadService.upload(request.getInputStream(), format, response.getOutputStream());
+        log.info("Confirmation upload ({}): {}", format, summary);
     }
 
+    // Items that cannot be parsed fail on their own; the rest go through the set-based batch path, which reports
+    // rejected items and items of a transaction that failed (e.g. database down) per item rather than as a 500
     @PostMapping("/batch")
     public List<Map<String, Object>> confirmBatch(@RequestBody List<Map<String,Object>> requests) {
-        List<Map<String,Object>> results = new ArrayList<>();
+        List<Map<String,Object>> results = new ArrayList<>(requests.size());
+        List<ConfirmationRequest> parsed = new ArrayList<>(requests.size());
         for (Map<String,Object> req : requests) {
             try {
-                String productId = (String) req.get("productId");
-                String action = (String) req.get("action");
-                BigDecimal price = req.get("price") == null ? null : new BigDecimal(req.get("price").toString());
-                String currency = (String) req.get("currency");
-                String userId = (String) req.get("userId");
-
-                service.confirm(productId, action, price, currency, userId);
-                results.add(Map.of("productId", productId, "status", "success"));
+                parsed.add(ConfirmationRequest.fromMap(req));
+                results.add(null); // filled from the batch result below
             } catch (Exception ex) {
-                results.add(Map.of("productId", req.get("productId"), "status", "failed", "error", ex.getMessage()));
+                results.add(failed(req.get("productId"), ex.getMessage()));
             }
         }
+
+        Iterator<ConfirmationResult> outcomes = service.confirmBatch(parsed).iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) continue;
+            ConfirmationResult outcome = outcomes.next();
+            results.set(i, outcome.isSuccess()
+                    ? success(outcome.getProductId())
+                    : failed(outcome.getProductId(), outcome.getError()));
+        }
         return results;
     }
+
+    private static Map<String, Object> success(Object productId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("productId", productId);
+        result.put("status", "success");
+        return result;
+    }
+
+    private static Map<String, Object> failed(Object productId, String error) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("productId", productId);
+        result.put("status", "failed");
+        result.put("error", error);
+        return result;
+    }
 }
@@ -1,68 +1,62 @@
 package com.example.pricing.controller;
 
-import com.example.pricing.model.Building;
-import com.example.pricing.repository.BuildingRepository;
-import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.service.FacetIndex;
+import com.example.pricing.service.FacetService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/filters")
 public class FilterController {
-    private final BuildingRepository buildingRepository;
-    private final ProductRepository productRepository;
+    private final FacetService facetService;
 
-    public FilterController(BuildingRepository buildingRepository, ProductRepository productRepository) {
-        this.buildingRepository = buildingRepository;
-        this.productRepository = productRepository;
+    public FilterController(FacetService facetService) {
+        this.facetService = facetService;
     }
 
+    // Selection params are multi-valued (OR within a facet, AND across facets). When any is given the
+    // response also carries a "selection" block with the conditional counts for that selection.
     @GetMapping("/{clientId}")
-    public Map<String, Object> getFilters(@PathVariable String clientId) {
+    public Map<String, Object> getFilters(
+            @PathVariable String clientId,
+            @RequestParam(required = false) List<String> buildingIds,
+            @RequestParam(required = false) List<String> region,
+            @RequestParam(required = false) List<String> buildingType,
+            @RequestParam(required = false) List<String> productGroup,
+            @RequestParam(required = false) List<String> roomType,
+            @RequestParam(required = false) List<String> beds,
+            @RequestParam(required = false) LocalDate arrivalFrom,
+            @RequestParam(required = false) LocalDate arrivalTo
+    ) {
         // Optional: scope by clientId if schema supports it; currently global
-        List<Map<String, Object>> buildings = buildingRepository.findAll().stream()
-                .map(b -> (Map<String, Object>) (Map) Map.of("id", b.getId(), "name", b.getName()))
-                .collect(Collectors.toList());
-
-        List<String> roomTypes = productRepository.findDistinctRoomTypes();
-        List<Integer> beds = productRepository.findDistinctNoOfBeds();
-        java.time.LocalDate minDate = productRepository.findMinArrivalDate();
-        java.time.LocalDate maxDate = productRepository.findMaxArrivalDate();
-
-        List<String> buildingTypes = buildingRepository.findAll().stream()
-                .map(b -> b.getType())
-                .filter(t -> t != null && !t.isBlank())
-                .distinct()
-                .collect(Collectors.toList());
-
-        List<String> regions = buildingRepository.findAll().stream()
-                .map(Building::getRegion)
-                .filter(r -> r != null && !r.isBlank())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-
-        List<String> productGroups = productRepository.findAll().stream()
-                .map(p -> p.getProductGroup())
-                .filter(pg -> pg != null && !pg.isBlank())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        Map<String, Object> facets = facetService.getFacets();
+
+        Map<String, List<String>> selection = new HashMap<>();
+        putIfPresent(selection, FacetIndex.BUILDINGS, buildingIds);
+        putIfPresent(selection, FacetIndex.REGIONS, region);
+        putIfPresent(selection, FacetIndex.BUILDING_TYPES, buildingType);
+        putIfPresent(selection, FacetIndex.PRODUCT_GROUPS, productGroup);
+        putIfPresent(selection, FacetIndex.ROOM_TYPES, roomType);
+        putIfPresent(selection, FacetIndex.BEDS, beds);
+        if (selection.isEmpty() && arrivalFrom == null && arrivalTo == null) {
+            return facets;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>(facets);
+        response.put("selection", facetService.getSelectionCounts(selection, arrivalFrom, arrivalTo));
+        return response;
+    }
 
-        return Map.of(
-                "buildings", buildings,
-                "roomTypes", roomTypes,
-                "beds", beds,
-                "arrivalDateRange", Map.of("min", minDate, "max", maxDate),
-                "buildingTypes", buildingTypes,
-                "regions", regions,
-                "productGroups", productGroups
-        );
+    private static void putIfPresent(Map<String, List<String>> selection, String facet, List<String> values) {
+        if (values != null && !values.isEmpty()) selection.put(facet, values);
     }
 }
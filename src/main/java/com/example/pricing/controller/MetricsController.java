@@ -1,13 +1,21 @@
 package com.example.pricing.controller;
 
+import com.example.pricing.model.DailyOccupancyRollup;
 import com.example.pricing.repository.BookingRepository;
-import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.BookingRepository.BuildingOccupancy;
+import com.example.pricing.service.KpiService;
+import com.example.pricing.service.OccupancyRollupService;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -15,11 +23,13 @@ import java.util.Map;
 @RequestMapping("/api/metrics")
 public class MetricsController {
     private final BookingRepository bookingRepository;
-    private final ProductRepository productRepository;
+    private final OccupancyRollupService rollupService;
+    private final KpiService kpiService;
 
-    public MetricsController(BookingRepository bookingRepository, ProductRepository productRepository) {
+    public MetricsController(BookingRepository bookingRepository, OccupancyRollupService rollupService, KpiService kpiService) {
         this.bookingRepository = bookingRepository;
-        this.productRepository = productRepository;
+        this.rollupService = rollupService;
+        this.kpiService = kpiService;
     }
 
     @GetMapping("/occupancy")
@@ -27,28 +37,79 @@ public class MetricsController {
             @RequestParam String buildingId,
             @RequestParam String startDate,
             @RequestParam String endDate
+    ) {
+        return occupancyBatch(List.of(buildingId), startDate, endDate).get(0);
+    }
+
+    // Portfolio view: many buildings answered by one grouped query, in request order
+    @GetMapping("/occupancy/batch")
+    public List<Map<String, Object>> occupancyBatch(
+            @RequestParam List<String> buildingIds,
+            @RequestParam String startDate,
+            @RequestParam String endDate
     ) {
         // naive occupancy proxy: bookings / products for date range
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
-        List<com.example.pricing.model.Product> products = productRepository.findByBuildingId(buildingId);
-        List<String> productIds = products.stream().map(com.example.pricing.model.Product::getId).toList();
-        long bookingCount = bookingRepository.findByProductIdIn(productIds).stream()
-                .filter(b -> b.getArrivalDate() != null && !b.getArrivalDate().isBefore(start) && !b.getArrivalDate().isAfter(end))
-                .count();
-        int productCount = products.size();
-        double occupancy = productCount == 0 ? 0.0 : (double) bookingCount / (double) productCount;
-        return Map.of(
-                "buildingId", buildingId,
-                "startDate", start,
-                "endDate", end,
-                "bookingCount", bookingCount,
-                "products", productCount,
-                "occupancy", occupancy
-        );
-    }
-}
+        LinkedHashSet<String> ids = new LinkedHashSet<>(buildingIds);
 
+        Map<String, BuildingOccupancy> byBuilding = new HashMap<>();
+        for (BuildingOccupancy row : bookingRepository.occupancyByBuilding(ids, start, end)) {
+            byBuilding.put(row.getBuildingId(), row);
+        }
 
+        List<Map<String, Object>> result = new ArrayList<>(ids.size());
+        for (String buildingId : ids) {
+            BuildingOccupancy row = byBuilding.get(buildingId);
+            long bookingCount = row == null || row.getBookings() == null ? 0L : row.getBookings();
+            int productCount = row == null || row.getProducts() == null ? 0 : row.getProducts().intValue();
+            double occupancy = productCount == 0 ? 0.0 : (double) bookingCount / (double) productCount;
+            result.add(Map.of(
+                    "buildingId", buildingId,
+                    "startDate", start,
+                    "endDate", end,
+                    "bookingCount", bookingCount,
+                    "products", productCount,
+                    "occupancy", occupancy
+            ));
+        }
+        return result;
+    }
 
+    // Served from daily_occupancy_rollups; scope is BUILDING (scopeId = building id) or CLUSTER (scopeId = cluster id)
+    @GetMapping("/timeseries")
+    public Map<String, Object> timeSeries(
+            @RequestParam(defaultValue = "BUILDING") String scope,
+            @RequestParam String scopeId,
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(defaultValue = "day") String granularity
+    ) {
+        String rollupScope = scope.toUpperCase();
+        if (!DailyOccupancyRollup.SCOPE_BUILDING.equals(rollupScope) && !DailyOccupancyRollup.SCOPE_CLUSTER.equals(rollupScope)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "scope must be BUILDING or CLUSTER");
+        }
+        if (!OccupancyRollupService.DAY.equalsIgnoreCase(granularity) && !OccupancyRollupService.WEEK.equalsIgnoreCase(granularity)
+                && !OccupancyRollupService.MONTH.equalsIgnoreCase(granularity)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "granularity must be day, week or month");
+        }
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        return Map.of(
+                "scope", scope,
+                "scopeId", scopeId,
+                "granularity", granularity,
+                "points", rollupService.timeSeries(rollupScope, scopeId, start, end, granularity)
+        );
+    }
 
+    // ADR, RevPAR and occupancy per region x productGroup x month; source = auto | rollup | live
+    @GetMapping("/kpis")
+    public Map<String, Object> kpis(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(defaultValue = "auto") String source
+    ) {
+        return kpiService.portfolioKpis(LocalDate.parse(startDate), LocalDate.parse(endDate), source);
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.pricing.controller;
 
 import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
 import com.example.pricing.repository.PriceRepository;
+import com.example.pricing.service.PriceLookupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -19,6 +30,10 @@ import java.util.List;
 public class PriceController {
     @Autowired
     private PriceRepository priceRepository;
+    @Autowired
+    private PriceLookupService priceLookupService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     // Multi-currency, sorting, and pagination endpoint
     @GetMapping("")
@@ -43,4 +58,22 @@ public class PriceController {
     public List<Price> getPricesByProduct(@RequestParam String productId) {
         return priceRepository.findByIdProductId(productId);
     }
+
+    // Bulk lookup: body [{productId, currency?}, ...]; streams matching prices back as NDJSON, one chunk at a time
+    @PostMapping(value = "/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPricesBulk(@RequestBody List<PriceId> keys) {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                priceLookupService.lookup(keys, chunk -> {
+                    try {
+                        writer.writeAll(chunk);
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
@@ -92,6 +92,18 @@ public class RecommendationController {
         return clusteringService.bookingsForCluster(arrivalDate, roomType, noOfBeds, grade, privatePool);
     }
 
+    // Aggregated cluster statistics (counts, pricePaid distribution, daily histogram) instead of raw bookings
+    @GetMapping("/bookings-by-cluster/stats")
+    public ClusteringService.ClusterStats getClusterStats(
+            @RequestParam(required = false) java.time.LocalDate arrivalDate,
+            @RequestParam String roomType,
+            @RequestParam Integer noOfBeds,
+            @RequestParam Integer grade,
+            @RequestParam Boolean privatePool
+    ) {
+        return clusteringService.clusterStats(arrivalDate, roomType, noOfBeds, grade, privatePool);
+    }
+
     public static class BuildingDto {
         private String id;
         private String name;
@@ -0,0 +1,92 @@
+package com.example.pricing.controller;
+
+import com.example.pricing.model.Price;
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.repository.PriceRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.service.PricingService;
+import com.example.pricing.service.PricingService.PriceRecommendationDto;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/recommendations")
+public class RecommendationStreamController {
+    private final ProductRepository productRepo;
+    private final BookingRepository bookingRepo;
+    private final PriceRepository priceRepo;
+    private final PricingService pricingService;
+
+    public RecommendationStreamController(ProductRepository productRepo, BookingRepository bookingRepo,
+                                          PriceRepository priceRepo, PricingService pricingService) {
+        this.productRepo = productRepo;
+        this.bookingRepo = bookingRepo;
+        this.priceRepo = priceRepo;
+        this.pricingService = pricingService;
+    }
+
+    // Server-sent events: one "recommendation" event per product, emitted cluster by cluster.
+    // The engine only computes the next cluster when the client has consumed the previous one.
+    // Spring MVC streams an SSE Flux without the async request timeout, so long streams are not cut off.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PriceRecommendationDto>> stream(
+            @RequestParam(required = false) List<String> buildingIds,
+            @RequestParam(required = false) String currency
+    ) {
+        return Flux.defer(() -> {
+            List<com.example.pricing.model.Product> products = (buildingIds == null || buildingIds.isEmpty())
+                    ? productRepo.findAll()
+                    : productRepo.findByBuildingIdIn(buildingIds);
+            List<String> productIds = products.stream().map(com.example.pricing.model.Product::getId).toList();
+            List<com.example.pricing.model.Booking> bookings = (buildingIds == null || buildingIds.isEmpty())
+                    ? bookingRepo.findAll()
+                    : bookingRepo.findByProductIdIn(productIds);
+            boolean anyCurrency = currency == null || currency.isBlank();
+            List<Price> prices;
+            if (buildingIds == null || buildingIds.isEmpty()) {
+                prices = anyCurrency ? priceRepo.findAll() : priceRepo.findByIdCurrency(currency);
+            } else {
+                // Only the filtered products' prices, not the whole table
+                prices = priceRepo.findByIdProductIdIn(productIds).stream()
+                        .filter(p -> anyCurrency || currency.equals(p.getId().getCurrency()))
+                        .toList();
+            }
+
+            return pricingService.streamRecommendations(
+                    products.stream().map(RecommendationStreamController::toEngineProduct).toList(),
+                    bookings.stream().map(RecommendationStreamController::toEngineBooking).toList(),
+                    toPriceInfo(prices));
+        })
+        .map(dto -> ServerSentEvent.builder(dto).id(dto.getProductId()).event("recommendation").build())
+        .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static PricingService.Product toEngineProduct(com.example.pricing.model.Product p) {
+        return new PricingService.Product(p.getId(), p.getArrivalDate(), p.getRoomType(), p.getNoOfBeds(), p.getGrade(), p.getPrivatePool());
+    }
+
+    private static PricingService.Booking toEngineBooking(com.example.pricing.model.Booking b) {
+        double paid = b.getPricePaid() == null ? 0.0 : b.getPricePaid();
+        return new PricingService.Booking(b.getId(), b.getProductId(), paid, b.getArrivalDate());
+    }
+
+    // One current price per product; with no currency filter the first currency found wins
+    private static Map<String, PricingService.PriceInfo> toPriceInfo(List<Price> prices) {
+        Map<String, PricingService.PriceInfo> byProduct = new HashMap<>();
+        for (Price price : prices) {
+            byProduct.putIfAbsent(price.getId().getProductId(),
+                    new PricingService.PriceInfo(price.getId().getCurrency(), price.getValue()));
+        }
+        return byProduct;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.pricing.controller;
+
+import com.example.pricing.model.SyncDeadLetter;
+import com.example.pricing.service.ConfirmationOutbox;
+import com.example.pricing.service.ConfirmationsRecordedEvent;
+import com.example.pricing.service.SyncMetrics;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+    private final ConfirmationOutbox outbox;
+    private final ApplicationEventPublisher events;
+    private final SyncMetrics syncMetrics;
+
+    public SyncController(ConfirmationOutbox outbox, ApplicationEventPublisher events, SyncMetrics syncMetrics) {
+        this.outbox = outbox;
+        this.events = events;
+        this.syncMetrics = syncMetrics;
+    }
+
+    // Backlog, lag, throughput, latency and failures by cause; backlog figures are at most hotel.sync.metrics.refresh-ms old
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return syncMetrics.status();
+    }
+
+    @GetMapping("/dead-letters")
+    public List<SyncDeadLetter> deadLetters(@RequestParam(defaultValue = "100") int limit) {
+        return outbox.deadLetters(Math.min(limit, 1000));
+    }
+
+    // Body {"ids": [...]} replays those dead letters; no body or no ids replays all open ones
+    @PostMapping("/dead-letters/replay")
+    public Map<String, Object> replay(@RequestBody(required = false) Map<String, List<Long>> body) {
+        List<Long> ids = body == null ? null : body.get("ids");
+        ConfirmationOutbox.Replay replayed = outbox.replay(ids);
+        // Lets the micro-batch pipeline push them right away instead of at the next sweep
+        events.publishEvent(new ConfirmationsRecordedEvent(replayed.getRequeued()));
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("replayed", replayed.getRequeued());
+        resp.put("superseded", replayed.getSuperseded());
+        return resp;
+    }
+}
@@ -5,7 +5,10 @@ import lombok.Data;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_product_arrival", columnList = "product_id, arrival_date, nights, price_paid"),
+        @Index(name = "idx_bookings_arrival", columnList = "arrival_date, product_id, nights, price_paid")
+})
 @Data
 public class Booking {
     @Id
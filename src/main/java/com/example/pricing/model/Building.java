@@ -1,10 +1,12 @@
 package com.example.pricing.model;
 
+import com.example.pricing.service.AuthorizationCacheListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
 @Table(name = "buildings")
+@EntityListeners(AuthorizationCacheListener.class)
 @Data
 public class Building {
     @Id
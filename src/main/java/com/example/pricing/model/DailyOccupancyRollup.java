@@ -0,0 +1,37 @@
+package com.example.pricing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated occupancy per arrival day, for a building, a building's product group or a cluster ({@link #scope}).
+ * Rebuilt for the touched date range after product and booking ingest.
+ */
+@Entity
+@Table(name = "daily_occupancy_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_occupancy_rollups", columnNames = {"scope", "scope_id", "product_group", "rollup_date"})
+}, indexes = {
+        @Index(name = "idx_daily_occupancy_rollups_date", columnList = "rollup_date")
+})
+@Data
+public class DailyOccupancyRollup {
+    public static final String SCOPE_BUILDING = "BUILDING";
+    public static final String SCOPE_BUILDING_GROUP = "BUILDING_GROUP";
+    public static final String SCOPE_CLUSTER = "CLUSTER";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private LocalDate rollupDate;
+    private String scope; // BUILDING, BUILDING_GROUP or CLUSTER
+    private String scopeId; // building id, or cluster id as text
+    @Column(nullable = false)
+    private String productGroup = ""; // set for BUILDING_GROUP only; '' keeps the unique key strict
+    private Long bookings;
+    private Long roomNights;
+    private Long productsAvailable;
+    private Double revenue;
+    private LocalDateTime refreshedAt;
+}
@@ -6,7 +6,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_confirmations")
+@Table(name = "price_confirmations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_price_confirmations_write_ref", columnNames = "write_ref")
+}, indexes = {
+        @Index(name = "idx_price_confirmations_outbox", columnList = "synced, dead_lettered, next_attempt_at, id"),
+        @Index(name = "idx_price_confirmations_backlog", columnList = "synced, dead_lettered, confirmed_at"),
+        @Index(name = "idx_price_confirmations_key", columnList = "product_id, currency, confirmed_at, id")
+})
 @Data
 public class PriceConfirmation {
     @Id
@@ -19,4 +25,15 @@ public class PriceConfirmation {
     private String userId;
     private LocalDateTime confirmedAt;
     private Boolean synced = false;
+    private String writeRef; // set by write-behind mode; makes log replay idempotent
+    private String leaseOwner; // sync worker currently pushing this row
+    private LocalDateTime leaseUntil;
+    @Column(nullable = false)
+    private Integer attempts = 0; // failed pushes so far
+    private String lastError;
+    private LocalDateTime nextAttemptAt; // not claimed before this; null = due
+    @Column(nullable = false)
+    private Boolean deadLettered = false; // parked in sync_dead_letters until replayed
+    @Transient
+    private boolean superseded; // set by the outbox claim: a newer confirmation of the same product/currency exists
 }
@@ -1,11 +1,16 @@
 package com.example.pricing.model;
 
+import com.example.pricing.service.AuthorizationCacheListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_cluster", columnList = "arrival_date, room_type, no_of_beds, grade, private_pool"),
+        @Index(name = "idx_products_cluster_id", columnList = "cluster_id")
+})
+@EntityListeners(AuthorizationCacheListener.class)
 @Data
 public class Product {
     @Id
@@ -18,4 +23,5 @@ public class Product {
     private Integer grade;
     private Boolean privatePool;
     private String productGroup; // e.g., "LUXURY", "BUDGET", "FAMILY"
+    private Integer clusterId; // product_clusters.id, maintained by productIngestJob
 }
@@ -0,0 +1,25 @@
+package com.example.pricing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Cluster dictionary: one row per distinct (arrivalDate, roomType, noOfBeds, grade, privatePool).
+ * Products reference their cluster through {@link Product#getClusterId()}.
+ */
+@Entity
+@Table(name = "product_clusters", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_clusters_key", columnNames = {"arrival_date", "room_type", "no_of_beds", "grade", "private_pool"})
+})
+@Data
+public class ProductCluster {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    private LocalDate arrivalDate;
+    private String roomType;
+    private Integer noOfBeds;
+    private Integer grade;
+    private Boolean privatePool;
+}
@@ -0,0 +1,28 @@
+package com.example.pricing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A confirmation the hotel API rejected permanently or that ran out of push attempts.
+ * Stays open until replayed through {@code POST /api/sync/dead-letters/replay}.
+ */
+@Entity
+@Table(name = "sync_dead_letters", indexes = {
+        @Index(name = "idx_sync_dead_letters_open", columnList = "replayed_at, id"),
+        @Index(name = "idx_sync_dead_letters_confirmation", columnList = "confirmation_id")
+})
+@Data
+public class SyncDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long confirmationId;
+    private String productId;
+    private String currency;
+    private Integer attempts;
+    private String lastError;
+    private LocalDateTime deadLetteredAt;
+    private LocalDateTime replayedAt;
+}
@@ -1,10 +1,12 @@
 package com.example.pricing.model;
 
+import com.example.pricing.service.AuthorizationCacheListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(AuthorizationCacheListener.class)
 @Data
 public class User {
     @Id
@@ -2,8 +2,93 @@ package com.example.pricing.repository;
 
 import com.example.pricing.model.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, String> {
     List<Booking> findByProductIdIn(List<String> productIds);
+
+    @Query("select b from Booking b, Product p where p.id = b.productId and p.clusterId = :clusterId")
+    List<Booking> findByClusterId(@Param("clusterId") Integer clusterId);
+
+    // Per-arrival-day aggregates for one cluster; cluster totals are folded from these rows
+    @Query("select b.arrivalDate as day, count(b) as bookings, count(b.pricePaid) as pricedBookings, " +
+           "sum(b.nights) as roomNights, sum(b.pricePaid) as revenue, min(b.pricePaid) as minPaid, max(b.pricePaid) as maxPaid " +
+           "from Booking b, Product p " +
+           "where p.id = b.productId and p.clusterId = :clusterId " +
+           "group by b.arrivalDate order by b.arrivalDate")
+    List<DailyClusterStats> dailyStatsForCluster(@Param("clusterId") Integer clusterId);
+
+    // Returns [rank, pricePaid] only for the requested ranks of the cluster's sorted pricePaid values
+    @Query(value = "select q.rn, q.price_paid from (" +
+                   "  select b.price_paid, row_number() over (order by b.price_paid) as rn" +
+                   "  from bookings b join products p on p.id = b.product_id" +
+                   "  where b.price_paid is not null and p.cluster_id = :clusterId" +
+                   ") q where q.rn in (:ranks) order by q.rn",
+           nativeQuery = true)
+    List<Object[]> pricePaidAtRanksForCluster(@Param("clusterId") Integer clusterId, @Param("ranks") List<Long> ranks);
+
+    // Products and in-range bookings per building in one grouped pass; the date predicate sits in the
+    // join so buildings without bookings still report their product count. Served by the building_id FK
+    // index on products and idx_bookings_product_arrival on bookings.
+    @Query("select p.buildingId as buildingId, count(distinct p.id) as products, count(b.id) as bookings " +
+           "from Product p left join Booking b on b.productId = p.id " +
+           "and b.arrivalDate >= :start and b.arrivalDate <= :end " +
+           "where p.buildingId in :buildingIds " +
+           "group by p.buildingId")
+    List<BuildingOccupancy> occupancyByBuilding(@Param("buildingIds") Collection<String> buildingIds,
+                                                @Param("start") LocalDate start,
+                                                @Param("end") LocalDate end);
+
+    // Partial portfolio KPIs for one partition of buildings, keyed by region x product group x arrival month.
+    // Products and bookings are aggregated on their own arrival dates and folded through the union.
+    @Query(value = "select x.region as region, x.product_group as productGroup, x.month as month, " +
+                   "sum(x.bookings) as bookings, sum(x.room_nights) as roomNights, sum(x.revenue) as revenue, " +
+                   "sum(x.products) as productsAvailable from (" +
+                   "  select bd.region, p.product_group, date_format(p.arrival_date, '%Y-%m') as month," +
+                   "  0 as bookings, 0 as room_nights, 0 as revenue, count(*) as products" +
+                   "  from products p join buildings bd on bd.id = p.building_id" +
+                   "  where p.building_id in (:buildingIds) and p.arrival_date between :from and :to" +
+                   "  group by bd.region, p.product_group, date_format(p.arrival_date, '%Y-%m')" +
+                   "  union all" +
+                   "  select bd.region, p.product_group, date_format(b.arrival_date, '%Y-%m'), count(*)," +
+                   "  coalesce(sum(b.nights), 0), coalesce(sum(b.price_paid), 0), 0" +
+                   "  from bookings b join products p on p.id = b.product_id join buildings bd on bd.id = p.building_id" +
+                   "  where p.building_id in (:buildingIds) and b.arrival_date between :from and :to" +
+                   "  group by bd.region, p.product_group, date_format(b.arrival_date, '%Y-%m')" +
+                   ") x group by x.region, x.product_group, x.month",
+           nativeQuery = true)
+    List<KpiRow> kpisForBuildings(@Param("buildingIds") Collection<String> buildingIds,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    interface KpiRow {
+        String getRegion();
+        String getProductGroup();
+        String getMonth();
+        Long getBookings();
+        Long getRoomNights();
+        Double getRevenue();
+        Long getProductsAvailable();
+    }
+
+    interface BuildingOccupancy {
+        String getBuildingId();
+        Long getProducts();
+        Long getBookings();
+    }
+
+    interface DailyClusterStats {
+        LocalDate getDay();
+        Long getBookings();
+        Long getPricedBookings();
+        Long getRoomNights();
+        Double getRevenue();
+        Double getMinPaid();
+        Double getMaxPaid();
+    }
 }
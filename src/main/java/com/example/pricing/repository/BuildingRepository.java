@@ -2,5 +2,11 @@ package com.example.pricing.repository;
 
 import com.example.pricing.model.Building;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface BuildingRepository extends JpaRepository<Building, String> {}
+import java.util.List;
+
+public interface BuildingRepository extends JpaRepository<Building, String> {
+    @Query("select b.id from Building b order by b.id")
+    List<String> findAllIds();
+}
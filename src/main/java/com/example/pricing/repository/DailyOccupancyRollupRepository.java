@@ -0,0 +1,84 @@
+package com.example.pricing.repository;
+
+import com.example.pricing.model.DailyOccupancyRollup;
+import com.example.pricing.repository.BookingRepository.KpiRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyOccupancyRollupRepository extends JpaRepository<DailyOccupancyRollup, Long> {
+    List<DailyOccupancyRollup> findByScopeAndScopeIdAndRollupDateBetweenOrderByRollupDate(
+            String scope, String scopeId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("delete from DailyOccupancyRollup r where r.rollupDate >= :from and r.rollupDate <= :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Products are counted on their arrival date, bookings on theirs; the union folds both into one row per day
+    @Modifying
+    @Query(value = "insert into daily_occupancy_rollups " +
+                   "(rollup_date, scope, scope_id, product_group, bookings, room_nights, products_available, revenue, refreshed_at) " +
+                   "select x.day, 'BUILDING', x.scope_id, '', sum(x.bookings), sum(x.room_nights), sum(x.products), sum(x.revenue), now() from (" +
+                   "  select p.arrival_date as day, p.building_id as scope_id, 0 as bookings, 0 as room_nights, count(*) as products, 0 as revenue" +
+                   "  from products p where p.arrival_date between :from and :to and p.building_id is not null" +
+                   "  group by p.arrival_date, p.building_id" +
+                   "  union all" +
+                   "  select b.arrival_date, p.building_id, count(*), coalesce(sum(b.nights), 0), 0, coalesce(sum(b.price_paid), 0)" +
+                   "  from bookings b join products p on p.id = b.product_id" +
+                   "  where b.arrival_date between :from and :to and p.building_id is not null" +
+                   "  group by b.arrival_date, p.building_id" +
+                   ") x group by x.day, x.scope_id",
+           nativeQuery = true)
+    int insertBuildingRollups(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Same shape keyed by cluster id
+    @Modifying
+    @Query(value = "insert into daily_occupancy_rollups " +
+                   "(rollup_date, scope, scope_id, product_group, bookings, room_nights, products_available, revenue, refreshed_at) " +
+                   "select x.day, 'CLUSTER', x.scope_id, '', sum(x.bookings), sum(x.room_nights), sum(x.products), sum(x.revenue), now() from (" +
+                   "  select p.arrival_date as day, cast(p.cluster_id as char) as scope_id, 0 as bookings, 0 as room_nights, count(*) as products, 0 as revenue" +
+                   "  from products p where p.arrival_date between :from and :to and p.cluster_id is not null" +
+                   "  group by p.arrival_date, p.cluster_id" +
+                   "  union all" +
+                   "  select b.arrival_date, cast(p.cluster_id as char), count(*), coalesce(sum(b.nights), 0), 0, coalesce(sum(b.price_paid), 0)" +
+                   "  from bookings b join products p on p.id = b.product_id" +
+                   "  where b.arrival_date between :from and :to and p.cluster_id is not null" +
+                   "  group by b.arrival_date, p.cluster_id" +
+                   ") x group by x.day, x.scope_id",
+           nativeQuery = true)
+    int insertClusterRollups(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Per building and product group, the grain the portfolio KPIs need
+    @Modifying
+    @Query(value = "insert into daily_occupancy_rollups " +
+                   "(rollup_date, scope, scope_id, product_group, bookings, room_nights, products_available, revenue, refreshed_at) " +
+                   "select x.day, 'BUILDING_GROUP', x.scope_id, x.product_group, sum(x.bookings), sum(x.room_nights), sum(x.products), sum(x.revenue), now() from (" +
+                   "  select p.arrival_date as day, p.building_id as scope_id, coalesce(p.product_group, '') as product_group," +
+                   "  0 as bookings, 0 as room_nights, count(*) as products, 0 as revenue" +
+                   "  from products p where p.arrival_date between :from and :to and p.building_id is not null" +
+                   "  group by p.arrival_date, p.building_id, coalesce(p.product_group, '')" +
+                   "  union all" +
+                   "  select b.arrival_date, p.building_id, coalesce(p.product_group, ''), count(*), coalesce(sum(b.nights), 0), 0, coalesce(sum(b.price_paid), 0)" +
+                   "  from bookings b join products p on p.id = b.product_id" +
+                   "  where b.arrival_date between :from and :to and p.building_id is not null" +
+                   "  group by b.arrival_date, p.building_id, coalesce(p.product_group, '')" +
+                   ") x group by x.day, x.scope_id, x.product_group",
+           nativeQuery = true)
+    int insertBuildingGroupRollups(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Portfolio KPIs folded from BUILDING_GROUP rollups; same columns as BookingRepository.kpisForBuildings
+    @Query(value = "select bd.region as region, nullif(r.product_group, '') as productGroup, " +
+                   "date_format(r.rollup_date, '%Y-%m') as month, sum(r.bookings) as bookings, sum(r.room_nights) as roomNights, " +
+                   "sum(r.revenue) as revenue, sum(r.products_available) as productsAvailable " +
+                   "from daily_occupancy_rollups r join buildings bd on bd.id = r.scope_id " +
+                   "where r.scope = 'BUILDING_GROUP' and r.rollup_date between :from and :to " +
+                   "group by bd.region, r.product_group, date_format(r.rollup_date, '%Y-%m')",
+           nativeQuery = true)
+    List<KpiRow> kpisFromRollups(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    boolean existsByScope(String scope);
+}
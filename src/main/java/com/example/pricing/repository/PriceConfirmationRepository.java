@@ -2,8 +2,39 @@ package com.example.pricing.repository;
 
 import com.example.pricing.model.PriceConfirmation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface PriceConfirmationRepository extends JpaRepository<PriceConfirmation, Long> {
-    List<PriceConfirmation> findBySyncedFalse();
+public interface PriceConfirmationRepository extends JpaRepository<PriceConfirmation, Long>, PriceConfirmationRepositoryCustom {
+    // Also drops the sync lease; a row pushed by a worker whose lease had expired still counts as synced
+    @Modifying
+    @Query("update PriceConfirmation pc set pc.synced = true, pc.leaseOwner = null, pc.leaseUntil = null where pc.id in :ids")
+    int markSynced(@Param("ids") Collection<Long> ids);
+
+    // Pending sync lag; covered by idx_price_confirmations_backlog, cheap enough to poll
+    @Query("select count(pc) as pending, min(pc.confirmedAt) as oldestConfirmedAt from PriceConfirmation pc " +
+           "where pc.synced = false and pc.deadLettered = false")
+    Backlog backlog();
+
+    // Back into the outbox as a fresh row: due now, attempts reset
+    @Modifying
+    @Query("update PriceConfirmation pc set pc.deadLettered = false, pc.attempts = 0, pc.nextAttemptAt = null, " +
+           "pc.leaseOwner = null, pc.leaseUntil = null where pc.id in :ids and pc.synced = false")
+    int requeue(@Param("ids") Collection<Long> ids);
+
+    // Of the given rows, those with a newer confirmation of the same product/currency (idx_price_confirmations_key)
+    @Query("select pc.id from PriceConfirmation pc where pc.id in :ids and exists (select n.id from PriceConfirmation n " +
+           "where n.productId = pc.productId and n.currency = pc.currency " +
+           "and (n.confirmedAt > pc.confirmedAt or (n.confirmedAt = pc.confirmedAt and n.id > pc.id)))")
+    List<Long> findSupersededIds(@Param("ids") Collection<Long> ids);
+
+    interface Backlog {
+        Long getPending();
+        LocalDateTime getOldestConfirmedAt();
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.pricing.repository;
+
+import com.example.pricing.model.PriceConfirmation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PriceConfirmationRepositoryCustom {
+    /**
+     * Inserts all confirmations as one JDBC batch (a single multi-row INSERT with
+     * {@code rewriteBatchedStatements=true}). Generated ids are not written back to the entities.
+     *
+     * @return number of rows inserted
+     */
+    int insertAll(List<PriceConfirmation> confirmations);
+
+    /**
+     * Same as {@link #insertAll} but a row whose unique {@code write_ref} already exists is left as it is
+     * ({@code ON DUPLICATE KEY UPDATE write_ref = write_ref}), so replaying confirmations that were already
+     * committed is a no-op. Any other error fails the batch.
+     *
+     * @return rows reported by the driver; with rewritten batches skipped duplicates are counted too
+     */
+    int insertIfAbsentAll(List<PriceConfirmation> confirmations);
+
+    /**
+     * Claims up to {@code limit} unsynced, not dead-lettered confirmations that are due ({@code next_attempt_at}
+     * unset or passed) and whose lease is free or expired: selects them with
+     * {@code FOR UPDATE SKIP LOCKED}, so concurrent claimers never wait on or share rows, and leases them
+     * to {@code owner} until {@code leaseUntil}. Must run in a (short) transaction.
+     *
+     * A row is not claimed while another row of the same (productId, currency) is leased, and a claimed row
+     * that has a newer row of its key (any state) comes back with {@code superseded} set: it must not be pushed.
+     *
+     * @return the claimed rows in id order
+     */
+    List<PriceConfirmation> claimPending(String owner, int limit, LocalDateTime now, LocalDateTime leaseUntil);
+
+    /**
+     * Writes back {@code attempts}, {@code lastError}, {@code nextAttemptAt} and {@code deadLettered} of failed
+     * pushes as one JDBC batch and drops their lease.
+     *
+     * @return number of rows updated
+     */
+    int recordFailures(List<PriceConfirmation> confirmations);
+}
@@ -0,0 +1,121 @@
+package com.example.pricing.repository;
+
+import com.example.pricing.model.PriceConfirmation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Spring Data picks this up as the PriceConfirmationRepositoryCustom fragment; runs in the caller's transaction
+public class PriceConfirmationRepositoryImpl implements PriceConfirmationRepositoryCustom {
+    private static final String COLUMNS =
+            "price_confirmations (product_id, action, confirmed_value, currency, user_id, confirmed_at, synced, write_ref) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SQL = "insert into " + COLUMNS;
+    // Only a duplicate key is absorbed (the no-op update); unlike INSERT IGNORE, NOT NULL, truncation
+    // and foreign key errors still fail the batch
+    private static final String INSERT_IF_ABSENT_SQL = "insert into " + COLUMNS + " on duplicate key update write_ref = write_ref";
+
+    // The subqueries are plain (non-locking) reads: a newer row of the key makes the claimed one superseded,
+    // and a row waits while another row of its key is leased, so one key is never pushed twice at once
+    private static final String CLAIM_SQL =
+            "select pc.id, pc.product_id, pc.action, pc.confirmed_value, pc.currency, pc.user_id, pc.confirmed_at, " +
+            "pc.synced, pc.write_ref, pc.attempts, " +
+            "exists (select 1 from price_confirmations n where n.product_id = pc.product_id and n.currency = pc.currency " +
+            "and (n.confirmed_at > pc.confirmed_at or (n.confirmed_at = pc.confirmed_at and n.id > pc.id))) as superseded " +
+            "from price_confirmations pc where pc.synced = false and pc.dead_lettered = false " +
+            "and (pc.next_attempt_at is null or pc.next_attempt_at <= ?) and (pc.lease_until is null or pc.lease_until < ?) " +
+            "and not exists (select 1 from price_confirmations o where o.product_id = pc.product_id " +
+            "and o.currency = pc.currency and o.id <> pc.id and o.synced = false and o.lease_until >= ?) " +
+            "order by pc.id limit ? for update skip locked";
+
+    private static final String RECORD_FAILURE_SQL =
+            "update price_confirmations set attempts = ?, last_error = ?, next_attempt_at = ?, dead_lettered = ?, " +
+            "lease_owner = null, lease_until = null where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceConfirmationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll(List<PriceConfirmation> confirmations) {
+        return batchInsert(INSERT_SQL, confirmations);
+    }
+
+    @Override
+    public int insertIfAbsentAll(List<PriceConfirmation> confirmations) {
+        return batchInsert(INSERT_IF_ABSENT_SQL, confirmations);
+    }
+
+    @Override
+    public List<PriceConfirmation> claimPending(String owner, int limit, LocalDateTime now, LocalDateTime leaseUntil) {
+        List<PriceConfirmation> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, i) -> {
+            PriceConfirmation pc = new PriceConfirmation();
+            pc.setId(rs.getLong("id"));
+            pc.setProductId(rs.getString("product_id"));
+            pc.setAction(rs.getString("action"));
+            pc.setConfirmedValue(rs.getBigDecimal("confirmed_value"));
+            pc.setCurrency(rs.getString("currency"));
+            pc.setUserId(rs.getString("user_id"));
+            Timestamp confirmedAt = rs.getTimestamp("confirmed_at");
+            pc.setConfirmedAt(confirmedAt == null ? null : confirmedAt.toLocalDateTime());
+            pc.setSynced(rs.getBoolean("synced"));
+            pc.setWriteRef(rs.getString("write_ref"));
+            pc.setAttempts(rs.getInt("attempts"));
+            pc.setSuperseded(rs.getBoolean("superseded"));
+            pc.setLeaseOwner(owner);
+            pc.setLeaseUntil(leaseUntil);
+            return pc;
+        }, Timestamp.valueOf(now), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+        if (claimed.isEmpty()) return claimed;
+        String placeholders = String.join(",", Collections.nCopies(claimed.size(), "?"));
+        List<Object> args = new ArrayList<>(claimed.size() + 2);
+        args.add(owner);
+        args.add(Timestamp.valueOf(leaseUntil));
+        for (PriceConfirmation pc : claimed) args.add(pc.getId());
+        jdbcTemplate.update("update price_confirmations set lease_owner = ?, lease_until = ? where id in (" + placeholders + ")", args.toArray());
+        return claimed;
+    }
+
+    @Override
+    public int recordFailures(List<PriceConfirmation> confirmations) {
+        if (confirmations.isEmpty()) return 0;
+        int[][] counts = jdbcTemplate.batchUpdate(RECORD_FAILURE_SQL, confirmations, confirmations.size(), (ps, pc) -> {
+            ps.setInt(1, pc.getAttempts());
+            ps.setString(2, pc.getLastError());
+            ps.setTimestamp(3, pc.getNextAttemptAt() == null ? null : Timestamp.valueOf(pc.getNextAttemptAt()));
+            ps.setBoolean(4, Boolean.TRUE.equals(pc.getDeadLettered()));
+            ps.setLong(5, pc.getId());
+        });
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) updated += c < 0 ? 1 : c;
+        }
+        return updated;
+    }
+
+    private int batchInsert(String sql, List<PriceConfirmation> confirmations) {
+        if (confirmations.isEmpty()) return 0;
+        int[][] counts = jdbcTemplate.batchUpdate(sql, confirmations, confirmations.size(), (ps, pc) -> {
+            ps.setString(1, pc.getProductId());
+            ps.setString(2, pc.getAction());
+            ps.setBigDecimal(3, pc.getConfirmedValue());
+            ps.setString(4, pc.getCurrency());
+            ps.setString(5, pc.getUserId());
+            ps.setTimestamp(6, pc.getConfirmedAt() == null ? null : Timestamp.valueOf(pc.getConfirmedAt()));
+            ps.setBoolean(7, Boolean.TRUE.equals(pc.getSynced()));
+            ps.setString(8, pc.getWriteRef());
+        });
+        // With rewritten batches the driver reports SUCCESS_NO_INFO (-2) per row
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) inserted += c < 0 ? 1 : c;
+        }
+        return inserted;
+    }
+}
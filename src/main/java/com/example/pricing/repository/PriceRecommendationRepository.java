@@ -2,6 +2,18 @@ package com.example.pricing.repository;
 
 import com.example.pricing.model.PriceRecommendation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PriceRecommendationRepository extends JpaRepository<PriceRecommendation, Long> {
+    Optional<PriceRecommendation> findFirstByProductIdOrderByRecommendedAtDesc(String productId);
+
+    // Latest recommendation per product; ties on recommendedAt return every tied row
+    @Query("select r from PriceRecommendation r where r.productId in :productIds and r.recommendedAt = " +
+           "(select max(r2.recommendedAt) from PriceRecommendation r2 where r2.productId = r.productId)")
+    List<PriceRecommendation> findLatestByProductIdIn(@Param("productIds") Collection<String> productIds);
 }
@@ -0,0 +1,43 @@
+package com.example.pricing.repository;
+
+import com.example.pricing.model.ProductCluster;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface ProductClusterRepository extends JpaRepository<ProductCluster, Integer> {
+
+    // <=> is MySQL's null-safe equality, so clusters with null attributes resolve to a single id
+    @Query(value = "select c.id from product_clusters c " +
+                   "where c.arrival_date <=> :arrivalDate and c.room_type <=> :roomType and c.no_of_beds <=> :noOfBeds " +
+                   "and c.grade <=> :grade and c.private_pool <=> :privatePool",
+           nativeQuery = true)
+    Optional<Integer> findClusterId(@Param("arrivalDate") LocalDate arrivalDate,
+                                    @Param("roomType") String roomType,
+                                    @Param("noOfBeds") Integer noOfBeds,
+                                    @Param("grade") Integer grade,
+                                    @Param("privatePool") Boolean privatePool);
+
+    // Adds a dictionary entry for every cluster key present on products but not yet known
+    @Modifying
+    @Query(value = "insert into product_clusters (arrival_date, room_type, no_of_beds, grade, private_pool) " +
+                   "select distinct p.arrival_date, p.room_type, p.no_of_beds, p.grade, p.private_pool from products p " +
+                   "where not exists (select 1 from product_clusters c " +
+                   "  where c.arrival_date <=> p.arrival_date and c.room_type <=> p.room_type and c.no_of_beds <=> p.no_of_beds " +
+                   "  and c.grade <=> p.grade and c.private_pool <=> p.private_pool)",
+           nativeQuery = true)
+    int insertMissingClusters();
+
+    // Points every product at its dictionary entry; only rows whose cluster changed are written
+    @Modifying
+    @Query(value = "update products p join product_clusters c " +
+                   "on c.arrival_date <=> p.arrival_date and c.room_type <=> p.room_type and c.no_of_beds <=> p.no_of_beds " +
+                   "and c.grade <=> p.grade and c.private_pool <=> p.private_pool " +
+                   "set p.cluster_id = c.id where not (p.cluster_id <=> c.id)",
+           nativeQuery = true)
+    int assignProductClusters();
+}
@@ -7,19 +7,58 @@ import java.time.LocalDate;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, String> {
-    List<Product> findByArrivalDateAndRoomTypeAndNoOfBedsAndGradeAndPrivatePool(
-            LocalDate arrivalDate, String roomType, Integer noOfBeds, Integer grade, Boolean privatePool);
     List<Product> findByBuildingId(String buildingId);
-
-    @Query("select distinct p.roomType from Product p")
-    List<String> findDistinctRoomTypes();
-
-    @Query("select distinct p.noOfBeds from Product p")
-    List<Integer> findDistinctNoOfBeds();
+    List<Product> findByBuildingIdIn(List<String> buildingIds);
 
     @Query("select min(p.arrivalDate) from Product p")
     LocalDate findMinArrivalDate();
 
     @Query("select max(p.arrivalDate) from Product p")
     LocalDate findMaxArrivalDate();
+
+    // One grouped pass over buildings x products for the filter facets; the second branch picks up
+    // products whose building is missing so their values still count
+    @Query(value = "select b.id as buildingId, b.name as buildingName, b.type as buildingType, b.region as region, " +
+                   "p.room_type as roomType, p.no_of_beds as noOfBeds, p.product_group as productGroup, " +
+                   "min(p.arrival_date) as minArrival, max(p.arrival_date) as maxArrival, count(p.id) as products " +
+                   "from buildings b left join products p on p.building_id = b.id " +
+                   "group by b.id, b.name, b.type, b.region, p.room_type, p.no_of_beds, p.product_group " +
+                   "union all " +
+                   "select null, null, null, null, p.room_type, p.no_of_beds, p.product_group, " +
+                   "min(p.arrival_date), max(p.arrival_date), count(p.id) " +
+                   "from products p left join buildings b on b.id = p.building_id where b.id is null " +
+                   "group by p.room_type, p.no_of_beds, p.product_group",
+           nativeQuery = true)
+    List<FacetRow> findFacetRows();
+
+    // One narrow row per product for the selection-aware facet index
+    @Query(value = "select p.building_id as buildingId, b.region as region, b.type as buildingType, " +
+                   "p.product_group as productGroup, p.room_type as roomType, p.no_of_beds as noOfBeds, " +
+                   "p.arrival_date as arrivalDate " +
+                   "from products p left join buildings b on b.id = p.building_id",
+           nativeQuery = true)
+    List<FacetIndexRow> findFacetIndexRows();
+
+    interface FacetRow {
+        String getBuildingId();
+        String getBuildingName();
+        String getBuildingType();
+        String getRegion();
+        String getRoomType();
+        Integer getNoOfBeds();
+        String getProductGroup();
+        LocalDate getMinArrival();
+        LocalDate getMaxArrival();
+        Long getProducts();
+    }
+
+    interface FacetIndexRow {
+        String getBuildingId();
+        String getRegion();
+        String getBuildingType();
+        String getProductGroup();
+        String getRoomType();
+        Integer getNoOfBeds();
+        LocalDate getArrivalDate();
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.pricing.repository;
+
+import com.example.pricing.model.SyncDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SyncDeadLetterRepository extends JpaRepository<SyncDeadLetter, Long> {
+    List<SyncDeadLetter> findByReplayedAtIsNullOrderByIdDesc(Pageable pageable);
+
+    List<SyncDeadLetter> findByIdInAndReplayedAtIsNull(Collection<Long> ids);
+
+    List<SyncDeadLetter> findByReplayedAtIsNull();
+
+    long countByReplayedAtIsNull();
+}
@@ -0,0 +1,67 @@
+package com.example.pricing.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch size for bulk pushes to the hotel API, adjusted additive-increase / multiplicative-decrease:
+ * a batch that completes within {@code target-latency-ms} with an item error rate below
+ * {@code max-error-rate} grows the next batch by {@code step}; a slow or failing batch halves it.
+ * Bounded by {@code min-size} and {@code max-size}; a batch the API refuses as too large lowers the
+ * upper bound below its size for the rest of the process.
+ */
+@Component
+public class AdaptiveBatchSize {
+    private final int minSize;
+    private int maxSize;
+    private final int step;
+    private final long targetLatencyMs;
+    private final double maxErrorRate;
+    private int current;
+
+    public AdaptiveBatchSize(@Value("${hotel.api.batch.min-size:10}") int minSize,
+                             @Value("${hotel.api.batch.max-size:500}") int maxSize,
+                             @Value("${hotel.api.batch.initial-size:50}") int initialSize,
+                             @Value("${hotel.api.batch.step:10}") int step,
+                             @Value("${hotel.api.batch.target-latency-ms:1000}") long targetLatencyMs,
+                             @Value("${hotel.api.batch.max-error-rate:0.05}") double maxErrorRate) {
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.step = Math.max(1, step);
+        this.targetLatencyMs = targetLatencyMs;
+        this.maxErrorRate = maxErrorRate;
+        this.current = clamp(initialSize);
+    }
+
+    public synchronized int current() {
+        return current;
+    }
+
+    /**
+     * @param latencyMs round trip of the batch request, including retries
+     * @param errorRate share of items in the batch that failed (1.0 when the whole request failed)
+     */
+    public synchronized void record(long latencyMs, double errorRate) {
+        if (latencyMs <= targetLatencyMs && errorRate <= maxErrorRate) {
+            current = clamp(current + step);
+        } else {
+            current = clamp(current / 2);
+        }
+    }
+
+    /**
+     * @param refusedSize size of a batch the API answered with 413 Payload Too Large
+     */
+    public synchronized void tooLarge(int refusedSize) {
+        maxSize = Math.max(minSize, Math.min(maxSize, refusedSize - 1));
+        current = clamp(Math.min(current, refusedSize / 2));
+    }
+
+    public synchronized int maxSize() {
+        return maxSize;
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pricing.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking limit on concurrent hotel API calls, adjusted additive-increase / multiplicative-decrease:
+ * a call that succeeds within {@code target-latency-ms} raises the limit by one per "limit" such calls
+ * (about +1 per round of calls); a failed or slow call halves it. At most one decrease happens per
+ * {@code target-latency-ms}, so a burst of failures from the same round only counts once.
+ * Bounded by {@code min} and {@code max}; callers past the limit wait without holding a thread.
+ */
+@Component
+public class AdaptiveConcurrency {
+    private final int min;
+    private final int max;
+    private final long targetLatencyMs;
+    private final Deque<MonoSink<Boolean>> waiters = new ArrayDeque<>();
+    private int limit;
+    private int inFlight;
+    private int successesSinceIncrease;
+    private long lastDecrease;
+
+    public AdaptiveConcurrency(@Value("${hotel.api.concurrency-control.min:2}") int min,
+                               @Value("${hotel.api.concurrency:16}") int max,
+                               @Value("${hotel.api.concurrency-control.initial:8}") int initial,
+                               @Value("${hotel.api.concurrency-control.target-latency-ms:500}") long targetLatencyMs) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.targetLatencyMs = targetLatencyMs;
+        this.limit = clamp(initial);
+        this.lastDecrease = System.nanoTime() - targetLatencyMs * 1_000_000;
+    }
+
+    /**
+     * Runs {@code call} once a slot is free and feeds its latency and outcome back into the limit.
+     *
+     * @param succeeded decides from the call's value whether it counts as a success
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> call, Predicate<T> succeeded) {
+        return Mono.usingWhen(acquire(),
+                slot -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return call.get()
+                            .doOnNext(value -> record((System.nanoTime() - start) / 1_000_000, succeeded.test(value)))
+                            .doOnError(ex -> record((System.nanoTime() - start) / 1_000_000, false));
+                }),
+                slot -> Mono.fromRunnable(this::release),
+                (slot, ex) -> Mono.fromRunnable(this::release),
+                slot -> Mono.fromRunnable(this::release));
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private Mono<Boolean> acquire() {
+        return Mono.create(sink -> {
+            boolean granted;
+            synchronized (this) {
+                granted = inFlight < limit;
+                if (granted) inFlight++;
+                else waiters.add(sink);
+            }
+            if (granted) sink.success(true);
+            else sink.onCancel(() -> cancel(sink));
+        });
+    }
+
+    private synchronized void cancel(MonoSink<Boolean> sink) {
+        waiters.remove(sink);
+    }
+
+    private void release() {
+        List<MonoSink<Boolean>> woken = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            while (inFlight < limit && !waiters.isEmpty()) {
+                inFlight++;
+                woken.add(waiters.poll());
+            }
+        }
+        for (MonoSink<Boolean> waiter : woken) waiter.success(true);
+    }
+
+    private synchronized void record(long latencyMs, boolean success) {
+        long now = System.nanoTime();
+        if (success && latencyMs <= targetLatencyMs) {
+            if (++successesSinceIncrease >= limit) {
+                successesSinceIncrease = 0;
+                limit = clamp(limit + 1);
+            }
+        } else if (now - lastDecrease >= targetLatencyMs * 1_000_000) {
+            lastDecrease = now;
+            successesSinceIncrease = 0;
+            limit = clamp(limit / 2);
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.pricing.service;
+
+import com.example.pricing.config.IngestCompletedEvent;
+import com.example.pricing.model.Building;
+import com.example.pricing.model.Product;
+import com.example.pricing.model.User;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache for authorization lookups: userId -> (role, region), productId -> buildingId and
+ * buildingId -> region. Only the fields the checks need are kept.
+ *
+ * Entries are evicted by {@link AuthorizationCacheListener} when a user, product or building entity
+ * changes, and product/building entries are dropped after a product or building ingest. A load that
+ * races with an eviction is not cached (generation check), so a stale row cannot be re-inserted.
+ *
+ * Changes this instance does not see (the PySpark ETL, direct SQL, other instances) are picked up when the
+ * entry expires, {@code pricing.authorization-cache.expire-after-write-minutes} after it was loaded; that is
+ * how long a demoted user can keep their old rights at most. Each map holds at most
+ * {@code pricing.authorization-cache.max-entries}; beyond that, lookups are served from the database uncached.
+ */
+@Component
+public class AuthorizationCache {
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final BuildingRepository buildingRepository;
+
+    private final long expireAfterWriteNanos;
+    private final int maxEntries;
+    private final Map<String, Entry<Grant>> grants = new ConcurrentHashMap<>();
+    private final Map<String, Entry<ProductRef>> products = new ConcurrentHashMap<>();
+    private final Map<String, Entry<BuildingRef>> buildings = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private LongSupplier ticker = System::nanoTime;
+
+    public AuthorizationCache(UserRepository userRepository, ProductRepository productRepository, BuildingRepository buildingRepository,
+                              @Value("${pricing.authorization-cache.expire-after-write-minutes:5}") long expireAfterWriteMinutes,
+                              @Value("${pricing.authorization-cache.max-entries:100000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.buildingRepository = buildingRepository;
+        this.expireAfterWriteNanos = TimeUnit.MINUTES.toNanos(Math.max(1, expireAfterWriteMinutes));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    // For unit testing: allow explicit injection of the nanosecond clock entries expire on
+    public void setTicker(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    public Optional<Grant> grant(String userId) {
+        if (userId == null) return Optional.empty();
+        Grant cached = cached(grants, userId);
+        if (cached != null) return Optional.of(cached);
+        long gen = generation.get();
+        Optional<Grant> loaded = userRepository.findById(userId).map(Grant::of);
+        loaded.ifPresent(g -> putIfCurrent(grants, userId, g, gen));
+        return loaded;
+    }
+
+    public Optional<ProductRef> product(String productId) {
+        if (productId == null) return Optional.empty();
+        ProductRef cached = cached(products, productId);
+        if (cached != null) return Optional.of(cached);
+        long gen = generation.get();
+        Optional<ProductRef> loaded = productRepository.findById(productId).map(ProductRef::of);
+        loaded.ifPresent(p -> putIfCurrent(products, productId, p, gen));
+        return loaded;
+    }
+
+    public Optional<BuildingRef> building(String buildingId) {
+        if (buildingId == null) return Optional.empty();
+        BuildingRef cached = cached(buildings, buildingId);
+        if (cached != null) return Optional.of(cached);
+        long gen = generation.get();
+        Optional<BuildingRef> loaded = buildingRepository.findById(buildingId).map(BuildingRef::of);
+        loaded.ifPresent(b -> putIfCurrent(buildings, buildingId, b, gen));
+        return loaded;
+    }
+
+    /**
+     * Bulk-loads the users that are not cached yet with one IN query.
+     *
+     * @return grants of the given users that exist; unknown ids are absent
+     */
+    public Map<String, Grant> preloadUsers(Collection<String> userIds) {
+        Map<String, Grant> found = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String id : userIds) {
+            if (id == null) continue;
+            Grant cached = cached(grants, id);
+            if (cached != null) found.put(id, cached);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) return found;
+        long gen = generation.get();
+        for (User u : userRepository.findAllById(missing)) {
+            Grant grant = Grant.of(u);
+            found.put(u.getId(), grant);
+            putIfCurrent(grants, u.getId(), grant, gen);
+        }
+        return found;
+    }
+
+    // Bulk-loads missing products, then their missing buildings: at most two IN queries
+    public void preloadProducts(Collection<String> productIds) {
+        Set<String> missing = missing(productIds, products);
+        if (missing.isEmpty()) return;
+        long gen = generation.get();
+        Set<String> buildingIds = new HashSet<>();
+        for (Product p : productRepository.findAllById(missing)) {
+            putIfCurrent(products, p.getId(), ProductRef.of(p), gen);
+            if (p.getBuildingId() != null) buildingIds.add(p.getBuildingId());
+        }
+        Set<String> missingBuildings = missing(buildingIds, buildings);
+        if (missingBuildings.isEmpty()) return;
+        for (Building b : buildingRepository.findAllById(missingBuildings)) putIfCurrent(buildings, b.getId(), BuildingRef.of(b), gen);
+    }
+
+    public void evictUser(String userId) {
+        generation.incrementAndGet();
+        if (userId != null) grants.remove(userId);
+    }
+
+    public void evictProduct(String productId) {
+        generation.incrementAndGet();
+        if (productId != null) products.remove(productId);
+    }
+
+    public void evictBuilding(String buildingId) {
+        generation.incrementAndGet();
+        if (buildingId != null) buildings.remove(buildingId);
+    }
+
+    // Ingest writes products/buildings in bulk; drop those maps wholesale rather than per row
+    @EventListener
+    public void onIngestCompleted(IngestCompletedEvent event) {
+        if (event.isProductOrBuildingIngest()) {
+            generation.incrementAndGet();
+            products.clear();
+            buildings.clear();
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        grants.clear();
+        products.clear();
+        buildings.clear();
+    }
+
+    private <V> V cached(Map<String, Entry<V>> map, String key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) return null;
+        if (ticker.getAsLong() - entry.expiresAt >= 0) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private <V> void putIfCurrent(Map<String, Entry<V>> map, String key, V value, long gen) {
+        if (generation.get() != gen) return;
+        long now = ticker.getAsLong();
+        if (map.size() >= maxEntries) map.values().removeIf(e -> now - e.expiresAt >= 0);
+        if (map.size() < maxEntries) map.put(key, new Entry<>(value, now + expireAfterWriteNanos));
+    }
+
+    private <V> Set<String> missing(Collection<String> ids, Map<String, Entry<V>> map) {
+        Set<String> missing = new HashSet<>();
+        for (String id : ids) {
+            if (id != null && cached(map, id) == null) missing.add(id);
+        }
+        return missing;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static final class Grant {
+        private final String role;
+        private final String region;
+
+        public Grant(String role, String region) {
+            this.role = role;
+            this.region = region;
+        }
+
+        static Grant of(User user) {
+            return new Grant(user.getRole(), user.getRegion());
+        }
+
+        public String getRole() { return role; }
+        public String getRegion() { return region; }
+    }
+
+    public static final class ProductRef {
+        private final String buildingId;
+
+        public ProductRef(String buildingId) {
+            this.buildingId = buildingId;
+        }
+
+        static ProductRef of(Product product) {
+            return new ProductRef(product.getBuildingId());
+        }
+
+        public String getBuildingId() { return buildingId; }
+    }
+
+    public static final class BuildingRef {
+        private final String region;
+
+        public BuildingRef(String region) {
+            this.region = region;
+        }
+
+        static BuildingRef of(Building building) {
+            return new BuildingRef(building.getRegion());
+        }
+
+        public String getRegion() { return region; }
+    }
+}
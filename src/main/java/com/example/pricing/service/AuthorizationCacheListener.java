@@ -0,0 +1,54 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.Building;
+import com.example.pricing.model.Product;
+import com.example.pricing.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link User}, {@link Product} and {@link Building} that evicts the matching
+ * {@link AuthorizationCache} entry. Eviction happens at flush and again after commit, so a reader that
+ * reloaded the old row in between cannot leave it cached.
+ *
+ * Instantiated by Hibernate through Spring's bean container; the cache is resolved lazily to avoid a
+ * cycle with the EntityManagerFactory the repositories depend on.
+ */
+public class AuthorizationCacheListener {
+    private final ObjectProvider<AuthorizationCache> cache;
+
+    public AuthorizationCacheListener(ObjectProvider<AuthorizationCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        AuthorizationCache c = cache.getIfAvailable();
+        if (c == null) return;
+        Runnable evict;
+        if (entity instanceof User u) {
+            evict = () -> c.evictUser(u.getId());
+        } else if (entity instanceof Product p) {
+            evict = () -> c.evictProduct(p.getId());
+        } else if (entity instanceof Building b) {
+            evict = () -> c.evictBuilding(b.getId());
+        } else {
+            return;
+        }
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
@@ -1,30 +1,153 @@
 package com.example.pricing.service;
 
 import com.example.pricing.model.Booking;
-import com.example.pricing.model.Product;
 import com.example.pricing.repository.BookingRepository;
-import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.BookingRepository.DailyClusterStats;
+import com.example.pricing.repository.ProductClusterRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class ClusteringService {
-    private final ProductRepository productRepository;
+    // Quantiles reported by clusterStats, nearest-rank method
+    private static final double[] QUANTILES = {0.25, 0.5, 0.75, 0.9};
+
+    private final ProductClusterRepository clusterRepository;
     private final BookingRepository bookingRepository;
 
-    public ClusteringService(ProductRepository productRepository, BookingRepository bookingRepository) {
-        this.productRepository = productRepository;
+    public ClusteringService(ProductClusterRepository clusterRepository, BookingRepository bookingRepository) {
+        this.clusterRepository = clusterRepository;
         this.bookingRepository = bookingRepository;
     }
 
+    // Resolves the cluster through the dictionary's unique key, then a single cluster_id join
     public List<Booking> bookingsForCluster(LocalDate arrivalDate, String roomType, Integer beds, Integer grade, Boolean privatePool) {
-        List<Product> products = productRepository.findByArrivalDateAndRoomTypeAndNoOfBedsAndGradeAndPrivatePool(
-                arrivalDate, roomType, beds, grade, privatePool);
-        if (products.isEmpty()) return List.of();
-        List<String> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
-        return bookingRepository.findByProductIdIn(productIds);
+        return findClusterId(arrivalDate, roomType, beds, grade, privatePool)
+                .map(bookingRepository::findByClusterId)
+                .orElse(List.of());
+    }
+
+    public Optional<Integer> findClusterId(LocalDate arrivalDate, String roomType, Integer beds, Integer grade, Boolean privatePool) {
+        return clusterRepository.findClusterId(arrivalDate, roomType, beds, grade, privatePool);
+    }
+
+    /**
+     * Brings the cluster dictionary in line with products: registers new cluster keys and
+     * re-points products whose cluster changed. Runs as the last step of productIngestJob.
+     *
+     * @return number of products whose cluster id was (re)assigned
+     */
+    @Transactional
+    public int refreshClusterDictionary() {
+        clusterRepository.insertMissingClusters();
+        return clusterRepository.assignProductClusters();
+    }
+
+    /**
+     * Aggregated view of a cluster's bookings, computed in the database.
+     * After the cluster id lookup, one grouped query yields the daily histogram (totals are folded
+     * from it); a second query fetches only the handful of rows sitting at the quantile ranks.
+     * The response size depends on the number of arrival days, not on the number of bookings.
+     */
+    public ClusterStats clusterStats(LocalDate arrivalDate, String roomType, Integer beds, Integer grade, Boolean privatePool) {
+        Optional<Integer> clusterId = findClusterId(arrivalDate, roomType, beds, grade, privatePool);
+        List<DailyClusterStats> days = clusterId.map(bookingRepository::dailyStatsForCluster).orElse(List.of());
+
+        long bookings = 0;
+        long priced = 0;
+        long roomNights = 0;
+        double revenue = 0.0;
+        Double min = null;
+        Double max = null;
+        List<DailyCount> daily = new ArrayList<>(days.size());
+        for (DailyClusterStats d : days) {
+            bookings += nz(d.getBookings());
+            priced += nz(d.getPricedBookings());
+            roomNights += nz(d.getRoomNights());
+            revenue += d.getRevenue() == null ? 0.0 : d.getRevenue();
+            if (d.getMinPaid() != null && (min == null || d.getMinPaid() < min)) min = d.getMinPaid();
+            if (d.getMaxPaid() != null && (max == null || d.getMaxPaid() > max)) max = d.getMaxPaid();
+            daily.add(new DailyCount(d.getDay(), nz(d.getBookings()), nz(d.getRoomNights()), d.getRevenue()));
+        }
+        Double mean = priced == 0 ? null : revenue / priced;
+
+        Map<String, Double> quantiles = new LinkedHashMap<>();
+        if (priced > 0) {
+            List<Long> ranks = new ArrayList<>();
+            for (double q : QUANTILES) ranks.add(nearestRank(q, priced));
+            Map<Long, Double> valueByRank = new HashMap<>();
+            for (Object[] row : bookingRepository.pricePaidAtRanksForCluster(clusterId.get(), ranks)) {
+                valueByRank.put(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+            }
+            for (int i = 0; i < QUANTILES.length; i++) {
+                quantiles.put("p" + Math.round(QUANTILES[i] * 100), valueByRank.get(ranks.get(i)));
+            }
+        }
+        return new ClusterStats(bookings, roomNights, mean, min, max, quantiles, daily);
+    }
+
+    // Nearest-rank quantile position (1-based) in a sorted list of n values
+    static long nearestRank(double q, long n) {
+        return Math.max(1L, (long) Math.ceil(q * n));
+    }
+
+    private static long nz(Long v) {
+        return v == null ? 0L : v;
+    }
+
+    public static class ClusterStats {
+        private final long bookings;
+        private final long roomNights;
+        private final Double meanPaid;
+        private final Double minPaid;
+        private final Double maxPaid;
+        private final Map<String, Double> pricePaidQuantiles;
+        private final List<DailyCount> daily;
+
+        public ClusterStats(long bookings, long roomNights, Double meanPaid, Double minPaid, Double maxPaid,
+                            Map<String, Double> pricePaidQuantiles, List<DailyCount> daily) {
+            this.bookings = bookings;
+            this.roomNights = roomNights;
+            this.meanPaid = meanPaid;
+            this.minPaid = minPaid;
+            this.maxPaid = maxPaid;
+            this.pricePaidQuantiles = pricePaidQuantiles;
+            this.daily = daily;
+        }
+
+        public long getBookings() { return bookings; }
+        public long getRoomNights() { return roomNights; }
+        public Double getMeanPaid() { return meanPaid; }
+        public Double getMinPaid() { return minPaid; }
+        public Double getMaxPaid() { return maxPaid; }
+        public Map<String, Double> getPricePaidQuantiles() { return pricePaidQuantiles; }
+        public List<DailyCount> getDaily() { return daily; }
+    }
+
+    public static class DailyCount {
+        private final LocalDate date;
+        private final long bookings;
+        private final long roomNights;
+        private final Double revenue;
+
+        public DailyCount(LocalDate date, long bookings, long roomNights, Double revenue) {
+            this.date = date;
+            this.bookings = bookings;
+            this.roomNights = roomNights;
+            this.revenue = revenue;
+        }
+
+        public LocalDate getDate() { return date; }
+        public long getBookings() { return bookings; }
+        public long getRoomNights() { return roomNights; }
+        public Double getRevenue() { return revenue; }
     }
 }
@@ -0,0 +1,64 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.PriceConfirmation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses a backlog of pending confirmations to the latest one per (productId, currency). The hotel system
+ * only keeps the last price for a product, so pushing the earlier rows costs calls without changing the outcome;
+ * they are returned as {@code superseded} so the caller can mark them synced alongside the pushed ones.
+ *
+ * "Latest" is the highest {@code confirmedAt}, ties broken by id. Rows the outbox claim already flagged as
+ * {@link PriceConfirmation#isSuperseded() superseded} (a newer row exists outside this batch) are never
+ * latest. Ordering across batches and instances is kept by the claim itself, which does not hand out a key
+ * while another row of it is leased.
+ */
+public final class ConfirmationCoalescer {
+    private static final Comparator<PriceConfirmation> RECENCY = Comparator
+            .comparing(PriceConfirmation::getConfirmedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(PriceConfirmation::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+    private ConfirmationCoalescer() {
+    }
+
+    public static Result coalesce(List<PriceConfirmation> pending) {
+        Map<String, PriceConfirmation> latest = new LinkedHashMap<>();
+        List<Long> superseded = new ArrayList<>();
+        for (PriceConfirmation pc : pending) {
+            if (pc.isSuperseded()) {
+                superseded.add(pc.getId());
+                continue;
+            }
+            String key = pc.getProductId() + "|" + pc.getCurrency();
+            PriceConfirmation current = latest.get(key);
+            if (current == null) {
+                latest.put(key, pc);
+            } else if (RECENCY.compare(pc, current) > 0) {
+                superseded.add(current.getId());
+                latest.put(key, pc);
+            } else {
+                superseded.add(pc.getId());
+            }
+        }
+        return new Result(new ArrayList<>(latest.values()), superseded);
+    }
+
+    public static final class Result {
+        private final List<PriceConfirmation> latest;
+        private final List<Long> superseded;
+
+        Result(List<PriceConfirmation> latest, List<Long> superseded) {
+            this.latest = latest;
+            this.superseded = superseded;
+        }
+
+        public List<PriceConfirmation> getLatest() { return latest; }
+        public List<Long> getSuperseded() { return superseded; }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of accepted confirmations, one JSON line per record, split into numbered segment files
+ * ({@code segment-<seq>.log}). A batch of appends is made durable with a single {@code force}.
+ *
+ * Each segment tracks how many of its records are not yet in MySQL; a rolled-over segment is deleted once
+ * that count reaches zero. Segments left on disk after a crash are re-read by {@link #recover()}.
+ * Not thread-safe on its own: {@link ConfirmationWriteBehind} appends from one thread and marks flushed
+ * records from another, so every method is synchronized.
+ */
+class ConfirmationLog {
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationLog.class);
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final int segmentMaxRecords;
+
+    // segment seq -> records not yet flushed; segments other than the current one are closed
+    private final Map<Long, Integer> pending = new HashMap<>();
+    private long currentSeq;
+    private FileChannel current;
+    private int currentRecords;
+
+    ConfirmationLog(Path dir, ObjectMapper objectMapper, int segmentMaxRecords) {
+        this.dir = dir;
+        this.objectMapper = objectMapper;
+        this.segmentMaxRecords = Math.max(1, segmentMaxRecords);
+    }
+
+    /**
+     * Reads every segment left by a previous run and opens a fresh segment after them.
+     * Lines that cannot be parsed (a write torn by the crash) are skipped: their append was never acknowledged.
+     */
+    synchronized List<Entry> recover() throws IOException {
+        Files.createDirectories(dir);
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Long seq = seqOf(p);
+                if (seq != null) segments.put(seq, p);
+            });
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            int count = 0;
+            for (String line : Files.readAllLines(segment.getValue(), StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    entries.add(new Entry(segment.getKey(), objectMapper.readValue(line, PriceConfirmation.class)));
+                    count++;
+                } catch (IOException ex) {
+                    log.warn("Skipping unreadable record in {}: {}", segment.getValue().getFileName(), ex.getMessage());
+                }
+            }
+            if (count == 0) {
+                Files.deleteIfExists(segment.getValue());
+            } else {
+                pending.put(segment.getKey(), count);
+            }
+        }
+        currentSeq = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        open();
+        return entries;
+    }
+
+    /**
+     * Appends the records to the current segment and forces them to disk.
+     *
+     * @return the segment the records were written to, to be passed back to {@link #markFlushed}
+     */
+    synchronized long appendAll(List<PriceConfirmation> confirmations) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (PriceConfirmation pc : confirmations) {
+            sb.append(objectMapper.writeValueAsString(pc)).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) current.write(buf);
+        current.force(false);
+
+        long seq = currentSeq;
+        pending.merge(seq, confirmations.size(), Integer::sum);
+        currentRecords += confirmations.size();
+        if (currentRecords >= segmentMaxRecords) {
+            current.close();
+            currentSeq++;
+            open();
+        }
+        return seq;
+    }
+
+    synchronized void markFlushed(long seq, int count) throws IOException {
+        Integer left = pending.merge(seq, -count, Integer::sum);
+        if (left != null && left <= 0 && seq != currentSeq) {
+            pending.remove(seq);
+            Files.deleteIfExists(segmentPath(seq));
+        }
+    }
+
+    // Closes the current segment; it is removed when everything in it has been flushed
+    synchronized void close() throws IOException {
+        if (current == null) return;
+        current.close();
+        current = null;
+        if (pending.getOrDefault(currentSeq, 0) <= 0) {
+            pending.remove(currentSeq);
+            Files.deleteIfExists(segmentPath(currentSeq));
+        }
+    }
+
+    private void open() throws IOException {
+        current = FileChannel.open(segmentPath(currentSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentRecords = 0;
+    }
+
+    private Path segmentPath(long seq) {
+        return dir.resolve(PREFIX + seq + SUFFIX);
+    }
+
+    private static Long seqOf(Path p) {
+        String name = p.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return null;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    static final class Entry {
+        final long segment;
+        final PriceConfirmation confirmation;
+
+        Entry(long segment, PriceConfirmation confirmation) {
+            this.segment = segment;
+            this.confirmation = confirmation;
+        }
+    }
+}
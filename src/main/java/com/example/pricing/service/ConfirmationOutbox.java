@@ -0,0 +1,217 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.example.pricing.model.SyncDeadLetter;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.SyncDeadLetterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@code price_confirmations} used as the sync outbox. Each instance claims small batches of due rows
+ * under a lease ({@code hotel.sync.lease-seconds}) and marks them synced after the push; both steps are
+ * their own short transaction, so no transaction or connection is held during HTTP calls.
+ *
+ * A failed push is written back with its attempt count and error and becomes due again after an exponential
+ * backoff ({@code hotel.sync.retry.initial-backoff-seconds}, doubling up to {@code max-backoff-seconds}).
+ * Rows the API rejected permanently, or that reach {@code hotel.sync.retry.max-attempts}, are parked in
+ * {@code sync_dead_letters} and skipped by claims until {@link #replay replayed}.
+ */
+@Component
+public class ConfirmationOutbox {
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationOutbox.class);
+    private static final int MARK_SYNCED_CHUNK = 1000;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PriceConfirmationRepository repo;
+    private final SyncDeadLetterRepository deadLetterRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int claimSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long initialBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final String owner;
+
+    public ConfirmationOutbox(PriceConfirmationRepository repo,
+                              SyncDeadLetterRepository deadLetterRepo,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${hotel.sync.claim-size:200}") int claimSize,
+                              @Value("${hotel.sync.lease-seconds:300}") long leaseSeconds,
+                              @Value("${hotel.sync.retry.max-attempts:8}") int maxAttempts,
+                              @Value("${hotel.sync.retry.initial-backoff-seconds:60}") long initialBackoffSeconds,
+                              @Value("${hotel.sync.retry.max-backoff-seconds:21600}") long maxBackoffSeconds) {
+        this.repo = repo;
+        this.deadLetterRepo = deadLetterRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.claimSize = Math.max(1, claimSize);
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffSeconds = Math.max(1, initialBackoffSeconds);
+        this.maxBackoffSeconds = Math.max(this.initialBackoffSeconds, maxBackoffSeconds);
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * @return the next batch of due rows, leased to this instance; empty when nothing is left to claim
+     */
+    public List<PriceConfirmation> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PriceConfirmation> claimed = transactionTemplate.execute(
+                status -> repo.claimPending(owner, claimSize, now, now.plusSeconds(leaseSeconds)));
+        return claimed == null ? List.of() : claimed;
+    }
+
+    public void markSynced(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        for (int i = 0; i < list.size(); i += MARK_SYNCED_CHUNK) {
+            List<Long> chunk = list.subList(i, Math.min(list.size(), i + MARK_SYNCED_CHUNK));
+            transactionTemplate.executeWithoutResult(status -> repo.markSynced(chunk));
+        }
+    }
+
+    /**
+     * Schedules the next attempt for each failed push, or dead-letters it, in one short transaction.
+     * Skipped pushes (circuit open) never reached the API: they are released as due without using up an attempt.
+     */
+    public void recordFailures(Map<PriceConfirmation, PushOutcome> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PriceConfirmation> updates = new ArrayList<>(failures.size());
+        List<SyncDeadLetter> deadLetters = new ArrayList<>();
+        for (Map.Entry<PriceConfirmation, PushOutcome> failure : failures.entrySet()) {
+            PriceConfirmation pc = failure.getKey();
+            PushOutcome outcome = failure.getValue();
+            int attempts = pc.getAttempts() == null ? 0 : pc.getAttempts();
+            PriceConfirmation update = new PriceConfirmation();
+            update.setId(pc.getId());
+            update.setLastError(truncate(outcome.getError()));
+            update.setDeadLettered(false);
+            if (outcome.getStatus() == PushOutcome.Status.SKIPPED) {
+                update.setAttempts(attempts);
+            } else {
+                update.setAttempts(attempts + 1);
+                if (outcome.getStatus() == PushOutcome.Status.REJECTED || attempts + 1 >= maxAttempts) {
+                    update.setDeadLettered(true);
+                    deadLetters.add(deadLetter(pc, update, now));
+                } else {
+                    update.setNextAttemptAt(now.plusSeconds(backoffSeconds(attempts + 1)));
+                }
+            }
+            updates.add(update);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            repo.recordFailures(updates);
+            if (!deadLetters.isEmpty()) deadLetterRepo.saveAll(deadLetters);
+        });
+        if (!deadLetters.isEmpty()) {
+            log.warn("Dead-lettered {} confirmations, e.g. id={}: {}", deadLetters.size(),
+                    deadLetters.get(0).getConfirmationId(), deadLetters.get(0).getLastError());
+        }
+    }
+
+    /**
+     * @return open dead letters, newest first
+     */
+    public List<SyncDeadLetter> deadLetters(int limit) {
+        return deadLetterRepo.findByReplayedAtIsNullOrderByIdDesc(PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Puts dead-lettered confirmations back into the outbox, due now with a fresh attempt budget.
+     * A letter whose confirmation has since been superseded by a newer one of the same product/currency
+     * is closed and its row marked synced instead: pushing it would overwrite the newer price.
+     *
+     * @param deadLetterIds dead letters to replay; all open ones when null or empty
+     */
+    public Replay replay(Collection<Long> deadLetterIds) {
+        Replay replayed = transactionTemplate.execute(status -> {
+            List<SyncDeadLetter> letters = deadLetterIds == null || deadLetterIds.isEmpty()
+                    ? deadLetterRepo.findByReplayedAtIsNull()
+                    : deadLetterRepo.findByIdInAndReplayedAtIsNull(deadLetterIds);
+            if (letters.isEmpty()) return new Replay(0, 0);
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> confirmationIds = new ArrayList<>(letters.size());
+            for (SyncDeadLetter letter : letters) {
+                confirmationIds.add(letter.getConfirmationId());
+                letter.setReplayedAt(now);
+            }
+            deadLetterRepo.saveAll(letters);
+            Set<Long> superseded = new HashSet<>(repo.findSupersededIds(confirmationIds));
+            if (!superseded.isEmpty()) {
+                repo.markSynced(superseded);
+                confirmationIds.removeAll(superseded);
+            }
+            int requeued = confirmationIds.isEmpty() ? 0 : repo.requeue(confirmationIds);
+            return new Replay(requeued, superseded.size());
+        });
+        if (replayed == null) return new Replay(0, 0);
+        if (replayed.getSuperseded() > 0) {
+            log.info("Replay skipped {} superseded dead letters", replayed.getSuperseded());
+        }
+        return replayed;
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    // initial * 2^(attempts - 1), capped
+    private long backoffSeconds(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        long backoff = initialBackoffSeconds << shift;
+        return backoff <= 0 || backoff > maxBackoffSeconds ? maxBackoffSeconds : backoff;
+    }
+
+    private static SyncDeadLetter deadLetter(PriceConfirmation pc, PriceConfirmation update, LocalDateTime now) {
+        SyncDeadLetter letter = new SyncDeadLetter();
+        letter.setConfirmationId(pc.getId());
+        letter.setProductId(pc.getProductId());
+        letter.setCurrency(pc.getCurrency());
+        letter.setAttempts(update.getAttempts());
+        letter.setLastError(update.getLastError());
+        letter.setDeadLetteredAt(now);
+        return letter;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    public static final class Replay {
+        private final int requeued;
+        private final int superseded;
+
+        Replay(int requeued, int superseded) {
+            this.requeued = requeued;
+            this.superseded = superseded;
+        }
+
+        public int getRequeued() { return requeued; }
+        public int getSuperseded() { return superseded; }
+    }
+
+    private static String hostName() {
+        try {
+            String name = InetAddress.getLocalHost().getHostName();
+            return name.length() > 40 ? name.substring(0, 40) : name;
+        } catch (Exception ex) {
+            return "unknown";
+        }
+    }
+}
@@ -1,71 +1,249 @@
 package com.example.pricing.service;
 
 import com.example.pricing.model.PriceConfirmation;
-import com.example.pricing.model.Product;
-import com.example.pricing.model.Building;
-import com.example.pricing.model.User;
 import com.example.pricing.repository.PriceConfirmationRepository;
 import com.example.pricing.repository.PriceRecommendationRepository;
-import com.example.pricing.repository.ProductRepository;
-import com.example.pricing.repository.BuildingRepository;
-import com.example.pricing.repository.UserRepository;
 import com.example.pricing.model.PriceRecommendation;
+import com.example.pricing.service.AuthorizationCache.BuildingRef;
+import com.example.pricing.service.AuthorizationCache.Grant;
+import com.example.pricing.service.AuthorizationCache.ProductRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class ConfirmationService {
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationService.class);
+    // Same-product confirmations are serialized in-process instead of racing on the recommendation read and insert
+    private static final int PRODUCT_LOCK_STRIPES = 1024;
+
     private final PriceConfirmationRepository repo;
     private final PriceRecommendationRepository recRepo;
-    private final ProductRepository productRepo;
-    private final BuildingRepository buildingRepo;
-    private final UserRepository userRepo;
+    private final AuthorizationCache authorizationCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxLockedProducts;
+    private final StripedLocks productLocks = new StripedLocks(PRODUCT_LOCK_STRIPES);
+
+    // Present only when pricing.confirmations.write-behind.enabled=true
+    @Autowired(required = false)
+    private ConfirmationWriteBehind writeBehind;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
 
     public ConfirmationService(PriceConfirmationRepository repo, 
                               PriceRecommendationRepository recRepo,
-                              ProductRepository productRepo,
-                              BuildingRepository buildingRepo,
-                              UserRepository userRepo) {
+                              AuthorizationCache authorizationCache,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${pricing.confirmations.max-locked-products:64}") int maxLockedProducts) {
         this.repo = repo;
         this.recRepo = recRepo;
-        this.productRepo = productRepo;
-        this.buildingRepo = buildingRepo;
-        this.userRepo = userRepo;
+        this.authorizationCache = authorizationCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxLockedProducts = Math.max(1, maxLockedProducts);
     }
 
-    @Transactional
+    // For unit testing: allow explicit injection of the write-behind log (can be null)
+    public void setWriteBehind(ConfirmationWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    // For unit testing: allow explicit injection of the event publisher (can be null)
+    public void setEvents(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    /**
+     * Validates and records one confirmation in its own transaction. Confirmations of the same product are
+     * serialized on a striped lock that is taken before the transaction starts and released after it
+     * completes, so callers waiting on a busy product do not hold a pooled connection; other products
+     * proceed in parallel.
+     */
     public PriceConfirmation confirm(String productId, String action, BigDecimal value, String currency, String userId) {
+        return productLocks.withLocks(singletonOrEmpty(productId),
+                () -> transactionTemplate.execute(status -> doConfirm(productId, action, value, currency, userId)));
+    }
+
+    private PriceConfirmation doConfirm(String productId, String action, BigDecimal value, String currency, String userId) {
         // Enforce regional restrictions for regional managers
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+        authorize(Access.of(authorizationCache), productId, userId);
         
-        if ("REGIONAL_MANAGER".equalsIgnoreCase(user.getRole())) {
-            Product product = productRepo.findById(productId)
+        // Enforce override eligibility: within ±30% of last recommendation, if present
+        if (needsOverrideCheck(action, value)) {
+            checkOverride(value, findLastRecommendation(productId));
+        }
+        PriceConfirmation pc = newConfirmation(productId, action, value, currency, userId);
+        if (writeBehind != null) {
+            // Durable in the local log once this returns; the id is assigned when the row is flushed
+            writeBehind.submitAll(List.of(pc));
+            return pc;
+        }
+        PriceConfirmation saved = repo.save(pc);
+        recorded(1);
+        return saved;
+    }
+
+    /**
+     * Set-based variant of {@link #confirm} for many items: users, products, buildings and latest
+     * recommendations missing from the authorization cache are prefetched with one IN query each per group (below),
+     * every item is validated in memory with the same rules, and all accepted items are written with
+     * one batched insert (or handed to the write-behind log when enabled). Results are returned in request
+     * order; a rejected item does not affect the others.
+     *
+     * A large batch is processed as consecutive groups touching at most
+     * {@code pricing.confirmations.max-locked-products} products each, one transaction per group. The
+     * locks of a group are taken up front, in stripe order, before its transaction starts and held until
+     * it completes; a batch therefore never holds more than that many stripes against single confirmations.
+     * A group whose transaction fails (e.g. the insert) is rolled back and only its items are reported failed;
+     * groups committed before it stay committed, so their items must not be reported (and retried) as failed.
+     */
+    public List<ConfirmationResult> confirmBatch(List<ConfirmationRequest> requests) {
+        List<ConfirmationResult> results = new ArrayList<>(requests.size());
+        for (List<ConfirmationRequest> group : lockGroups(requests)) {
+            try {
+                List<ConfirmationResult> groupResults = productLocks.withLocks(distinct(group, ConfirmationRequest::getProductId),
+                        () -> transactionTemplate.execute(status -> doConfirmBatch(group)));
+                if (groupResults != null) results.addAll(groupResults);
+            } catch (RuntimeException ex) {
+                String cause = cause(ex);
+                log.warn("Confirmation group of {} items not persisted: {}", group.size(), cause);
+                for (ConfirmationRequest req : group) {
+                    results.add(ConfirmationResult.failed(req.getProductId(), "Not persisted: " + cause));
+                }
+            }
+        }
+        return results;
+    }
+
+    // Consecutive slices of the batch with at most maxLockedProducts distinct products each
+    private List<List<ConfirmationRequest>> lockGroups(List<ConfirmationRequest> requests) {
+        List<List<ConfirmationRequest>> groups = new ArrayList<>();
+        List<ConfirmationRequest> group = new ArrayList<>();
+        Set<String> products = new HashSet<>();
+        for (ConfirmationRequest req : requests) {
+            String productId = req.getProductId();
+            if (productId != null && !products.contains(productId) && products.size() >= maxLockedProducts) {
+                groups.add(group);
+                group = new ArrayList<>();
+                products = new HashSet<>();
+            }
+            group.add(req);
+            if (productId != null) products.add(productId);
+        }
+        if (!group.isEmpty()) groups.add(group);
+        return groups;
+    }
+
+    private List<ConfirmationResult> doConfirmBatch(List<ConfirmationRequest> requests) {
+        // Unknown users stay unknown for the whole batch instead of costing a lookup per item
+        Map<String, Grant> grants = authorizationCache.preloadUsers(distinct(requests, ConfirmationRequest::getUserId));
+        Access access = new Access(id -> Optional.ofNullable(id).map(grants::get),
+                authorizationCache::product, authorizationCache::building);
+        authorizationCache.preloadProducts(regionalProductIds(requests, access));
+
+        Set<String> overrideProductIds = new HashSet<>();
+        for (ConfirmationRequest req : requests) {
+            if (req.getProductId() != null && needsOverrideCheck(req.getAction(), req.getPrice())) {
+                overrideProductIds.add(req.getProductId());
+            }
+        }
+        Map<String, BigDecimal> lastRecommendations = new HashMap<>();
+        if (!overrideProductIds.isEmpty()) {
+            for (PriceRecommendation r : recRepo.findLatestByProductIdIn(overrideProductIds)) {
+                lastRecommendations.putIfAbsent(r.getProductId(), r.getRecommendedValue());
+            }
+        }
+
+        List<ConfirmationResult> results = new ArrayList<>(requests.size());
+        List<PriceConfirmation> accepted = new ArrayList<>();
+        for (ConfirmationRequest req : requests) {
+            try {
+                authorize(access, req.getProductId(), req.getUserId());
+                if (needsOverrideCheck(req.getAction(), req.getPrice())) {
+                    checkOverride(req.getPrice(), lastRecommendations.get(req.getProductId()));
+                }
+                accepted.add(newConfirmation(req.getProductId(), req.getAction(), req.getPrice(), req.getCurrency(), req.getUserId()));
+                results.add(ConfirmationResult.success(req.getProductId()));
+            } catch (RuntimeException ex) {
+                results.add(ConfirmationResult.failed(req.getProductId(), ex.getMessage()));
+            }
+        }
+        if (writeBehind != null) {
+            writeBehind.submitAll(accepted);
+        } else {
+            repo.insertAll(accepted);
+            recorded(accepted.size());
+        }
+        return results;
+    }
+
+    private static void authorize(Access access, String productId, String userId) {
+        Grant grant = access.grants.apply(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+        if (isRegionalManager(grant)) {
+            ProductRef product = access.products.apply(productId)
                     .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-            Building building = buildingRepo.findById(product.getBuildingId())
+            BuildingRef building = access.buildings.apply(product.getBuildingId())
                     .orElseThrow(() -> new IllegalArgumentException("Building not found: " + product.getBuildingId()));
-            
-            if (user.getRegion() != null && building.getRegion() != null 
-                    && !user.getRegion().equalsIgnoreCase(building.getRegion())) {
-                throw new SecurityException("Regional manager can only confirm prices in their assigned region. User region: " 
-                        + user.getRegion() + ", Building region: " + building.getRegion());
+            checkRegion(grant, building);
+        }
+    }
+
+    private static Set<String> regionalProductIds(List<ConfirmationRequest> requests, Access access) {
+        Set<String> productIds = new HashSet<>();
+        for (ConfirmationRequest req : requests) {
+            if (req.getProductId() == null) continue;
+            if (access.grants.apply(req.getUserId()).map(ConfirmationService::isRegionalManager).orElse(false)) {
+                productIds.add(req.getProductId());
             }
         }
-        
-        // Enforce override eligibility: within ±30% of last recommendation, if present
-        if ("OVERRIDE".equalsIgnoreCase(action) && value != null) {
-            BigDecimal last = findLastRecommendation(productId);
-            if (last != null) {
-                BigDecimal min = last.multiply(BigDecimal.valueOf(0.7));
-                BigDecimal max = last.multiply(BigDecimal.valueOf(1.3));
-                if (value.compareTo(min) < 0 || value.compareTo(max) > 0) {
-                    throw new IllegalArgumentException("Override out of allowed bounds (±30% of recommended)");
-                }
+        return productIds;
+    }
+
+    private static boolean isRegionalManager(Grant grant) {
+        return "REGIONAL_MANAGER".equalsIgnoreCase(grant.getRole());
+    }
+
+    private static void checkRegion(Grant user, BuildingRef building) {
+        if (user.getRegion() != null && building.getRegion() != null 
+                && !user.getRegion().equalsIgnoreCase(building.getRegion())) {
+            throw new SecurityException("Regional manager can only confirm prices in their assigned region. User region: " 
+                    + user.getRegion() + ", Building region: " + building.getRegion());
+        }
+    }
+
+    private static boolean needsOverrideCheck(String action, BigDecimal value) {
+        return "OVERRIDE".equalsIgnoreCase(action) && value != null;
+    }
+
+    private static void checkOverride(BigDecimal value, BigDecimal last) {
+        if (last != null) {
+            BigDecimal min = last.multiply(BigDecimal.valueOf(0.7));
+            BigDecimal max = last.multiply(BigDecimal.valueOf(1.3));
+            if (value.compareTo(min) < 0 || value.compareTo(max) > 0) {
+                throw new IllegalArgumentException("Override out of allowed bounds (±30% of recommended)");
             }
         }
+    }
+
+    private static PriceConfirmation newConfirmation(String productId, String action, BigDecimal value, String currency, String userId) {
         PriceConfirmation pc = new PriceConfirmation();
         pc.setProductId(productId);
         pc.setAction(action);
@@ -74,15 +252,120 @@ public class ConfirmationService {
         pc.setUserId(userId);
         pc.setConfirmedAt(LocalDateTime.now());
         pc.setSynced(false);
-        return repo.save(pc);
+        return pc;
     }
 
     private BigDecimal findLastRecommendation(String productId) {
-        return recRepo.findAll().stream()
-                .filter(r -> productId.equals(r.getProductId()))
-                .sorted(java.util.Comparator.comparing(PriceRecommendation::getRecommendedAt).reversed())
+        return recRepo.findFirstByProductIdOrderByRecommendedAtDesc(productId)
                 .map(PriceRecommendation::getRecommendedValue)
-                .findFirst()
                 .orElse(null);
     }
+
+    // Listeners run after this transaction commits (see SyncPipeline)
+    private void recorded(int count) {
+        if (events != null && count > 0) events.publishEvent(new ConfirmationsRecordedEvent(count));
+    }
+
+    // Data access exceptions keep the driver's message on the nested cause
+    private static String cause(RuntimeException ex) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(ex);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static List<String> singletonOrEmpty(String productId) {
+        return productId == null ? List.of() : List.of(productId);
+    }
+
+    private static Set<String> distinct(List<ConfirmationRequest> requests, Function<ConfirmationRequest, String> field) {
+        Set<String> values = new HashSet<>();
+        for (ConfirmationRequest req : requests) {
+            String v = field.apply(req);
+            if (v != null) values.add(v);
+        }
+        return values;
+    }
+
+    // Where authorize() resolves users, products and buildings
+    private static final class Access {
+        final Function<String, Optional<Grant>> grants;
+        final Function<String, Optional<ProductRef>> products;
+        final Function<String, Optional<BuildingRef>> buildings;
+
+        Access(Function<String, Optional<Grant>> grants,
+               Function<String, Optional<ProductRef>> products,
+               Function<String, Optional<BuildingRef>> buildings) {
+            this.grants = grants;
+            this.products = products;
+            this.buildings = buildings;
+        }
+
+        static Access of(AuthorizationCache cache) {
+            return new Access(cache::grant, cache::product, cache::building);
+        }
+    }
+
+    public static class ConfirmationRequest {
+        private final String productId;
+        private final String action;
+        private final BigDecimal price;
+        private final String currency;
+        private final String userId;
+
+        public ConfirmationRequest(String productId, String action, BigDecimal price, String currency, String userId) {
+            this.productId = productId;
+            this.action = action;
+            this.price = price;
+            this.currency = currency;
+            this.userId = userId;
+        }
+
+        /**
+         * Builds a request from loosely typed fields (a JSON object, an NDJSON line or a CSV row); blank
+         * values count as absent.
+         *
+         * @throws NumberFormatException if {@code price} is present but not a number
+         */
+        public static ConfirmationRequest fromMap(Map<String, ?> fields) {
+            String price = text(fields.get("price"));
+            return new ConfirmationRequest(text(fields.get("productId")), text(fields.get("action")),
+                    price == null ? null : new BigDecimal(price), text(fields.get("currency")), text(fields.get("userId")));
+        }
+
+        private static String text(Object value) {
+            if (value == null) return null;
+            String s = value.toString().trim();
+            return s.isEmpty() ? null : s;
+        }
+
+        public String getProductId() { return productId; }
+        public String getAction() { return action; }
+        public BigDecimal getPrice() { return price; }
+        public String getCurrency() { return currency; }
+        public String getUserId() { return userId; }
+    }
+
+    public static class ConfirmationResult {
+        private final String productId;
+        private final String status;
+        private final String error;
+
+        public ConfirmationResult(String productId, String status, String error) {
+            this.productId = productId;
+            this.status = status;
+            this.error = error;
+        }
+
+        public static ConfirmationResult success(String productId) {
+            return new ConfirmationResult(productId, "success", null);
+        }
+
+        public static ConfirmationResult failed(String productId, String error) {
+            return new ConfirmationResult(productId, "failed", error);
+        }
+
+        public String getProductId() { return productId; }
+        public String getStatus() { return status; }
+        public String getError() { return error; }
+        public boolean isSuccess() { return "success".equals(status); }
+    }
 }
@@ -0,0 +1,185 @@
+package com.example.pricing.service;
+
+import com.example.pricing.service.ConfirmationService.ConfirmationRequest;
+import com.example.pricing.service.ConfirmationService.ConfirmationResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk confirmation upload that never holds the whole file: rows are read one line at a time, collected
+ * into chunks of {@code pricing.confirmations.upload.chunk-size}, validated and persisted through
+ * {@link ConfirmationService#confirmBatch} (one transaction per chunk), and the per-row results of each
+ * chunk are written and flushed as NDJSON before the next chunk is read.
+ *
+ * CSV needs a header row naming the columns ({@code productId,action,price,currency,userId}); quoted
+ * values may contain commas but not line breaks. NDJSON is one JSON object per line.
+ * Every result line carries the 1-based {@code line} of the input it refers to. When a whole chunk cannot
+ * be persisted (e.g. the database is unavailable), each of its rows gets a {@code failed} line with the
+ * cause and the upload goes on with the next chunk, so every input row is accounted for.
+ */
+@Service
+public class ConfirmationUploadService {
+    public enum Format { CSV, NDJSON }
+
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationUploadService.class);
+
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {};
+
+    private final ConfirmationService confirmationService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public ConfirmationUploadService(ConfirmationService confirmationService,
+                                     ObjectMapper objectMapper,
+                                     @Value("${pricing.confirmations.upload.chunk-size:500}") int chunkSize) {
+        this.confirmationService = confirmationService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * @return counts of {@code rows}, {@code succeeded} and {@code failed}
+     */
+    public Map<String, Integer> upload(InputStream in, Format format, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        DelimitedLineTokenizer tokenizer = null;
+        int lineNo = 0;
+        if (format == Format.CSV) {
+            String header = reader.readLine();
+            lineNo++;
+            if (header == null) return summary(0, 0);
+            tokenizer = csvTokenizer(header);
+        }
+
+        Chunk chunk = new Chunk();
+        int rows = 0;
+        int succeeded = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            rows++;
+            Map<String, ?> fields = null;
+            try {
+                fields = format == Format.CSV ? csvFields(tokenizer, line) : objectMapper.readValue(line, FIELDS);
+                chunk.add(lineNo, ConfirmationRequest.fromMap(fields));
+            } catch (Exception ex) {
+                Object productId = fields == null ? null : fields.get("productId");
+                chunk.reject(lineNo, productId == null ? null : productId.toString(), ex.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                succeeded += flush(chunk, out);
+                chunk = new Chunk();
+            }
+        }
+        if (chunk.size() > 0) succeeded += flush(chunk, out);
+        return summary(rows, succeeded);
+    }
+
+    // Persists the parsed rows of one chunk and writes all its results in input order
+    private int flush(Chunk chunk, OutputStream out) throws IOException {
+        Iterator<ConfirmationResult> outcomes = List.<ConfirmationResult>of().iterator();
+        String chunkError = null;
+        if (!chunk.requests.isEmpty()) {
+            try {
+                outcomes = confirmationService.confirmBatch(chunk.requests).iterator();
+            } catch (RuntimeException ex) {
+                log.warn("Upload chunk of {} rows not persisted: {}", chunk.requests.size(), ex.getMessage());
+                chunkError = "Chunk not persisted: " + ex.getMessage();
+            }
+        }
+        int succeeded = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Map<String, Object> result = chunk.results.get(i);
+            if (result.get("status") == null && chunkError != null) {
+                result.put("status", "failed");
+                result.put("error", chunkError);
+            } else if (result.get("status") == null) {
+                ConfirmationResult outcome = outcomes.next();
+                result.put("status", outcome.getStatus());
+                if (outcome.isSuccess()) {
+                    succeeded++;
+                } else {
+                    result.put("error", outcome.getError());
+                }
+            }
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        return succeeded;
+    }
+
+    private static DelimitedLineTokenizer csvTokenizer(String header) {
+        DelimitedLineTokenizer headerTokenizer = new DelimitedLineTokenizer();
+        headerTokenizer.setStrict(false);
+        String[] names = Arrays.stream(headerTokenizer.tokenize(header).getValues())
+                .map(String::trim)
+                .toArray(String[]::new);
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+        tokenizer.setNames(names);
+        return tokenizer;
+    }
+
+    private static Map<String, String> csvFields(DelimitedLineTokenizer tokenizer, String line) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        tokenizer.tokenize(line).getProperties().forEach((k, v) -> fields.put((String) k, (String) v));
+        return fields;
+    }
+
+    private static Map<String, Integer> summary(int rows, int succeeded) {
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        summary.put("rows", rows);
+        summary.put("succeeded", succeeded);
+        summary.put("failed", rows - succeeded);
+        return summary;
+    }
+
+    // Result slots for one chunk; rows that failed to parse already have a status
+    private static final class Chunk {
+        final List<ConfirmationRequest> requests = new ArrayList<>();
+        final List<Map<String, Object>> results = new ArrayList<>();
+
+        void add(int line, ConfirmationRequest request) {
+            requests.add(request);
+            results.add(result(line, request.getProductId()));
+        }
+
+        void reject(int line, String productId, String error) {
+            Map<String, Object> result = result(line, productId);
+            result.put("status", "failed");
+            result.put("error", error);
+            results.add(result);
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        private static Map<String, Object> result(int line, String productId) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("line", line);
+            result.put("productId", productId);
+            result.put("status", null);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.service.ConfirmationLog.Entry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind path for price confirmations, enabled with {@code pricing.confirmations.write-behind.enabled=true}.
+ *
+ * {@link #submitAll} returns once the confirmations are in the local {@link ConfirmationLog}; concurrent
+ * callers share one fsync (group commit). A flusher thread then drains the log queue every
+ * {@code flush-interval-ms} and writes up to {@code max-batch} rows per transaction.
+ * Every record carries a {@code write_ref}, so entries recovered after a crash that had already been
+ * committed are skipped by MySQL.
+ *
+ * Metrics: {@code pricing.confirmations.writebehind.queue.depth} (appended but not yet committed) and
+ * {@code pricing.confirmations.writebehind.commit} (batch commit latency).
+ */
+@Component
+@ConditionalOnProperty(name = "pricing.confirmations.write-behind.enabled", havingValue = "true")
+public class ConfirmationWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(ConfirmationWriteBehind.class);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final PriceConfirmationRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfirmationLog confirmationLog;
+    private final long flushIntervalMs;
+    private final int maxBatch;
+
+    private final BlockingQueue<Append> appendQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Entry> flushQueue = new LinkedBlockingQueue<>();
+    private final AtomicInteger unflushed = new AtomicInteger();
+    private final Timer commitTimer;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher events;
+
+    private volatile boolean running;
+    private Thread appender;
+    private Thread flusher;
+
+    @Autowired
+    public ConfirmationWriteBehind(PriceConfirmationRepository repository,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${pricing.confirmations.write-behind.dir:./data/confirmation-log}") Path dir,
+                                   @Value("${pricing.confirmations.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+                                   @Value("${pricing.confirmations.write-behind.max-batch:500}") int maxBatch,
+                                   @Value("${pricing.confirmations.write-behind.segment-max-records:10000}") int segmentMaxRecords) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.confirmationLog = new ConfirmationLog(dir, objectMapper, segmentMaxRecords);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.commitTimer = Timer.builder("pricing.confirmations.writebehind.commit").register(meterRegistry);
+        Gauge.builder("pricing.confirmations.writebehind.queue.depth", unflushed, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Replays whatever a previous run left in the log before accepting new confirmations
+    @PostConstruct
+    public void start() throws IOException {
+        List<Entry> recovered = confirmationLog.recover();
+        if (!recovered.isEmpty()) {
+            log.info("Recovered {} unflushed confirmations from the write-behind log", recovered.size());
+            unflushed.addAndGet(recovered.size());
+            flushQueue.addAll(recovered);
+        }
+        running = true;
+        appender = daemon(this::appendLoop, "confirmation-log-appender");
+        flusher = daemon(this::flushLoop, "confirmation-log-flusher");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        // The appender is not interrupted: an interrupt during FileChannel I/O closes the channel
+        flusher.interrupt();
+        appender.join();
+        rejectPendingAppends();
+        flusher.join();
+        confirmationLog.close();
+        if (unflushed.get() > 0) {
+            log.warn("{} confirmations left in the write-behind log; they are replayed on next start", unflushed.get());
+        }
+    }
+
+    /**
+     * Makes the confirmations durable in the local log and queues them for MySQL. Assigns a {@code writeRef}
+     * to any confirmation that has none.
+     *
+     * @throws IllegalStateException if the log could not be written or write-behind is stopped
+     */
+    public void submitAll(List<PriceConfirmation> confirmations) {
+        if (confirmations.isEmpty()) return;
+        if (!running) throw new IllegalStateException("Write-behind is not running");
+        for (PriceConfirmation pc : confirmations) {
+            if (pc.getWriteRef() == null) pc.setWriteRef(UUID.randomUUID().toString());
+        }
+        Append append = new Append(confirmations);
+        appendQueue.add(append);
+        if (!running && appendQueue.remove(append)) {
+            throw new IllegalStateException("Write-behind is not running");
+        }
+        try {
+            append.done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind log", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Could not write confirmations to the write-behind log", ex.getCause());
+        }
+    }
+
+    // For unit testing: allow explicit injection of the event publisher (can be null)
+    public void setEvents(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    public int queueDepth() {
+        return unflushed.get();
+    }
+
+    // Everything queued while the previous fsync ran goes into the next one
+    private void appendLoop() {
+        while (running) {
+            List<Append> group = new ArrayList<>();
+            try {
+                Append first = appendQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            appendQueue.drainTo(group);
+            List<PriceConfirmation> records = new ArrayList<>();
+            for (Append a : group) records.addAll(a.confirmations);
+            try {
+                long segment = confirmationLog.appendAll(records);
+                unflushed.addAndGet(records.size());
+                for (PriceConfirmation pc : records) flushQueue.add(new Entry(segment, pc));
+                for (Append a : group) a.done.complete(null);
+            } catch (IOException | RuntimeException ex) {
+                log.error("Write-behind log append failed for {} confirmations", records.size(), ex);
+                for (Append a : group) a.done.completeExceptionally(ex);
+            }
+        }
+        rejectPendingAppends();
+    }
+
+    private void rejectPendingAppends() {
+        List<Append> rejected = new ArrayList<>();
+        appendQueue.drainTo(rejected);
+        for (Append a : rejected) a.done.completeExceptionally(new IllegalStateException("Write-behind stopped"));
+    }
+
+    private void flushLoop() {
+        while (running) {
+            List<Entry> batch = nextBatch();
+            if (!batch.isEmpty()) flushWithRetry(batch);
+        }
+        // One last attempt on shutdown; anything that fails stays in the log
+        List<Entry> rest = new ArrayList<>();
+        flushQueue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += maxBatch) {
+            List<Entry> batch = rest.subList(i, Math.min(rest.size(), i + maxBatch));
+            try {
+                flush(batch);
+            } catch (RuntimeException ex) {
+                log.warn("Final write-behind flush of {} confirmations failed: {}", batch.size(), ex.getMessage());
+            }
+        }
+    }
+
+    // Waits for the first entry, then collects more until the flush interval elapses or the batch is full
+    private List<Entry> nextBatch() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            Entry first = flushQueue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+            if (first == null) return batch;
+            batch.add(first);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+            while (batch.size() < maxBatch) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                Entry next = flushQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) break;
+                batch.add(next);
+                flushQueue.drainTo(batch, maxBatch - batch.size());
+            }
+        } catch (InterruptedException ex) {
+            // stop() interrupts; flush what was collected
+        }
+        return batch;
+    }
+
+    private void flushWithRetry(List<Entry> batch) {
+        long backoff = Math.max(100, flushIntervalMs);
+        while (true) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Write-behind flush of {} confirmations failed, retrying in {} ms: {}", batch.size(), backoff, ex.getMessage());
+            }
+            if (!running) {
+                // Leave the batch to the final flush (or the next start)
+                flushQueue.addAll(batch);
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                // stop() interrupts; loop once more so the batch is requeued
+            }
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        List<PriceConfirmation> rows = new ArrayList<>(batch.size());
+        for (Entry e : batch) rows.add(e.confirmation);
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> repository.insertIfAbsentAll(rows));
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        // Rows reach the table here, not in the request's transaction
+        if (events != null) events.publishEvent(new ConfirmationsRecordedEvent(rows.size()));
+
+        unflushed.addAndGet(-batch.size());
+        Map<Long, Integer> perSegment = new HashMap<>();
+        for (Entry e : batch) perSegment.merge(e.segment, 1, Integer::sum);
+        for (Map.Entry<Long, Integer> segment : perSegment.entrySet()) {
+            try {
+                confirmationLog.markFlushed(segment.getKey(), segment.getValue());
+            } catch (IOException ex) {
+                // The rows are committed; a leftover segment is replayed harmlessly: existing write_refs are skipped
+                log.warn("Could not remove flushed write-behind segment {}: {}", segment.getKey(), ex.getMessage());
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static final class Append {
+        final List<PriceConfirmation> confirmations;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Append(List<PriceConfirmation> confirmations) {
+            this.confirmations = confirmations;
+        }
+    }
+}
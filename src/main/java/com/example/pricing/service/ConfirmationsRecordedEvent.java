@@ -0,0 +1,16 @@
+package com.example.pricing.service;
+
+/**
+ * Published when confirmations are written to {@code price_confirmations}, so the sync pipeline can push
+ * them without waiting for the nightly run. Carries only a count: the outbox is the source of truth
+ * for which rows are pending.
+ */
+public class ConfirmationsRecordedEvent {
+    private final int count;
+
+    public ConfirmationsRecordedEvent(int count) {
+        this.count = count;
+    }
+
+    public int getCount() { return count; }
+}
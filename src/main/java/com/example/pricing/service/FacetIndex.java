@@ -0,0 +1,186 @@
+package com.example.pricing.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory faceting over product ordinals.
+ *
+ * Every product gets an ordinal; every facet value keeps a bitset (packed in {@code long[]}) of
+ * the ordinals having that value. A selection is OR within a facet and AND across facets.
+ * Conditional counts follow the usual multi-select rule: counts for a facet apply every selected
+ * facet except itself, so the user still sees how many products the other values would add.
+ * All counting is word-wise AND + popcount; no product rows are touched after the build.
+ */
+public final class FacetIndex {
+    public static final String BUILDINGS = "buildings";
+    public static final String REGIONS = "regions";
+    public static final String BUILDING_TYPES = "buildingTypes";
+    public static final String PRODUCT_GROUPS = "productGroups";
+    public static final String ROOM_TYPES = "roomTypes";
+    public static final String BEDS = "beds";
+    public static final List<String> FACETS = List.of(BUILDINGS, REGIONS, BUILDING_TYPES, PRODUCT_GROUPS, ROOM_TYPES, BEDS);
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final int size;
+    private final int words;
+    private final Map<String, Map<String, long[]>> bitsets;
+    private final int[] arrivalEpochDay;
+
+    private FacetIndex(int size, Map<String, Map<String, long[]>> bitsets, int[] arrivalEpochDay) {
+        this.size = size;
+        this.words = wordsFor(size);
+        this.bitsets = bitsets;
+        this.arrivalEpochDay = arrivalEpochDay;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param selection  selected values per facet name (see {@link #FACETS}); absent or empty = no constraint
+     * @param from       inclusive lower bound on arrival date, or null
+     * @param to         inclusive upper bound on arrival date, or null
+     * @return {@code matching} (products satisfying the whole selection) and per-facet value {@code counts}
+     */
+    public Map<String, Object> conditionalCounts(Map<String, ? extends Collection<String>> selection, LocalDate from, LocalDate to) {
+        Map<String, long[]> facetMasks = new HashMap<>();
+        for (String facet : FACETS) {
+            Collection<String> values = selection == null ? null : selection.get(facet);
+            if (values != null && !values.isEmpty()) facetMasks.put(facet, unionOf(facet, values));
+        }
+        long[] dateMask = (from == null && to == null) ? null : dateMask(from, to);
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            long[] base = dateMask == null ? all() : dateMask.clone();
+            for (Map.Entry<String, long[]> m : facetMasks.entrySet()) {
+                if (!m.getKey().equals(facet)) andInPlace(base, m.getValue());
+            }
+            Map<String, Long> valueCounts = new TreeMap<>();
+            for (Map.Entry<String, long[]> v : bitsets.get(facet).entrySet()) {
+                long n = andCardinality(base, v.getValue());
+                if (n > 0) valueCounts.put(v.getKey(), n);
+            }
+            counts.put(facet, valueCounts);
+        }
+
+        long[] matching = dateMask == null ? all() : dateMask.clone();
+        for (long[] mask : facetMasks.values()) andInPlace(matching, mask);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matching", cardinality(matching));
+        result.put("counts", counts);
+        return result;
+    }
+
+    private long[] unionOf(String facet, Collection<String> values) {
+        long[] mask = new long[words];
+        Map<String, long[]> byValue = bitsets.get(facet);
+        for (String value : values) {
+            long[] bits = byValue.get(value);
+            if (bits == null) continue;
+            for (int i = 0; i < words; i++) mask[i] |= bits[i];
+        }
+        return mask;
+    }
+
+    private long[] dateMask(LocalDate from, LocalDate to) {
+        long lo = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long hi = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        long[] mask = new long[words];
+        for (int ord = 0; ord < size; ord++) {
+            int day = arrivalEpochDay[ord];
+            if (day != NO_DATE && day >= lo && day <= hi) mask[ord >>> 6] |= 1L << ord;
+        }
+        return mask;
+    }
+
+    private long[] all() {
+        long[] mask = new long[words];
+        for (int i = 0; i < words; i++) mask[i] = -1L;
+        int tail = size & 63;
+        if (tail != 0) mask[words - 1] = (1L << tail) - 1;
+        return mask;
+    }
+
+    private static void andInPlace(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) target[i] &= other[i];
+    }
+
+    private static long andCardinality(long[] a, long[] b) {
+        long n = 0;
+        for (int i = 0; i < a.length; i++) n += Long.bitCount(a[i] & b[i]);
+        return n;
+    }
+
+    private static long cardinality(long[] a) {
+        long n = 0;
+        for (long w : a) n += Long.bitCount(w);
+        return n;
+    }
+
+    private static int wordsFor(int size) {
+        return Math.max(1, (size + 63) >>> 6);
+    }
+
+    public static final class Builder {
+        private final Map<String, Map<String, List<Integer>>> ordinals = new LinkedHashMap<>();
+        private final List<LocalDate> arrivalDates = new ArrayList<>();
+
+        private Builder() {
+            for (String facet : FACETS) ordinals.put(facet, new HashMap<>());
+        }
+
+        public Builder add(String buildingId, String region, String buildingType, String productGroup,
+                           String roomType, Integer beds, LocalDate arrivalDate) {
+            int ordinal = arrivalDates.size();
+            arrivalDates.add(arrivalDate);
+            put(BUILDINGS, buildingId, ordinal);
+            put(REGIONS, region, ordinal);
+            put(BUILDING_TYPES, buildingType, ordinal);
+            put(PRODUCT_GROUPS, productGroup, ordinal);
+            put(ROOM_TYPES, roomType, ordinal);
+            put(BEDS, beds == null ? null : beds.toString(), ordinal);
+            return this;
+        }
+
+        private void put(String facet, String value, int ordinal) {
+            if (value == null || value.isBlank()) return;
+            ordinals.get(facet).computeIfAbsent(value, v -> new ArrayList<>()).add(ordinal);
+        }
+
+        public FacetIndex build() {
+            int size = arrivalDates.size();
+            int words = wordsFor(size);
+            Map<String, Map<String, long[]>> bitsets = new HashMap<>();
+            for (Map.Entry<String, Map<String, List<Integer>>> facet : ordinals.entrySet()) {
+                Map<String, long[]> byValue = new HashMap<>();
+                for (Map.Entry<String, List<Integer>> value : facet.getValue().entrySet()) {
+                    long[] bits = new long[words];
+                    for (int ord : value.getValue()) bits[ord >>> 6] |= 1L << ord;
+                    byValue.put(value.getKey(), bits);
+                }
+                bitsets.put(facet.getKey(), byValue);
+            }
+            int[] days = new int[size];
+            for (int i = 0; i < size; i++) {
+                LocalDate d = arrivalDates.get(i);
+                days[i] = d == null ? NO_DATE : (int) d.toEpochDay();
+            }
+            return new FacetIndex(size, bitsets, days);
+        }
+    }
+}
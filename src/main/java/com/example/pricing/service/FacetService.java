@@ -0,0 +1,168 @@
+package com.example.pricing.service;
+
+import com.example.pricing.config.IngestCompletedEvent;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.ProductRepository.FacetIndexRow;
+import com.example.pricing.repository.ProductRepository.FacetRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filter facets for the dashboard (buildings, room types, beds, arrival range, building types,
+ * regions, product groups) with per-value product counts.
+ *
+ * Everything is folded from a single grouped query and cached until the next successful ingest.
+ * Latency is recorded in the {@code pricing.filters.facets} timer, tagged {@code cache=cold|warm}.
+ * Selection-aware counts come from a {@link FacetIndex}, built on first use and dropped on the same ingest events.
+ */
+@Service
+public class FacetService {
+    private final ProductRepository productRepository;
+    private final Timer coldTimer;
+    private final Timer warmTimer;
+
+    private volatile Map<String, Object> cached;
+    private volatile FacetIndex index;
+    // Bumped on invalidation so a computation that raced with an ingest is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public FacetService(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.coldTimer = Timer.builder("pricing.filters.facets").tag("cache", "cold").register(meterRegistry);
+        this.warmTimer = Timer.builder("pricing.filters.facets").tag("cache", "warm").register(meterRegistry);
+    }
+
+    public Map<String, Object> getFacets() {
+        long start = System.nanoTime();
+        Map<String, Object> facets = cached;
+        if (facets != null) {
+            warmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return facets;
+        }
+        synchronized (this) {
+            facets = cached;
+            if (facets == null) {
+                long gen = generation.get();
+                facets = compute(productRepository.findFacetRows());
+                if (gen == generation.get()) cached = facets;
+            }
+        }
+        coldTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return facets;
+    }
+
+    /**
+     * Conditional counts for a selection: {@code matching} products plus, per facet, the count each
+     * value would have with every other facet's selection applied.
+     */
+    public Map<String, Object> getSelectionCounts(Map<String, ? extends Collection<String>> selection, LocalDate arrivalFrom, LocalDate arrivalTo) {
+        return index().conditionalCounts(selection, arrivalFrom, arrivalTo);
+    }
+
+    FacetIndex index() {
+        FacetIndex idx = index;
+        if (idx != null) return idx;
+        synchronized (this) {
+            idx = index;
+            if (idx == null) {
+                long gen = generation.get();
+                idx = buildIndex(productRepository.findFacetIndexRows());
+                if (gen == generation.get()) index = idx;
+            }
+        }
+        return idx;
+    }
+
+    @EventListener
+    public void onIngestCompleted(IngestCompletedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+        index = null;
+    }
+
+    static FacetIndex buildIndex(List<FacetIndexRow> rows) {
+        FacetIndex.Builder builder = FacetIndex.builder();
+        for (FacetIndexRow row : rows) {
+            builder.add(row.getBuildingId(), row.getRegion(), row.getBuildingType(), row.getProductGroup(),
+                    row.getRoomType(), row.getNoOfBeds(), row.getArrivalDate());
+        }
+        return builder.build();
+    }
+
+    static Map<String, Object> compute(List<FacetRow> rows) {
+        Map<String, Map<String, Object>> buildings = new LinkedHashMap<>();
+        Map<String, Long> buildingCounts = new LinkedHashMap<>();
+        Map<String, Long> roomTypes = new TreeMap<>();
+        Map<Integer, Long> beds = new TreeMap<>();
+        Map<String, Long> buildingTypes = new TreeMap<>();
+        Map<String, Long> regions = new TreeMap<>();
+        Map<String, Long> productGroups = new TreeMap<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+
+        for (FacetRow row : rows) {
+            long n = row.getProducts() == null ? 0L : row.getProducts();
+            if (row.getBuildingId() != null) {
+                buildings.computeIfAbsent(row.getBuildingId(), id -> {
+                    Map<String, Object> b = new LinkedHashMap<>();
+                    b.put("id", id);
+                    b.put("name", row.getBuildingName());
+                    return b;
+                });
+                buildingCounts.merge(row.getBuildingId(), n, Long::sum);
+                countIfPresent(buildingTypes, row.getBuildingType(), n);
+                countIfPresent(regions, row.getRegion(), n);
+            }
+            if (n == 0) continue; // building without products
+            countIfPresent(roomTypes, row.getRoomType(), n);
+            if (row.getNoOfBeds() != null) beds.merge(row.getNoOfBeds(), n, Long::sum);
+            countIfPresent(productGroups, row.getProductGroup(), n);
+            if (row.getMinArrival() != null && (minDate == null || row.getMinArrival().isBefore(minDate))) minDate = row.getMinArrival();
+            if (row.getMaxArrival() != null && (maxDate == null || row.getMaxArrival().isAfter(maxDate))) maxDate = row.getMaxArrival();
+        }
+
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("min", minDate);
+        range.put("max", maxDate);
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("buildings", buildingCounts);
+        counts.put("roomTypes", roomTypes);
+        counts.put("beds", beds);
+        counts.put("buildingTypes", buildingTypes);
+        counts.put("regions", regions);
+        counts.put("productGroups", productGroups);
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("buildings", new ArrayList<>(buildings.values()));
+        facets.put("roomTypes", new ArrayList<>(roomTypes.keySet()));
+        facets.put("beds", new ArrayList<>(beds.keySet()));
+        facets.put("arrivalDateRange", range);
+        facets.put("buildingTypes", new ArrayList<>(buildingTypes.keySet()));
+        facets.put("regions", new ArrayList<>(regions.keySet()));
+        facets.put("productGroups", new ArrayList<>(productGroups.keySet()));
+        facets.put("counts", counts);
+        return Collections.unmodifiableMap(facets);
+    }
+
+    private static void countIfPresent(Map<String, Long> counts, String value, long n) {
+        if (value != null && !value.isBlank()) counts.merge(value, n, Long::sum);
+    }
+}
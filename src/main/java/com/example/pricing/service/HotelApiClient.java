@@ -0,0 +1,319 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.PriceConfirmation;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking client for the hotel system's price write-back API.
+ *
+ * Requests go through a dedicated pool of keep-alive connections ({@code hotel.api.max-connections}).
+ * Transient failures (connection errors, timeouts, 429 and 5xx) are retried on a timer with exponential
+ * backoff, so no thread sleeps between attempts; other 4xx responses are not retried.
+ * Confirmations are pushed one per request ({@link #confirm}) or many per request ({@link #confirmBatch}).
+ *
+ * With a {@link HotelCircuitBreaker} every attempt, retries included, asks the breaker first: while it is open
+ * calls fail fast without a request or a retry, and a transient failure of a permitted attempt counts against it.
+ */
+@Component
+public class HotelApiClient {
+    private static final Logger log = LoggerFactory.getLogger(HotelApiClient.class);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(8);
+    private static final ParameterizedTypeReference<Map<String, List<Map<String, Object>>>> BATCH_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+
+    @Autowired(required = false)
+    private HotelCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private SyncMetrics syncMetrics;
+
+    public HotelApiClient(WebClient.Builder webClientBuilder,
+                          @Value("${hotel.api.baseUrl:http://localhost:9000}") String baseUrl,
+                          @Value("${hotel.api.apiKey:dev-key}") String apiKey,
+                          @Value("${hotel.api.max-connections:32}") int maxConnections,
+                          @Value("${hotel.api.timeout-ms:10000}") long timeoutMs,
+                          @Value("${hotel.api.max-attempts:3}") int maxAttempts,
+                          @Value("${hotel.api.initial-backoff-ms:500}") long initialBackoffMs) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.connectionProvider = ConnectionProvider.builder("hotel-api")
+                .maxConnections(Math.max(1, maxConnections))
+                .pendingAcquireMaxCount(-1) // callers bound their own concurrency
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(Integer.MAX_VALUE, timeoutMs))
+                .responseTimeout(timeout)
+                .keepAlive(true);
+        this.webClient = webClientBuilder
+                .baseUrl(baseUrl)
+                .defaultHeader("x-api-key", apiKey)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    // For unit testing: allow explicit injection of circuit breaker (can be null)
+    public void setCircuitBreaker(HotelCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    // For unit testing: allow explicit injection of sync metrics (can be null)
+    public void setSyncMetrics(SyncMetrics syncMetrics) {
+        this.syncMetrics = syncMetrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitBreaker != null && circuitBreaker.state() == HotelCircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * Pushes one confirmation. Never errors: emits {@link PushOutcome#synced()} on a 2xx response,
+     * {@code rejected} on a permanent 4xx, {@code failed} once the attempts are exhausted and
+     * {@code skipped} when the circuit is open.
+     */
+    public Mono<PushOutcome> confirm(PriceConfirmation pc) {
+        return guarded(webClient.post()
+                .uri("/prices/confirm")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(pc))
+                .exchangeToMono(resp -> {
+                    HttpStatusCode status = resp.statusCode();
+                    if (status.is2xxSuccessful()) return resp.releaseBody().thenReturn(PushOutcome.synced());
+                    if (isTransient(status)) return resp.releaseBody().then(Mono.error(new TransientStatusException(status)));
+                    log.warn("Hotel API rejected confirmation id={} productId={}: {}", pc.getId(), pc.getProductId(), status);
+                    return resp.releaseBody().thenReturn(PushOutcome.rejected("http_" + status.value(), "HTTP " + status));
+                })
+                .timeout(timeout))
+                .retryWhen(Retry.backoff(maxAttempts - 1, initialBackoff)
+                        .maxBackoff(MAX_BACKOFF)
+                        .filter(HotelApiClient::isTransient)
+                        .doBeforeRetry(s -> {
+                            log.warn("Attempt {} failed for confirmation id={}: {}",
+                                    s.totalRetries() + 1, pc.getId(), s.failure().getMessage());
+                            recordRetry(s.failure());
+                        }))
+                .onErrorResume(ex -> {
+                    Throwable cause = Exceptions.isRetryExhausted(ex) && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof CircuitOpenException) {
+                        log.debug("Skipped confirmation id={}: {}", pc.getId(), cause.getMessage());
+                        return Mono.just(PushOutcome.skipped(cause.getMessage()));
+                    }
+                    log.error("callHotelApi failed for confirmation id={}: {}", pc.getId(), cause.getMessage());
+                    return Mono.just(PushOutcome.failed(causeOf(cause), errorOf(cause)));
+                });
+    }
+
+    /**
+     * Pushes many confirmations in one {@code POST /prices/confirm/batch} with body {@code {"items": [...]}};
+     * every item carries its confirmation id as {@code ref}. The response {@code {"results": [{"ref", "status",
+     * "code", "error"}]}} is mapped back by {@code ref}: {@code status: "ok"} is a success; an error item is
+     * {@code rejected} unless its {@code code} is transient (429, 5xx), which makes it a retryable {@code failed},
+     * as is an item without a result. Never errors: when the whole request fails, every id maps to the
+     * request's outcome. A 413 for more than one item and a 404/405 (no batch endpoint) come back as
+     * {@code failed} with cause {@code http_413} / {@code http_404} / {@code http_405}, so the caller can split
+     * the batch or fall back to {@link #confirm}.
+     */
+    public Mono<Map<Long, PushOutcome>> confirmBatch(List<PriceConfirmation> batch) {
+        List<Map<String, Object>> items = new ArrayList<>(batch.size());
+        for (PriceConfirmation pc : batch) {
+            Map<String, Object> item = body(pc);
+            item.put("ref", pc.getId());
+            items.add(item);
+        }
+        return guarded(webClient.post()
+                .uri("/prices/confirm/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("items", items))
+                .exchangeToMono(resp -> {
+                    HttpStatusCode status = resp.statusCode();
+                    if (status.is2xxSuccessful()) return resp.bodyToMono(BATCH_RESPONSE).map(body -> itemResults(batch, body));
+                    if (isTransient(status)) return resp.releaseBody().then(Mono.error(new TransientStatusException(status)));
+                    if (isBatchRefusal(status, batch.size())) {
+                        log.warn("Hotel API refused batch of {} confirmations: {}", batch.size(), status);
+                        return resp.releaseBody().thenReturn(all(batch, PushOutcome.failed("http_" + status.value(), "HTTP " + status)));
+                    }
+                    log.warn("Hotel API rejected batch of {} confirmations: {}", batch.size(), status);
+                    return resp.releaseBody().thenReturn(all(batch, PushOutcome.rejected("http_" + status.value(), "HTTP " + status)));
+                })
+                .timeout(timeout))
+                .retryWhen(Retry.backoff(maxAttempts - 1, initialBackoff)
+                        .maxBackoff(MAX_BACKOFF)
+                        .filter(HotelApiClient::isTransient)
+                        .doBeforeRetry(s -> {
+                            log.warn("Attempt {} failed for batch of {} confirmations: {}",
+                                    s.totalRetries() + 1, batch.size(), s.failure().getMessage());
+                            recordRetry(s.failure());
+                        }))
+                .onErrorResume(ex -> {
+                    Throwable cause = Exceptions.isRetryExhausted(ex) && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof CircuitOpenException) {
+                        log.debug("Skipped batch of {} confirmations: {}", batch.size(), cause.getMessage());
+                        return Mono.just(all(batch, PushOutcome.skipped(cause.getMessage())));
+                    }
+                    log.error("Batch push of {} confirmations failed: {}", batch.size(), cause.getMessage());
+                    return Mono.just(all(batch, PushOutcome.failed(causeOf(cause), errorOf(cause))));
+                });
+    }
+
+    // One attempt through the circuit breaker; permanent 4xx answers still show the API is up, so count as success
+    private <T> Mono<T> guarded(Mono<T> attempt) {
+        HotelCircuitBreaker breaker = circuitBreaker;
+        if (breaker == null) return attempt;
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) return Mono.error(new CircuitOpenException());
+            // Exactly one outcome per permitted attempt, whichever terminal signal arrives first
+            AtomicBoolean reported = new AtomicBoolean();
+            return attempt
+                    .doOnSuccess(value -> {
+                        if (reported.compareAndSet(false, true)) breaker.onSuccess();
+                    })
+                    .doOnError(ex -> {
+                        if (!reported.compareAndSet(false, true)) return;
+                        if (isTransient(ex)) breaker.onFailure();
+                        else breaker.onSuccess();
+                    })
+                    .doOnCancel(() -> {
+                        if (reported.compareAndSet(false, true)) breaker.onFailure();
+                    });
+        });
+    }
+
+    private static Map<Long, PushOutcome> itemResults(List<PriceConfirmation> batch, Map<String, List<Map<String, Object>>> body) {
+        Map<Long, PushOutcome> results = all(batch, PushOutcome.failed("no_result", "no result for item"));
+        List<Map<String, Object>> items = body.get("results");
+        if (items == null) return results;
+        for (Map<String, Object> item : items) {
+            Object ref = item.get("ref");
+            if (ref == null) continue;
+            Long id = Long.valueOf(ref.toString());
+            if (!results.containsKey(id)) continue;
+            results.put(id, itemOutcome(id, item));
+        }
+        return results;
+    }
+
+    private static PushOutcome itemOutcome(Long id, Map<String, Object> item) {
+        if ("ok".equalsIgnoreCase(String.valueOf(item.get("status")))) return PushOutcome.synced();
+        String error = String.valueOf(item.get("error"));
+        Integer code = itemCode(item.get("code"));
+        String cause = code == null ? "item_error" : "item_http_" + code;
+        if (code != null && isTransient(HttpStatusCode.valueOf(code))) return PushOutcome.failed(cause, error);
+        log.warn("Hotel API rejected confirmation id={}: {}", id, error);
+        return PushOutcome.rejected(cause, error);
+    }
+
+    private static Integer itemCode(Object code) {
+        if (code == null) return null;
+        try {
+            int value = Integer.parseInt(code.toString().trim());
+            return value >= 100 && value <= 999 ? value : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static Map<Long, PushOutcome> all(List<PriceConfirmation> batch, PushOutcome outcome) {
+        Map<Long, PushOutcome> results = new HashMap<>();
+        for (PriceConfirmation pc : batch) results.put(pc.getId(), outcome);
+        return results;
+    }
+
+    private void recordRetry(Throwable failure) {
+        if (syncMetrics != null) syncMetrics.recordRetry(causeOf(failure));
+    }
+
+    private static String causeOf(Throwable ex) {
+        if (ex instanceof TransientStatusException t) return "http_" + t.status;
+        if (ex instanceof TimeoutException) return "timeout";
+        if (ex instanceof WebClientRequestException) return "connection";
+        return "error";
+    }
+
+    private static String errorOf(Throwable cause) {
+        if (cause instanceof TimeoutException) return "timeout";
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    static Map<String, Object> body(PriceConfirmation pc) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("productId", pc.getProductId());
+        body.put("action", pc.getAction());
+        body.put("price", pc.getConfirmedValue());
+        body.put("currency", pc.getCurrency());
+        body.put("userId", pc.getUserId());
+        body.put("confirmedAt", pc.getConfirmedAt() == null ? null : pc.getConfirmedAt().toString());
+        return body;
+    }
+
+    private static boolean isTransient(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    // Refusals of the batch request itself rather than of its items: too large (and splittable), or no batch endpoint
+    private static boolean isBatchRefusal(HttpStatusCode status, int items) {
+        int code = status.value();
+        return (code == HttpStatus.PAYLOAD_TOO_LARGE.value() && items > 1)
+                || code == HttpStatus.NOT_FOUND.value()
+                || code == HttpStatus.METHOD_NOT_ALLOWED.value();
+    }
+
+    private static boolean isTransient(Throwable ex) {
+        return ex instanceof TransientStatusException
+                || ex instanceof WebClientRequestException
+                || ex instanceof TimeoutException;
+    }
+
+    static final class CircuitOpenException extends RuntimeException {
+        CircuitOpenException() {
+            super("Hotel API circuit is open");
+        }
+    }
+
+    static final class TransientStatusException extends RuntimeException {
+        private final int status;
+
+        TransientStatusException(HttpStatusCode status) {
+            super("Hotel API responded " + status);
+            this.status = status.value();
+        }
+    }
+}
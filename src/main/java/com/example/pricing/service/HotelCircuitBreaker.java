@@ -0,0 +1,118 @@
+package com.example.pricing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker around calls to the hotel API.
+ *
+ * CLOSED: calls pass; the outcomes of the last {@code window-size} calls are kept, and once at least
+ * {@code minimum-calls} are recorded a failure rate at or above {@code failure-rate-threshold} opens the circuit.
+ * OPEN: calls are rejected without touching the network for {@code open-ms}.
+ * HALF_OPEN: up to {@code half-open-calls} trial calls pass; all of them succeeding closes the circuit,
+ * any failure opens it again.
+ */
+@Component
+public class HotelCircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Logger log = LoggerFactory.getLogger(HotelCircuitBreaker.class);
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final boolean[] window; // true = failure
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public HotelCircuitBreaker(@Value("${hotel.api.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                               @Value("${hotel.api.circuit.window-size:20}") int windowSize,
+                               @Value("${hotel.api.circuit.minimum-calls:10}") int minimumCalls,
+                               @Value("${hotel.api.circuit.open-ms:30000}") long openMs,
+                               @Value("${hotel.api.circuit.half-open-calls:3}") int halfOpenCalls) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(window.length, minimumCalls));
+        this.openNanos = Math.max(0, openMs) * 1_000_000;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * @return whether a call may go out now; every permitted call must be followed by
+     *         {@link #onSuccess()} or {@link #onFailure()}
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            transition(State.HALF_OPEN);
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) return false;
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= halfOpenCalls) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) record(true);
+    }
+
+    public synchronized State state() {
+        // Report an expired OPEN as HALF_OPEN so callers polling the state see that trial calls would pass
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowNext]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failure;
+        if (failure) windowFailures++;
+        windowNext = (windowNext + 1) % window.length;
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) open();
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+    }
+
+    private void transition(State next) {
+        if (state != next) log.warn("Hotel API circuit {} -> {}", state, next);
+        state = next;
+    }
+}
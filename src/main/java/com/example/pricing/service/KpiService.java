@@ -0,0 +1,178 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.DailyOccupancyRollup;
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.repository.BookingRepository.KpiRow;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.DailyOccupancyRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Portfolio KPIs per region x product group x arrival month:
+ * ADR = revenue / room-nights sold, RevPAR = revenue / products available, occupancy = bookings / products available
+ * (the same proxy as {@code /api/metrics/occupancy}).
+ *
+ * The live path splits the portfolio into building partitions, aggregates each partition in the database on a
+ * small dedicated pool and merges the partial sums. The rollup path folds BUILDING_GROUP rows of
+ * {@code daily_occupancy_rollups} instead and is used when those rollups are fresh.
+ */
+@Service
+public class KpiService {
+    private static final Logger log = LoggerFactory.getLogger(KpiService.class);
+
+    public static final String SOURCE_AUTO = "auto";
+    public static final String SOURCE_ROLLUP = "rollup";
+    public static final String SOURCE_LIVE = "live";
+
+    // Jobs whose last run decides whether the rollups can be trusted
+    private static final List<String> ROLLUP_JOBS = List.of("productIngestJob", "bookingIngestJob");
+
+    private final BookingRepository bookingRepository;
+    private final BuildingRepository buildingRepository;
+    private final DailyOccupancyRollupRepository rollupRepository;
+    private final JobExplorer jobExplorer;
+    private final ExecutorService executor;
+    private final int partitionSize;
+
+    public KpiService(BookingRepository bookingRepository,
+                      BuildingRepository buildingRepository,
+                      DailyOccupancyRollupRepository rollupRepository,
+                      JobExplorer jobExplorer,
+                      @Value("${pricing.kpi.parallelism:4}") int parallelism,
+                      @Value("${pricing.kpi.partition-size:50}") int partitionSize) {
+        this.bookingRepository = bookingRepository;
+        this.buildingRepository = buildingRepository;
+        this.rollupRepository = rollupRepository;
+        this.jobExplorer = jobExplorer;
+        this.partitionSize = Math.max(1, partitionSize);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "kpi-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param source {@code auto} (rollups when fresh, else live), {@code rollup} or {@code live}
+     * @return {@code source} actually used and the KPI {@code rows}, sorted by region, product group, month
+     */
+    public Map<String, Object> portfolioKpis(LocalDate from, LocalDate to, String source) {
+        String mode = source == null ? SOURCE_AUTO : source.toLowerCase();
+        boolean useRollups = switch (mode) {
+            case SOURCE_ROLLUP -> true;
+            case SOURCE_LIVE -> false;
+            case SOURCE_AUTO -> rollupsFresh();
+            default -> throw new IllegalArgumentException("Unsupported source: " + source);
+        };
+        long start = System.nanoTime();
+        List<KpiRow> partials = useRollups ? rollupRepository.kpisFromRollups(from, to) : livePartials(from, to);
+        List<Map<String, Object>> rows = merge(partials);
+        log.info("KPIs {}..{} from {}: {} rows in {} ms", from, to, useRollups ? SOURCE_ROLLUP : SOURCE_LIVE,
+                rows.size(), (System.nanoTime() - start) / 1_000_000);
+        return Map.of("source", useRollups ? SOURCE_ROLLUP : SOURCE_LIVE, "rows", rows);
+    }
+
+    /**
+     * Rollups are fresh when they exist and the last run of every job that maintains them completed;
+     * a failed or still-running ingest means some dates may not have been re-aggregated yet.
+     */
+    public boolean rollupsFresh() {
+        if (!rollupRepository.existsByScope(DailyOccupancyRollup.SCOPE_BUILDING_GROUP)) return false;
+        for (String job : ROLLUP_JOBS) {
+            JobInstance last = jobExplorer.getLastJobInstance(job);
+            if (last == null) continue; // never run: rollups come from the initial load
+            JobExecution execution = jobExplorer.getLastJobExecution(last);
+            if (execution != null && execution.getStatus() != BatchStatus.COMPLETED) return false;
+        }
+        return true;
+    }
+
+    private List<KpiRow> livePartials(LocalDate from, LocalDate to) {
+        List<String> buildingIds = buildingRepository.findAllIds();
+        List<CompletableFuture<List<KpiRow>>> tasks = new ArrayList<>();
+        for (int i = 0; i < buildingIds.size(); i += partitionSize) {
+            List<String> partition = buildingIds.subList(i, Math.min(i + partitionSize, buildingIds.size()));
+            tasks.add(CompletableFuture.supplyAsync(() -> bookingRepository.kpisForBuildings(partition, from, to), executor));
+        }
+        List<KpiRow> partials = new ArrayList<>();
+        for (CompletableFuture<List<KpiRow>> task : tasks) {
+            partials.addAll(task.join());
+        }
+        return partials;
+    }
+
+    // Sums partial aggregates per (region, productGroup, month) and derives the ratios from the totals
+    static List<Map<String, Object>> merge(List<KpiRow> partials) {
+        Comparator<String> nullsFirst = Comparator.nullsFirst(Comparator.naturalOrder());
+        Map<List<String>, Totals> totals = new TreeMap<>((a, b) -> {
+            for (int i = 0; i < a.size(); i++) {
+                int c = nullsFirst.compare(a.get(i), b.get(i));
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+        for (KpiRow row : partials) {
+            Totals t = totals.computeIfAbsent(Arrays.asList(row.getRegion(), row.getProductGroup(), row.getMonth()), k -> new Totals());
+            t.bookings += nz(row.getBookings());
+            t.roomNights += nz(row.getRoomNights());
+            t.products += nz(row.getProductsAvailable());
+            t.revenue += row.getRevenue() == null ? 0.0 : row.getRevenue();
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<List<String>, Totals> e : totals.entrySet()) {
+            Totals t = e.getValue();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("region", e.getKey().get(0));
+            row.put("productGroup", e.getKey().get(1));
+            row.put("month", e.getKey().get(2));
+            row.put("bookings", t.bookings);
+            row.put("roomNightsSold", t.roomNights);
+            row.put("productsAvailable", t.products);
+            row.put("revenue", t.revenue);
+            row.put("adr", t.roomNights == 0 ? null : t.revenue / t.roomNights);
+            row.put("revpar", t.products == 0 ? null : t.revenue / t.products);
+            row.put("occupancy", t.products == 0 ? null : (double) t.bookings / t.products);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static long nz(Long v) {
+        return v == null ? 0L : v;
+    }
+
+    private static class Totals {
+        long bookings;
+        long roomNights;
+        long products;
+        double revenue;
+    }
+}
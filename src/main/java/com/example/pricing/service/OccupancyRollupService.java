@@ -0,0 +1,104 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.DailyOccupancyRollup;
+import com.example.pricing.repository.DailyOccupancyRollupRepository;
+import com.example.pricing.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains {@code daily_occupancy_rollups} and serves time series from it.
+ *
+ * Ingest jobs refresh only the arrival-date range they touched (delete + re-aggregate), so a year-long
+ * chart reads at most 366 rows per building or cluster and downsampling happens on that small set.
+ */
+@Service
+public class OccupancyRollupService {
+    public static final String DAY = "day";
+    public static final String WEEK = "week";
+    public static final String MONTH = "month";
+
+    private final DailyOccupancyRollupRepository rollupRepository;
+    private final ProductRepository productRepository;
+
+    public OccupancyRollupService(DailyOccupancyRollupRepository rollupRepository, ProductRepository productRepository) {
+        this.rollupRepository = rollupRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Rebuilds building, building x product group and cluster rollups for arrival dates in [from, to].
+     *
+     * @return number of rollup rows written
+     */
+    @Transactional
+    public int refresh(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) return 0;
+        rollupRepository.deleteRange(from, to);
+        return rollupRepository.insertBuildingRollups(from, to)
+                + rollupRepository.insertBuildingGroupRollups(from, to)
+                + rollupRepository.insertClusterRollups(from, to);
+    }
+
+    // Full rebuild over the product arrival-date range
+    @Transactional
+    public int refreshAll() {
+        return refresh(productRepository.findMinArrivalDate(), productRepository.findMaxArrivalDate());
+    }
+
+    /**
+     * Time series for one building or cluster, summed into day, week (ISO, Monday start) or month buckets.
+     * Each point carries bookings, roomNights, productsAvailable, revenue and occupancy (bookings / products).
+     */
+    public List<Map<String, Object>> timeSeries(String scope, String scopeId, LocalDate from, LocalDate to, String granularity) {
+        List<DailyOccupancyRollup> days = rollupRepository
+                .findByScopeAndScopeIdAndRollupDateBetweenOrderByRollupDate(scope, scopeId, from, to);
+        return downsample(days, granularity);
+    }
+
+    static List<Map<String, Object>> downsample(List<DailyOccupancyRollup> days, String granularity) {
+        Map<LocalDate, long[]> counts = new LinkedHashMap<>();
+        Map<LocalDate, Double> revenue = new LinkedHashMap<>();
+        for (DailyOccupancyRollup day : days) {
+            LocalDate bucket = bucketStart(day.getRollupDate(), granularity);
+            long[] c = counts.computeIfAbsent(bucket, b -> new long[3]);
+            c[0] += nz(day.getBookings());
+            c[1] += nz(day.getRoomNights());
+            c[2] += nz(day.getProductsAvailable());
+            revenue.merge(bucket, day.getRevenue() == null ? 0.0 : day.getRevenue(), Double::sum);
+        }
+
+        List<Map<String, Object>> series = new ArrayList<>(counts.size());
+        for (Map.Entry<LocalDate, long[]> e : counts.entrySet()) {
+            long[] c = e.getValue();
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("period", e.getKey());
+            point.put("bookings", c[0]);
+            point.put("roomNights", c[1]);
+            point.put("productsAvailable", c[2]);
+            point.put("revenue", revenue.get(e.getKey()));
+            point.put("occupancy", c[2] == 0 ? 0.0 : (double) c[0] / (double) c[2]);
+            series.add(point);
+        }
+        return series;
+    }
+
+    static LocalDate bucketStart(LocalDate date, String granularity) {
+        if (granularity == null || DAY.equalsIgnoreCase(granularity)) return date;
+        if (WEEK.equalsIgnoreCase(granularity)) return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        if (MONTH.equalsIgnoreCase(granularity)) return date.withDayOfMonth(1);
+        throw new IllegalArgumentException("Unsupported granularity: " + granularity);
+    }
+
+    private static long nz(Long v) {
+        return v == null ? 0L : v;
+    }
+}
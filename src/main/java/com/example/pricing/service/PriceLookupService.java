@@ -0,0 +1,84 @@
+package com.example.pricing.service;
+
+import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
+import com.example.pricing.repository.PriceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resolves many (productId, currency?) keys against the prices primary key.
+ * Keys are grouped by product and fetched with chunked IN queries on product_id (the leading
+ * primary key column); each chunk is handed to the sink as soon as it is read, so callers can
+ * stream results instead of holding the whole answer.
+ */
+@Service
+public class PriceLookupService {
+    static final int CHUNK_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PriceLookupService.class);
+    private final PriceRepository priceRepository;
+
+    public PriceLookupService(PriceRepository priceRepository) {
+        this.priceRepository = priceRepository;
+    }
+
+    /**
+     * @param keys  requested keys; a null or blank currency means "all currencies of the product"
+     * @param sink  receives the matching prices chunk by chunk
+     * @return number of prices emitted
+     */
+    public long lookup(Collection<PriceId> keys, Consumer<List<Price>> sink) {
+        long start = System.nanoTime();
+        Map<String, Set<String>> currenciesByProduct = new HashMap<>();
+        Set<String> anyCurrencyProducts = new HashSet<>();
+        List<String> productIds = new ArrayList<>();
+        for (PriceId key : keys) {
+            if (key == null || key.getProductId() == null) continue;
+            String productId = key.getProductId();
+            Set<String> currencies = currenciesByProduct.get(productId);
+            if (currencies == null) {
+                currencies = new HashSet<>();
+                currenciesByProduct.put(productId, currencies);
+                productIds.add(productId);
+            }
+            if (key.getCurrency() == null || key.getCurrency().isBlank()) {
+                anyCurrencyProducts.add(productId);
+            } else {
+                currencies.add(key.getCurrency());
+            }
+        }
+
+        long emitted = 0;
+        int queries = 0;
+        for (int from = 0; from < productIds.size(); from += CHUNK_SIZE) {
+            List<String> chunk = productIds.subList(from, Math.min(from + CHUNK_SIZE, productIds.size()));
+            List<Price> matches = new ArrayList<>();
+            for (Price price : priceRepository.findByIdProductIdIn(chunk)) {
+                String productId = price.getId().getProductId();
+                if (anyCurrencyProducts.contains(productId)
+                        || currenciesByProduct.getOrDefault(productId, Set.of()).contains(price.getId().getCurrency())) {
+                    matches.add(price);
+                }
+            }
+            queries++;
+            emitted += matches.size();
+            sink.accept(matches);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Bulk price lookup: {} keys, {} products, {} queries, {} prices in {} ms ({} keys/s)",
+                keys.size(), productIds.size(), queries, emitted, elapsedMs, keys.size() * 1000L / elapsedMs);
+        return emitted;
+    }
+}
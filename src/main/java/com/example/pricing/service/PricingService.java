@@ -5,6 +5,7 @@ import com.example.pricing.model.PriceRecommendation;
 import com.example.pricing.repository.PriceRecommendationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
@@ -82,97 +83,119 @@ public class PricingService {
                                                         Map<String, PriceInfo> prices) {
         if (products == null) products = Collections.emptyList();
         if (bookings == null) bookings = Collections.emptyList();
-        if (prices == null) prices = Collections.emptyMap();
+        Map<String, PriceInfo> currentPrices = prices == null ? Collections.emptyMap() : prices;
 
-        // Only consider bookings in the last N days (windowing)
-        LocalDate windowStart = LocalDate.now().minusDays(windowDays);
-        List<Booking> windowedBookings = bookings.stream()
-                .filter(b -> b.getArrivalDate() == null || !b.getArrivalDate().isBefore(windowStart))
-                .collect(Collectors.toList());
+        Map<String, List<Booking>> bookingsByProduct = windowedBookingsByProduct(bookings);
+        List<PriceRecommendationDto> recommendations = new ArrayList<>();
+        for (Map.Entry<ClusterKey, List<Product>> clusterEntry : groupByCluster(products).entrySet()) {
+            recommendations.addAll(recommendCluster(clusterEntry.getKey(), clusterEntry.getValue(), bookingsByProduct, currentPrices));
+        }
+        return recommendations;
+    }
+
+    /**
+     * Streaming variant of {@link #recommendPrices}: emits each cluster's recommendations as soon as
+     * that cluster is computed. Clusters are computed one at a time on demand, so a slow subscriber
+     * holds back the engine instead of buffering the whole run.
+     */
+    public Flux<PriceRecommendationDto> streamRecommendations(List<Product> products,
+                                                              List<Booking> bookings,
+                                                              Map<String, PriceInfo> prices) {
+        return Flux.defer(() -> {
+            List<Product> allProducts = products == null ? Collections.emptyList() : products;
+            List<Booking> allBookings = bookings == null ? Collections.emptyList() : bookings;
+            Map<String, PriceInfo> currentPrices = prices == null ? Collections.emptyMap() : prices;
+
+            Map<String, List<Booking>> bookingsByProduct = windowedBookingsByProduct(allBookings);
+            return Flux.fromIterable(groupByCluster(allProducts).entrySet())
+                    .concatMapIterable(e -> recommendCluster(e.getKey(), e.getValue(), bookingsByProduct, currentPrices), 1);
+        });
+    }
 
-        // Group products by cluster key
-        Map<ClusterKey, List<Product>> clusters = products.stream()
-                .collect(Collectors.groupingBy(this::clusterKeyOf));
+    // Group products by cluster key
+    private Map<ClusterKey, List<Product>> groupByCluster(List<Product> products) {
+        return products.stream().collect(Collectors.groupingBy(this::clusterKeyOf, LinkedHashMap::new, Collectors.toList()));
+    }
 
-        // Group bookings by productId for quick lookup
-        Map<String, List<Booking>> bookingsByProduct = windowedBookings.stream()
+    // Only consider bookings in the last N days (windowing), grouped by productId for quick lookup
+    private Map<String, List<Booking>> windowedBookingsByProduct(List<Booking> bookings) {
+        LocalDate windowStart = LocalDate.now().minusDays(windowDays);
+        return bookings.stream()
+                .filter(b -> b.getArrivalDate() == null || !b.getArrivalDate().isBefore(windowStart))
                 .collect(Collectors.groupingBy(Booking::getProductId));
+    }
 
+    private List<PriceRecommendationDto> recommendCluster(ClusterKey clusterKey,
+                                                          List<Product> clusterProducts,
+                                                          Map<String, List<Booking>> bookingsByProduct,
+                                                          Map<String, PriceInfo> prices) {
         List<PriceRecommendationDto> recommendations = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-
-    for (Map.Entry<ClusterKey, List<Product>> clusterEntry : clusters.entrySet()) {
-            ClusterKey clusterKey = clusterEntry.getKey();
-            List<Product> clusterProducts = clusterEntry.getValue();
-
-            // Collect all bookings that belong to any product in this cluster
-            List<String> productIds = clusterProducts.stream().map(Product::getId).collect(Collectors.toList());
-            List<Booking> clusterBookings = productIds.stream()
-                    .flatMap(pid -> bookingsByProduct.getOrDefault(pid, Collections.emptyList()).stream())
-                    .collect(Collectors.toList());
-
-            // Calculate number of days in window
-            long days = windowDays;
-            // True occupancy: bookings / (products * days)
-            BigDecimal occupancy = computeTrueOccupancy(clusterBookings.size(), clusterProducts.size(), days);
-            BigDecimal avgPaid = computeAveragePaid(clusterBookings);
-
-            // compute cluster factor: 1 + sensitivity * (occupancy - targetOccupancy)
-            BigDecimal occupancyDiff = occupancy.subtract(targetOccupancy);
-            BigDecimal factor = BigDecimal.ONE.add(sensitivity.multiply(occupancyDiff));
-            // avoid negative or zero factor (safety clamp)
-            if (factor.compareTo(BigDecimal.valueOf(0.5)) < 0) {
-                factor = BigDecimal.valueOf(0.5);
-            }
+        // Collect all bookings that belong to any product in this cluster
+        List<String> productIds = clusterProducts.stream().map(Product::getId).collect(Collectors.toList());
+        List<Booking> clusterBookings = productIds.stream()
+                .flatMap(pid -> bookingsByProduct.getOrDefault(pid, Collections.emptyList()).stream())
+                .collect(Collectors.toList());
 
-            for (Product p : clusterProducts) {
-                PriceInfo currentPrice = prices.get(p.getId());
-                BigDecimal recommended;
-                String currency = currentPrice != null ? currentPrice.getCurrency() : "USD";
-
-                if (clusterBookings.isEmpty() || avgPaid == null) {
-                    // fallback: if we have a current price use it, else no recommendation (null)
-                    recommended = currentPrice != null ? currentPrice.getValue() : null;
-                } else {
-                    // use avgPaid * factor
-                    recommended = avgPaid.multiply(factor).setScale(2, RoundingMode.HALF_UP);
-                    // Floor/ceiling
-                    BigDecimal minPrice = avgPaid.multiply(minMargin).setScale(2, RoundingMode.HALF_UP);
-                    BigDecimal maxPrice = avgPaid.multiply(BigDecimal.ONE.add(maxIncreasePct)).setScale(2, RoundingMode.HALF_UP);
-                    if (recommended.compareTo(minPrice) < 0) recommended = minPrice;
-                    if (recommended.compareTo(maxPrice) > 0) recommended = maxPrice;
-
-                    // Smoothing: EMA with previous recommendation if exists
-                    BigDecimal prev = getPreviousRecommendation(p.getId());
-                    if (prev != null) {
-                        recommended = prev.multiply(BigDecimal.ONE.subtract(smoothingAlpha)).add(recommended.multiply(smoothingAlpha)).setScale(2, RoundingMode.HALF_UP);
-                    }
-                }
+        // Calculate number of days in window
+        long days = windowDays;
+        // True occupancy: bookings / (products * days)
+        BigDecimal occupancy = computeTrueOccupancy(clusterBookings.size(), clusterProducts.size(), days);
+        BigDecimal avgPaid = computeAveragePaid(clusterBookings);
+
+        // compute cluster factor: 1 + sensitivity * (occupancy - targetOccupancy)
+        BigDecimal occupancyDiff = occupancy.subtract(targetOccupancy);
+        BigDecimal factor = BigDecimal.ONE.add(sensitivity.multiply(occupancyDiff));
+        // avoid negative or zero factor (safety clamp)
+        if (factor.compareTo(BigDecimal.valueOf(0.5)) < 0) {
+            factor = BigDecimal.valueOf(0.5);
+        }
 
-                // Persist recommendation if repository is available
-                if (priceRecommendationRepository != null) {
-                    PriceRecommendation entity = new PriceRecommendation();
-                    entity.setProductId(p.getId());
-                    entity.setCurrency(currency);
-                    entity.setRecommendedValue(recommended);
-                    entity.setRecommendedAt(LocalDateTime.now());
-                    entity.setStatus("NEW");
-                    priceRecommendationRepository.save(entity);
+        for (Product p : clusterProducts) {
+            PriceInfo currentPrice = prices.get(p.getId());
+            BigDecimal recommended;
+            String currency = currentPrice != null ? currentPrice.getCurrency() : "USD";
+
+            if (clusterBookings.isEmpty() || avgPaid == null) {
+                // fallback: if we have a current price use it, else no recommendation (null)
+                recommended = currentPrice != null ? currentPrice.getValue() : null;
+            } else {
+                // use avgPaid * factor
+                recommended = avgPaid.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+                // Floor/ceiling
+                BigDecimal minPrice = avgPaid.multiply(minMargin).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal maxPrice = avgPaid.multiply(BigDecimal.ONE.add(maxIncreasePct)).setScale(2, RoundingMode.HALF_UP);
+                if (recommended.compareTo(minPrice) < 0) recommended = minPrice;
+                if (recommended.compareTo(maxPrice) > 0) recommended = maxPrice;
+
+                // Smoothing: EMA with previous recommendation if exists
+                BigDecimal prev = getPreviousRecommendation(p.getId());
+                if (prev != null) {
+                    recommended = prev.multiply(BigDecimal.ONE.subtract(smoothingAlpha)).add(recommended.multiply(smoothingAlpha)).setScale(2, RoundingMode.HALF_UP);
                 }
+            }
 
-                PriceRecommendationDto dto = new PriceRecommendationDto(
-                        p.getId(),
-                        currency,
-                        recommended,
-                        clusterKey,
-                        occupancy,
-                        avgPaid,
-                        factor
-                );
-                recommendations.add(dto);
+            // Persist recommendation if repository is available
+            if (priceRecommendationRepository != null) {
+                PriceRecommendation entity = new PriceRecommendation();
+                entity.setProductId(p.getId());
+                entity.setCurrency(currency);
+                entity.setRecommendedValue(recommended);
+                entity.setRecommendedAt(LocalDateTime.now());
+                entity.setStatus("NEW");
+                priceRecommendationRepository.save(entity);
             }
-        }
 
+            PriceRecommendationDto dto = new PriceRecommendationDto(
+                    p.getId(),
+                    currency,
+                    recommended,
+                    clusterKey,
+                    occupancy,
+                    avgPaid,
+                    factor
+            );
+            recommendations.add(dto);
+        }
         return recommendations;
     }
 
@@ -0,0 +1,54 @@
+package com.example.pricing.service;
+
+/**
+ * Result of pushing one confirmation to the hotel API.
+ *
+ * SYNCED: accepted. REJECTED: refused with a permanent error, retrying will not help.
+ * FAILED: transient failure that outlasted the client's retries. SKIPPED: never sent because the circuit was open.
+ * {@code cause} is a short, low-cardinality label for metrics ({@code http_503}, {@code timeout}, ...);
+ * {@code error} the detail stored with the row.
+ */
+public final class PushOutcome {
+    public enum Status { SYNCED, REJECTED, FAILED, SKIPPED }
+
+    private static final PushOutcome SYNCED = new PushOutcome(Status.SYNCED, null, null);
+
+    private final Status status;
+    private final String cause;
+    private final String error;
+
+    private PushOutcome(Status status, String cause, String error) {
+        this.status = status;
+        this.cause = cause;
+        this.error = error;
+    }
+
+    public static PushOutcome synced() {
+        return SYNCED;
+    }
+
+    public static PushOutcome rejected(String cause, String error) {
+        return new PushOutcome(Status.REJECTED, cause, error);
+    }
+
+    public static PushOutcome failed(String cause, String error) {
+        return new PushOutcome(Status.FAILED, cause, error);
+    }
+
+    public static PushOutcome skipped(String error) {
+        return new PushOutcome(Status.SKIPPED, "circuit_open", error);
+    }
+
+    public Status getStatus() { return status; }
+    public String getCause() { return cause; }
+    public String getError() { return error; }
+
+    public boolean isSynced() {
+        return status == Status.SYNCED;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? status.name() : status + ": " + error;
+    }
+}
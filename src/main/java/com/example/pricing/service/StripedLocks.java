@@ -0,0 +1,69 @@
+package com.example.pricing.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks addressed by key hash. Work on the same key is serialized; keys on different
+ * stripes never contend, and unrelated keys only share a lock on a hash collision.
+ *
+ * Several keys are always locked in ascending stripe order, so overlapping multi-key callers cannot
+ * deadlock. Inside a Spring transaction the locks are held until the transaction completes, so the next
+ * caller on the same key sees the committed rows; outside a transaction they are released when the body returns.
+ */
+public final class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1; // next power of two
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) locks[i] = new ReentrantLock();
+    }
+
+    public <T> T withLocks(Collection<String> keys, Supplier<T> body) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String key : keys) {
+            if (key != null) stripes.add(stripeOf(key));
+        }
+        for (int stripe : stripes) locks[stripe].lock();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(stripes);
+                }
+            });
+            return body.get();
+        }
+        try {
+            return body.get();
+        } finally {
+            unlock(stripes);
+        }
+    }
+
+    public boolean isLocked(String key) {
+        return locks[stripeOf(key)].isLocked();
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+
+    private void unlock(TreeSet<Integer> stripes) {
+        for (int stripe : stripes.descendingSet()) locks[stripe].unlock();
+    }
+
+    // Spread the high bits so keys that differ only in a suffix still land on different stripes
+    private int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
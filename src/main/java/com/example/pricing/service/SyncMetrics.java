@@ -0,0 +1,198 @@
+package com.example.pricing.service;
+
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.SyncDeadLetterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hotel sync lag and health, as Micrometer meters and as the {@code GET /api/sync/status} document.
+ *
+ * Backlog size, oldest pending {@code confirmedAt} and open dead letters come from two index-only queries whose
+ * result is reused for {@code hotel.sync.metrics.refresh-ms}, so gauges and the endpoint can be polled every few
+ * seconds at a fixed database cost. Pushes are counted per outcome, failures and client retries per cause
+ * ({@code http_503}, {@code timeout}, {@code connection}, ...), and push latency is a percentile histogram per mode.
+ */
+@Component
+public class SyncMetrics {
+    private static final Logger log = LoggerFactory.getLogger(SyncMetrics.class);
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final PriceConfirmationRepository repo;
+    private final SyncDeadLetterRepository deadLetterRepo;
+    private final long refreshNanos;
+    private final Counter coalesced;
+    private final Counter synced;
+
+    @Autowired(required = false)
+    private HotelCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private AdaptiveConcurrency concurrencyControl;
+
+    private Snapshot snapshot;
+    private volatile Map<String, Object> lastRun;
+
+    public SyncMetrics(MeterRegistry registry,
+                       PriceConfirmationRepository repo,
+                       SyncDeadLetterRepository deadLetterRepo,
+                       @Value("${hotel.sync.metrics.refresh-ms:5000}") long refreshMs) {
+        this.registry = registry;
+        this.repo = repo;
+        this.deadLetterRepo = deadLetterRepo;
+        this.refreshNanos = Math.max(0, refreshMs) * 1_000_000;
+        this.coalesced = Counter.builder("pricing.sync.coalesced").description("superseded confirmations synced without a call").register(registry);
+        this.synced = Counter.builder("pricing.sync.synced").description("confirmations marked synced").register(registry);
+        Gauge.builder("pricing.sync.backlog", this, m -> m.snapshot().pending).register(registry);
+        Gauge.builder("pricing.sync.oldest.age", this, m -> m.snapshot().oldestAgeSeconds())
+                .baseUnit("seconds").register(registry);
+        Gauge.builder("pricing.sync.dead.letters", this, m -> m.snapshot().deadLetters).register(registry);
+    }
+
+    // For unit testing: allow explicit injection of circuit breaker (can be null)
+    public void setCircuitBreaker(HotelCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    // For unit testing: allow explicit injection of concurrency control (can be null)
+    public void setConcurrencyControl(AdaptiveConcurrency concurrencyControl) {
+        this.concurrencyControl = concurrencyControl;
+    }
+
+    /**
+     * One push call (single or batch) and the outcome of every confirmation it carried.
+     */
+    public void recordPush(String mode, long elapsedNanos, Collection<PushOutcome> outcomes) {
+        latency(mode).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        for (PushOutcome outcome : outcomes) {
+            String status = outcome.getStatus().name().toLowerCase();
+            registry.counter("pricing.sync.pushes", "outcome", status).increment();
+            if (!outcome.isSynced()) registry.counter("pricing.sync.failures", "cause", outcome.getCause()).increment();
+        }
+    }
+
+    public void recordRetry(String cause) {
+        registry.counter("pricing.sync.retries", "cause", cause).increment();
+    }
+
+    public void recordRun(int claimed, int synced, int pushed, int superseded, long elapsedMs) {
+        this.synced.increment(synced);
+        this.coalesced.increment(superseded);
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("finishedAt", LocalDateTime.now().toString());
+        run.put("claimed", claimed);
+        run.put("synced", synced);
+        run.put("pushed", pushed);
+        run.put("coalesced", superseded);
+        run.put("elapsedMs", elapsedMs);
+        run.put("rowsPerSecond", elapsedMs <= 0 ? claimed : claimed * 1000L / elapsedMs);
+        lastRun = run;
+    }
+
+    public Map<String, Object> status() {
+        Snapshot current = snapshot();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("backlog", current.pending);
+        resp.put("oldestUnsyncedConfirmedAt", current.oldestConfirmedAt == null ? null : current.oldestConfirmedAt.toString());
+        resp.put("oldestUnsyncedAgeSeconds", current.oldestAgeSeconds());
+        resp.put("deadLetters", current.deadLetters);
+        resp.put("measuredAt", current.measuredAt.toString());
+        if (circuitBreaker != null) resp.put("circuit", circuitBreaker.state().name());
+        if (concurrencyControl != null) resp.put("concurrencyLimit", concurrencyControl.limit());
+        resp.put("synced", (long) synced.count());
+        resp.put("coalesced", (long) coalesced.count());
+        resp.put("pushes", countsByTag("pricing.sync.pushes", "outcome"));
+        resp.put("failures", countsByTag("pricing.sync.failures", "cause"));
+        resp.put("retries", countsByTag("pricing.sync.retries", "cause"));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Timer timer : registry.find("pricing.sync.push.latency").timers()) {
+            latency.put(timer.getId().getTag("mode"), latencySummary(timer));
+        }
+        resp.put("latencyMs", latency);
+        resp.put("lastRun", lastRun);
+        return resp;
+    }
+
+    private Timer latency(String mode) {
+        return Timer.builder("pricing.sync.push.latency")
+                .tag("mode", mode)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Map<String, Long> countsByTag(String name, String tag) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Counter counter : registry.find(name).counters()) {
+            counts.merge(counter.getId().getTag(tag), (long) counter.count(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static Map<String, Object> latencySummary(Timer timer) {
+        HistogramSnapshot histogram = timer.takeSnapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.count());
+        summary.put("mean", Math.round(histogram.mean(TimeUnit.MILLISECONDS)));
+        summary.put("max", Math.round(histogram.max(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile p : histogram.percentileValues()) {
+            summary.put("p" + Math.round(p.percentile() * 100), Math.round(p.value(TimeUnit.MILLISECONDS)));
+        }
+        return summary;
+    }
+
+    // Re-queried at most once per refresh interval; a failed refresh keeps serving the previous values
+    private synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        if (snapshot != null && now - snapshot.takenAt < refreshNanos) return snapshot;
+        try {
+            PriceConfirmationRepository.Backlog backlog = repo.backlog();
+            long deadLetters = deadLetterRepo.countByReplayedAtIsNull();
+            snapshot = new Snapshot(now, LocalDateTime.now(),
+                    backlog == null || backlog.getPending() == null ? 0 : backlog.getPending(),
+                    backlog == null ? null : backlog.getOldestConfirmedAt(), deadLetters);
+        } catch (RuntimeException ex) {
+            log.warn("Sync backlog refresh failed: {}", ex.getMessage());
+            if (snapshot == null) snapshot = new Snapshot(now, LocalDateTime.now(), 0, null, 0);
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+        private final long takenAt;
+        private final LocalDateTime measuredAt;
+        private final long pending;
+        private final LocalDateTime oldestConfirmedAt;
+        private final long deadLetters;
+
+        Snapshot(long takenAt, LocalDateTime measuredAt, long pending, LocalDateTime oldestConfirmedAt, long deadLetters) {
+            this.takenAt = takenAt;
+            this.measuredAt = measuredAt;
+            this.pending = pending;
+            this.oldestConfirmedAt = oldestConfirmedAt;
+            this.deadLetters = deadLetters;
+        }
+
+        long oldestAgeSeconds() {
+            return oldestConfirmedAt == null ? 0 : Math.max(0, Duration.between(oldestConfirmedAt, measuredAt).getSeconds());
+        }
+    }
+}
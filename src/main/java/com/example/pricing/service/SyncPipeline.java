@@ -0,0 +1,103 @@
+package com.example.pricing.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Near-real-time sync: every committed {@link ConfirmationsRecordedEvent} is fed into an in-process sink,
+ * and {@link SyncService#drain()} runs as soon as {@code hotel.sync.micro-batch.max-items} confirmations
+ * have arrived or {@code max-wait-ms} has passed since the first one. Drains run one at a time off the
+ * request threads. A drain empties the outbox, so triggers are coalesced: while one runs, any number of
+ * further triggers leave exactly one more drain pending.
+ *
+ * Enabled with {@code hotel.sync.micro-batch.enabled=true}; the 02:00 run stays as a safety sweep for
+ * anything this path missed (events lost on restart). Failed pushes wait out their backoff, so a drain is
+ * also signalled every {@code hotel.sync.retry-sweep-ms} to pick up rows that have become due.
+ */
+@Component
+@ConditionalOnProperty(name = "hotel.sync.micro-batch.enabled", havingValue = "true")
+public class SyncPipeline {
+    private static final Logger log = LoggerFactory.getLogger(SyncPipeline.class);
+
+    private final SyncService syncService;
+    private final int maxItems;
+    private final Duration maxWait;
+    // Confirmations recorded since the last drain started
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Sinks.Many<Boolean> triggers = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable subscription;
+
+    public SyncPipeline(SyncService syncService,
+                        @Value("${hotel.sync.micro-batch.max-items:100}") int maxItems,
+                        @Value("${hotel.sync.micro-batch.max-wait-ms:500}") long maxWaitMs) {
+        this.syncService = syncService;
+        this.maxItems = Math.max(1, maxItems);
+        this.maxWait = Duration.ofMillis(Math.max(1, maxWaitMs));
+    }
+
+    @PostConstruct
+    public void start() {
+        // Without prefetch, concatMap asks for the next trigger only once a drain is done; until then only the latest is kept
+        subscription = triggers.asFlux()
+                .onBackpressureLatest()
+                .concatMap(trigger -> Mono.fromRunnable(this::drain).subscribeOn(Schedulers.boundedElastic()), 0)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) subscription.dispose();
+    }
+
+    // After commit, so the drain can see the rows; fallbackExecution covers writes outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConfirmationsRecorded(ConfirmationsRecordedEvent event) {
+        signal(event.getCount());
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.sync.retry-sweep-ms:60000}", initialDelayString = "${hotel.sync.retry-sweep-ms:60000}")
+    public void sweepDue() {
+        trigger();
+    }
+
+    private void signal(int count) {
+        if (count <= 0) return;
+        int now = pending.addAndGet(count);
+        if (now >= maxItems) {
+            trigger();
+        } else if (now == count) {
+            // First confirmation since the last drain started: drain at the latest after maxWait
+            Schedulers.parallel().schedule(this::trigger, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void trigger() {
+        synchronized (triggers) {
+            triggers.tryEmitNext(Boolean.TRUE);
+        }
+    }
+
+    private void drain() {
+        int signalled = pending.getAndSet(0);
+        try {
+            syncService.drain();
+        } catch (RuntimeException ex) {
+            log.error("Micro-batch sync after {} confirmations failed: {}", signalled, ex.getMessage());
+        }
+    }
+}
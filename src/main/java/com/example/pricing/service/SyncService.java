@@ -1,95 +1,225 @@
 package com.example.pricing.service;
 
 import com.example.pricing.model.PriceConfirmation;
-import com.example.pricing.repository.PriceConfirmationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 public class SyncService {
     private final Logger log = LoggerFactory.getLogger(SyncService.class);
-    private final PriceConfirmationRepository repo;
-    private final RestTemplate restTemplate;
+    private final ConfirmationOutbox outbox;
+    private final HotelApiClient hotelApi;
+    private final int concurrency;
+    private final boolean batchEnabled;
+    private final AdaptiveBatchSize batchSize;
 
-    @Value("${hotel.api.baseUrl:http://localhost:9000}")
-    private String baseUrl;
+    // Set once the API answers the batch endpoint with 404/405; batch mode then falls back to single pushes
+    private volatile boolean batchUnsupported;
 
-    @Value("${hotel.api.apiKey:dev-key}")
-    private String apiKey;
+    @Autowired(required = false)
+    private AdaptiveConcurrency concurrencyControl;
 
-    public SyncService(PriceConfirmationRepository repo) {
-        this.repo = repo;
-        this.restTemplate = new RestTemplate();
+    @Autowired(required = false)
+    private SyncMetrics syncMetrics;
+
+    public SyncService(ConfirmationOutbox outbox,
+                       HotelApiClient hotelApi,
+                       @Value("${hotel.api.concurrency:16}") int concurrency,
+                       @Value("${hotel.api.batch.enabled:false}") boolean batchEnabled,
+                       AdaptiveBatchSize batchSize) {
+        this.outbox = outbox;
+        this.hotelApi = hotelApi;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchEnabled = batchEnabled;
+        this.batchSize = batchSize;
+    }
+
+    // For unit testing: allow explicit injection of concurrency control (can be null)
+    public void setConcurrencyControl(AdaptiveConcurrency concurrencyControl) {
+        this.concurrencyControl = concurrencyControl;
+    }
+
+    // For unit testing: allow explicit injection of sync metrics (can be null)
+    public void setSyncMetrics(SyncMetrics syncMetrics) {
+        this.syncMetrics = syncMetrics;
     }
 
     // run every day at 02:00
+    // With the micro-batch pipeline enabled this is only a safety sweep for whatever it missed
     @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
     public void pushConfirmedPrices() {
-        List<PriceConfirmation> pending = repo.findBySyncedFalse();
-        log.info("Found {} confirmations to push", pending.size());
-        for (PriceConfirmation pc : pending) {
-            try {
-                boolean ok = pushWithRetry(pc, 3);
-                if (ok) {
-                    pc.setSynced(true);
-                    repo.save(pc);
-                }
-                log.info("Synced confirmation id={} productId={}", pc.getId(), pc.getProductId());
-            } catch (Exception ex) {
-                log.error("Failed to sync confirmation id={} productId={}: {}", pc.getId(), pc.getProductId(), ex.getMessage());
+        drain();
+    }
+
+    /**
+     * Claims small leased batches from the outbox until none are left and pushes them. No transaction spans
+     * the HTTP calls, so several instances (or the sweep and the micro-batch pipeline) can drain together.
+     *
+     * @return number of confirmations synced
+     */
+    public int drain() {
+        long start = System.nanoTime();
+        int claimed = 0;
+        int pushed = 0;
+        int skipped = 0;
+        int synced = 0;
+        List<PriceConfirmation> batch;
+        while (true) {
+            // Leave the backlog unclaimed while the hotel API is failing fast, so other runs can pick it up once it recovers
+            if (hotelApi.isCircuitOpen()) {
+                log.info("Hotel API circuit is open; stopping sync run after {} claimed confirmations", claimed);
+                break;
+            }
+            if ((batch = outbox.claim()).isEmpty()) break;
+            claimed += batch.size();
+            // Only the latest row per (productId, currency) is pushed; the superseded ones are synced with it
+            ConfirmationCoalescer.Result coalesced = ConfirmationCoalescer.coalesce(batch);
+            List<PriceConfirmation> latest = coalesced.getLatest();
+            Flux<Map.Entry<Long, PushOutcome>> results = batchEnabled && !batchUnsupported ? pushBatches(latest) : pushEach(latest);
+            Map<Long, PushOutcome> outcomes = results.collectMap(Map.Entry::getKey, Map.Entry::getValue).block();
+            List<Long> done = new ArrayList<>(coalesced.getSuperseded());
+            Map<PriceConfirmation, PushOutcome> failures = new LinkedHashMap<>();
+            for (PriceConfirmation pc : latest) {
+                PushOutcome outcome = outcomes.getOrDefault(pc.getId(), PushOutcome.failed("no_result", "no outcome"));
+                if (outcome.isSynced()) done.add(pc.getId());
+                else failures.put(pc, outcome);
             }
+            pushed += latest.size();
+            skipped += coalesced.getSuperseded().size();
+            synced += done.size();
+            outbox.markSynced(done);
+            if (!failures.isEmpty()) outbox.recordFailures(failures);
         }
+        if (claimed > 0) {
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            if (syncMetrics != null) syncMetrics.recordRun(claimed, synced, pushed, skipped, elapsedMs);
+            log.info("Synced {}/{} claimed confirmations in {} ms ({}/s): {} pushed, {} superseded calls skipped (worker {})",
+                    synced, claimed, elapsedMs, claimed * 1000L / elapsedMs, pushed, skipped, outbox.owner());
+        }
+        return synced;
     }
 
-    private boolean pushWithRetry(PriceConfirmation pc, int maxAttempts) {
-        int attempt = 0;
-        long backoffMs = 500L;
-        while (attempt < maxAttempts) {
-            attempt++;
-            try {
-                boolean ok = callHotelApi(pc);
-                if (ok) return true;
-                Thread.sleep(backoffMs);
-                backoffMs = Math.min(backoffMs * 2, 8000L);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return false;
-            } catch (Exception ex) {
-                log.warn("Attempt {} failed for confirmation id={}: {}", attempt, pc.getId(), ex.getMessage());
-            }
+    // One request per confirmation; emits the outcome per id
+    private Flux<Map.Entry<Long, PushOutcome>> pushEach(List<PriceConfirmation> pending) {
+        return Flux.fromIterable(pending)
+                .flatMap(pc -> timed("single", () -> hotelApi.confirm(pc), List::of)
+                        .map(outcome -> {
+                            if (outcome.isSynced()) log.debug("Synced confirmation id={} productId={}", pc.getId(), pc.getProductId());
+                            return Map.entry(pc.getId(), outcome);
+                        }), maxConcurrency());
+    }
+
+    // Batches are cut lazily, so each one takes the size the previous results have adapted to
+    private Flux<Map.Entry<Long, PushOutcome>> pushBatches(List<PriceConfirmation> pending) {
+        return Flux.fromIterable(() -> new BatchIterator(pending.iterator()))
+                .flatMap(this::pushBatch, maxConcurrency());
+    }
+
+    // Deferred, so the fallback and ceiling checks see what earlier batches (or halves) have learned
+    private Flux<Map.Entry<Long, PushOutcome>> pushBatch(List<PriceConfirmation> batch) {
+        return Flux.defer(() -> pushBatchNow(batch));
+    }
+
+    private Flux<Map.Entry<Long, PushOutcome>> pushBatchNow(List<PriceConfirmation> batch) {
+        if (batchUnsupported) return pushEach(batch);
+        // A batch cut before the last 413 may still exceed the lowered ceiling
+        int max = batchSize.maxSize();
+        if (batch.size() > max) return Flux.concat(pushBatch(batch.subList(0, max)), pushBatch(batch.subList(max, batch.size())));
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return timed("batch", () -> hotelApi.confirmBatch(batch), Map::values).doOnNext(results -> {
+                        long failed = results.values().stream().filter(outcome -> !outcome.isSynced()).count();
+                        batchSize.record((System.nanoTime() - start) / 1_000_000, (double) failed / batch.size());
+                    });
+                })
+                .flatMapMany(results -> {
+                    if (refusedWith(results, "http_413")) {
+                        // Too large for the API: cap the adaptive size below it and push the two halves instead
+                        batchSize.tooLarge(batch.size());
+                        int half = batch.size() / 2;
+                        log.info("Hotel API refused a batch of {} as too large; splitting, batch size now at most {}",
+                                batch.size(), batchSize.maxSize());
+                        return Flux.concat(pushBatch(batch.subList(0, half)), pushBatch(batch.subList(half, batch.size())));
+                    }
+                    if (refusedWith(results, "http_404") || refusedWith(results, "http_405")) {
+                        if (!batchUnsupported) log.warn("Hotel API has no batch endpoint; falling back to single-item pushes");
+                        batchUnsupported = true;
+                        return pushEach(batch);
+                    }
+                    return Flux.fromIterable(results.entrySet());
+                });
+    }
+
+    // The batch request itself was refused with this cause (every item carries it)
+    private static boolean refusedWith(Map<Long, PushOutcome> results, String cause) {
+        if (results.isEmpty()) return false;
+        for (PushOutcome outcome : results.values()) {
+            if (outcome.getStatus() != PushOutcome.Status.FAILED || !cause.equals(outcome.getCause())) return false;
         }
-        return false;
+        return true;
+    }
+
+    // An answer from the API, even a rejection, shows it is keeping up; failures and open-circuit skips do not
+    private static boolean healthy(PushOutcome outcome) {
+        return outcome.getStatus() == PushOutcome.Status.SYNCED || outcome.getStatus() == PushOutcome.Status.REJECTED;
+    }
+
+    // Through the concurrency limit, which counts a call as healthy if any of its items got an answer
+    private <T> Mono<T> timed(String mode, Supplier<Mono<T>> call, Function<T, Collection<PushOutcome>> outcomes) {
+        return limited(() -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            Mono<T> result = call.get();
+            return syncMetrics == null ? result
+                    : result.doOnNext(value -> syncMetrics.recordPush(mode, System.nanoTime() - start, outcomes.apply(value)));
+        }), value -> outcomes.apply(value).stream().anyMatch(SyncService::healthy));
+    }
+
+    // With concurrency control the flatMap bound is only the ceiling; the adaptive limit gates the calls beneath it
+    private <T> Mono<T> limited(Supplier<Mono<T>> call, Predicate<T> succeeded) {
+        AdaptiveConcurrency control = concurrencyControl;
+        return control == null ? call.get() : control.run(call, succeeded);
     }
 
-    private boolean callHotelApi(PriceConfirmation pc) {
-        String url = baseUrl + "/prices/confirm";
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("x-api-key", apiKey);
-            java.util.Map<String, Object> body = java.util.Map.of(
-                    "productId", pc.getProductId(),
-                    "action", pc.getAction(),
-                    "price", pc.getConfirmedValue(),
-                    "currency", pc.getCurrency(),
-                    "userId", pc.getUserId(),
-                    "confirmedAt", pc.getConfirmedAt().toString()
-            );
-            HttpEntity<java.util.Map<String, Object>> entity = new HttpEntity<>(body, headers);
-            ResponseEntity<String> resp = restTemplate.postForEntity(url, entity, String.class);
-            return resp.getStatusCode().is2xxSuccessful();
-        } catch (Exception ex) {
-            log.error("callHotelApi failed for confirmation id={}: {}", pc.getId(), ex.getMessage());
-            return false;
+    private int maxConcurrency() {
+        return concurrencyControl == null ? concurrency : concurrencyControl.max();
+    }
+
+    private final class BatchIterator implements Iterator<List<PriceConfirmation>> {
+        private final Iterator<PriceConfirmation> source;
+
+        BatchIterator(Iterator<PriceConfirmation> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public List<PriceConfirmation> next() {
+            if (!source.hasNext()) throw new NoSuchElementException();
+            int size = batchSize.current();
+            List<PriceConfirmation> batch = new ArrayList<>(size);
+            while (batch.size() < size && source.hasNext()) batch.add(source.next());
+            return batch;
         }
     }
 }
@@ -0,0 +1,2 @@
+-- Sync lag polling: backlog size and oldest pending confirmation read from the index alone
+CREATE INDEX idx_price_confirmations_backlog ON price_confirmations (synced, dead_lettered, confirmed_at);
@@ -0,0 +1,3 @@
+-- Outbox claims look up other confirmations of the same product/currency: newer rows supersede a claimed
+-- one, and a row is not claimed while an older one of its key is leased
+CREATE INDEX idx_price_confirmations_key ON price_confirmations (product_id, currency, confirmed_at, id);
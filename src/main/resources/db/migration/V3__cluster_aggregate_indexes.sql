@@ -0,0 +1,5 @@
+-- Cluster lookups filter products on all five cluster attributes
+CREATE INDEX idx_products_cluster ON products (arrival_date, room_type, no_of_beds, grade, private_pool);
+
+-- Covering index for per-cluster booking aggregates (join on product_id, group by arrival_date)
+CREATE INDEX idx_bookings_product_arrival ON bookings (product_id, arrival_date, nights, price_paid);
@@ -0,0 +1,23 @@
+-- Cluster dictionary: integer id per distinct (arrival_date, room_type, no_of_beds, grade, private_pool)
+CREATE TABLE IF NOT EXISTS product_clusters (
+  id INT AUTO_INCREMENT PRIMARY KEY,
+  arrival_date DATE,
+  room_type VARCHAR(64),
+  no_of_beds INT,
+  grade INT,
+  private_pool BOOLEAN,
+  CONSTRAINT uk_product_clusters_key UNIQUE (arrival_date, room_type, no_of_beds, grade, private_pool)
+);
+
+ALTER TABLE products ADD COLUMN cluster_id INT;
+ALTER TABLE products ADD CONSTRAINT fk_products_cluster FOREIGN KEY (cluster_id) REFERENCES product_clusters(id);
+CREATE INDEX idx_products_cluster_id ON products (cluster_id);
+
+-- Backfill for products loaded before the dictionary existed
+INSERT INTO product_clusters (arrival_date, room_type, no_of_beds, grade, private_pool)
+SELECT DISTINCT arrival_date, room_type, no_of_beds, grade, private_pool FROM products;
+
+UPDATE products p JOIN product_clusters c
+  ON c.arrival_date <=> p.arrival_date AND c.room_type <=> p.room_type AND c.no_of_beds <=> p.no_of_beds
+  AND c.grade <=> p.grade AND c.private_pool <=> p.private_pool
+SET p.cluster_id = c.id;
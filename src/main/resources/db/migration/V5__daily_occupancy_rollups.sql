@@ -0,0 +1,17 @@
+-- Daily occupancy per arrival date for buildings and clusters, rebuilt by the ingest jobs
+CREATE TABLE IF NOT EXISTS daily_occupancy_rollups (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  rollup_date DATE NOT NULL,
+  scope VARCHAR(16) NOT NULL,
+  scope_id VARCHAR(64) NOT NULL,
+  bookings BIGINT,
+  room_nights BIGINT,
+  products_available BIGINT,
+  revenue DOUBLE,
+  refreshed_at TIMESTAMP,
+  CONSTRAINT uk_daily_occupancy_rollups UNIQUE (scope, scope_id, rollup_date)
+);
+CREATE INDEX idx_daily_occupancy_rollups_date ON daily_occupancy_rollups (rollup_date);
+
+-- Date-range scans of bookings during rollup refresh
+CREATE INDEX idx_bookings_arrival ON bookings (arrival_date, product_id, nights, price_paid);
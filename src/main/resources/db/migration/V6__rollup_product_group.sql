@@ -0,0 +1,4 @@
+-- BUILDING_GROUP rollups split a building's day by product group; '' for the other scopes
+ALTER TABLE daily_occupancy_rollups ADD COLUMN product_group VARCHAR(64) NOT NULL DEFAULT '' AFTER scope_id;
+ALTER TABLE daily_occupancy_rollups DROP INDEX uk_daily_occupancy_rollups;
+ALTER TABLE daily_occupancy_rollups ADD CONSTRAINT uk_daily_occupancy_rollups UNIQUE (scope, scope_id, product_group, rollup_date);
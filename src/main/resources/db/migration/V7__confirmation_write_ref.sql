@@ -0,0 +1,4 @@
+-- Idempotency key for write-behind confirmations: replaying the local log after a crash
+-- inserts each confirmation at most once (INSERT ... ON DUPLICATE KEY UPDATE write_ref = write_ref on the unique key)
+ALTER TABLE price_confirmations ADD COLUMN write_ref VARCHAR(36);
+ALTER TABLE price_confirmations ADD CONSTRAINT uk_price_confirmations_write_ref UNIQUE (write_ref);
@@ -0,0 +1,5 @@
+-- Sync outbox: a worker leases unsynced confirmations before pushing them, so several
+-- instances can share the backlog (claimed with SELECT ... FOR UPDATE SKIP LOCKED)
+ALTER TABLE price_confirmations ADD COLUMN lease_owner VARCHAR(64);
+ALTER TABLE price_confirmations ADD COLUMN lease_until TIMESTAMP NULL;
+CREATE INDEX idx_price_confirmations_outbox ON price_confirmations (synced, lease_until, id);
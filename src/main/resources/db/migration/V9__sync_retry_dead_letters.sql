@@ -0,0 +1,21 @@
+-- Per-row retry state for the sync outbox: failed pushes are retried with exponential backoff
+-- (next_attempt_at) and moved to sync_dead_letters once rejected or out of attempts
+ALTER TABLE price_confirmations ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE price_confirmations ADD COLUMN last_error VARCHAR(500);
+ALTER TABLE price_confirmations ADD COLUMN next_attempt_at TIMESTAMP NULL;
+ALTER TABLE price_confirmations ADD COLUMN dead_lettered BOOLEAN NOT NULL DEFAULT FALSE;
+DROP INDEX idx_price_confirmations_outbox ON price_confirmations;
+CREATE INDEX idx_price_confirmations_outbox ON price_confirmations (synced, dead_lettered, next_attempt_at, id);
+
+CREATE TABLE IF NOT EXISTS sync_dead_letters (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  confirmation_id BIGINT NOT NULL,
+  product_id VARCHAR(64),
+  currency VARCHAR(8),
+  attempts INT NOT NULL,
+  last_error VARCHAR(500),
+  dead_lettered_at TIMESTAMP NOT NULL,
+  replayed_at TIMESTAMP NULL
+);
+CREATE INDEX idx_sync_dead_letters_open ON sync_dead_letters (replayed_at, id);
+CREATE INDEX idx_sync_dead_letters_confirmation ON sync_dead_letters (confirmation_id);
@@ -0,0 +1,42 @@
+package com.example.pricing;
+
+import com.example.pricing.service.AdaptiveBatchSize;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizeTest {
+
+    @Test
+    void testFastCleanBatches_GrowAdditivelyUpToMax() {
+        // Arrange
+        AdaptiveBatchSize size = new AdaptiveBatchSize(10, 60, 20, 15, 500, 0.05);
+
+        // Act
+        size.record(100, 0.0);
+        int afterOne = size.current();
+        for (int i = 0; i < 10; i++) size.record(100, 0.01);
+
+        // Assert
+        assertEquals(35, afterOne);
+        assertEquals(60, size.current());
+    }
+
+    @Test
+    void testSlowOrFailingBatches_HalveDownToMin() {
+        // Arrange
+        AdaptiveBatchSize size = new AdaptiveBatchSize(10, 500, 200, 10, 500, 0.05);
+
+        // Act
+        size.record(900, 0.0);
+        int afterSlow = size.current();
+        size.record(100, 0.5);
+        int afterErrors = size.current();
+        for (int i = 0; i < 10; i++) size.record(100, 1.0);
+
+        // Assert
+        assertEquals(100, afterSlow);
+        assertEquals(50, afterErrors);
+        assertEquals(10, size.current());
+    }
+}
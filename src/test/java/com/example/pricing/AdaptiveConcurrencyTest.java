@@ -0,0 +1,55 @@
+package com.example.pricing;
+
+import com.example.pricing.service.AdaptiveConcurrency;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyTest {
+
+    @Test
+    void testLimit_GatesCallsBelowFlatMapConcurrency() {
+        // Arrange
+        AdaptiveConcurrency control = new AdaptiveConcurrency(1, 16, 3, 10_000);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        // Act
+        Flux.range(0, 30)
+                .flatMap(i -> control.run(() -> Mono.fromCallable(() -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .delayElement(Duration.ofMillis(5))
+                        .doFinally(s -> inFlight.decrementAndGet()), v -> true), control.max())
+                .blockLast(Duration.ofSeconds(10));
+
+        // Assert: starts at 3 and grows by one per full round of fast successes
+        assertTrue(maxInFlight.get() >= 3 && maxInFlight.get() <= control.limit(), "max in flight: " + maxInFlight.get());
+        assertTrue(control.limit() > 3, "limit: " + control.limit());
+        assertEquals(0, control.inFlight());
+    }
+
+    @Test
+    void testFailures_HalveLimitOncePerLatencyWindow() {
+        // Arrange
+        AdaptiveConcurrency control = new AdaptiveConcurrency(2, 32, 16, 10_000);
+
+        // Act: a burst of failures from the same round
+        Flux.range(0, 8)
+                .flatMap(i -> control.run(() -> Mono.just(false), ok -> ok), 8)
+                .blockLast(Duration.ofSeconds(5));
+        int afterFailures = control.limit();
+        Flux.range(0, 2)
+                .flatMap(i -> control.run(() -> Mono.<Boolean>error(new IllegalStateException("down")), ok -> ok)
+                        .onErrorReturn(false), 2)
+                .blockLast(Duration.ofSeconds(5));
+
+        // Assert
+        assertEquals(8, afterFailures);
+        assertEquals(8, control.limit());
+        assertEquals(0, control.inFlight());
+    }
+}
@@ -2,8 +2,11 @@ package com.example.pricing;
 
 import com.example.pricing.controller.AlgorithmConfigController;
 import com.example.pricing.model.User;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.ProductRepository;
 import com.example.pricing.repository.UserRepository;
 import com.example.pricing.service.AlgorithmConfigService;
+import com.example.pricing.service.AuthorizationCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
@@ -27,7 +30,8 @@ class AlgorithmConfigControllerTest {
     void setUp() {
         algorithmConfigService = mock(AlgorithmConfigService.class);
         userRepository = mock(UserRepository.class);
-        controller = new AlgorithmConfigController(algorithmConfigService, userRepository);
+        controller = new AlgorithmConfigController(algorithmConfigService,
+                new AuthorizationCache(userRepository, mock(ProductRepository.class), mock(BuildingRepository.class), 5, 1000));
     }
 
     @Test
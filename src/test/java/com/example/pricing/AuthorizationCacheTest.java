@@ -0,0 +1,166 @@
+package com.example.pricing;
+
+import com.example.pricing.config.IngestCompletedEvent;
+import com.example.pricing.model.Building;
+import com.example.pricing.model.Product;
+import com.example.pricing.model.User;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.UserRepository;
+import com.example.pricing.service.AuthorizationCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthorizationCacheTest {
+
+    private UserRepository userRepo;
+    private ProductRepository productRepo;
+    private BuildingRepository buildingRepo;
+    private AuthorizationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepository.class);
+        productRepo = mock(ProductRepository.class);
+        buildingRepo = mock(BuildingRepository.class);
+        cache = new AuthorizationCache(userRepo, productRepo, buildingRepo, 5, 1000);
+    }
+
+    @Test
+    void testGrant_ReadThroughThenServedFromMemory() {
+        // Arrange
+        when(userRepo.findById("RM1")).thenReturn(Optional.of(user("RM1", "REGIONAL_MANAGER", "EMEA")));
+
+        // Act
+        cache.grant("RM1");
+        AuthorizationCache.Grant grant = cache.grant("RM1").orElseThrow();
+
+        // Assert
+        assertEquals("REGIONAL_MANAGER", grant.getRole());
+        assertEquals("EMEA", grant.getRegion());
+        verify(userRepo, times(1)).findById("RM1");
+    }
+
+    @Test
+    void testGrant_ExpiredEntryReloaded() {
+        // Arrange - demoted outside this instance (e.g. by the ETL), so no eviction event arrives
+        AtomicLong now = new AtomicLong();
+        cache.setTicker(now::get);
+        when(userRepo.findById("ADMIN1"))
+                .thenReturn(Optional.of(user("ADMIN1", "ADMIN", null)))
+                .thenReturn(Optional.of(user("ADMIN1", "PRICING_MANAGER", null)));
+        cache.grant("ADMIN1");
+
+        // Act
+        now.addAndGet(TimeUnit.MINUTES.toNanos(4));
+        String beforeExpiry = cache.grant("ADMIN1").orElseThrow().getRole();
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        String afterExpiry = cache.grant("ADMIN1").orElseThrow().getRole();
+
+        // Assert
+        assertEquals("ADMIN", beforeExpiry);
+        assertEquals("PRICING_MANAGER", afterExpiry);
+        verify(userRepo, times(2)).findById("ADMIN1");
+    }
+
+    @Test
+    void testGrant_FullCacheServesUncached() {
+        // Arrange
+        AuthorizationCache small = new AuthorizationCache(userRepo, productRepo, buildingRepo, 5, 1);
+        when(userRepo.findById("U1")).thenReturn(Optional.of(user("U1", "ADMIN", null)));
+        when(userRepo.findById("U2")).thenReturn(Optional.of(user("U2", "ADMIN", null)));
+        small.grant("U1");
+
+        // Act
+        small.grant("U2");
+        small.grant("U2");
+        small.grant("U1");
+
+        // Assert
+        verify(userRepo, times(1)).findById("U1");
+        verify(userRepo, times(2)).findById("U2");
+    }
+
+    @Test
+    void testEvictUser_NextLookupReloads() {
+        // Arrange
+        when(userRepo.findById("RM1"))
+                .thenReturn(Optional.of(user("RM1", "REGIONAL_MANAGER", "EMEA")))
+                .thenReturn(Optional.of(user("RM1", "REGIONAL_MANAGER", "APAC")));
+        cache.grant("RM1");
+
+        // Act
+        cache.evictUser("RM1");
+        AuthorizationCache.Grant grant = cache.grant("RM1").orElseThrow();
+
+        // Assert
+        assertEquals("APAC", grant.getRegion());
+        verify(userRepo, times(2)).findById("RM1");
+    }
+
+    @Test
+    void testPreloadProducts_TwoInQueriesThenNoRoundTrips() {
+        // Arrange
+        Product p1 = product("P1", "B1");
+        Product p2 = product("P2", "B1");
+        Building b1 = new Building();
+        b1.setId("B1");
+        b1.setRegion("EMEA");
+        when(productRepo.findAllById(any())).thenReturn(List.of(p1, p2));
+        when(buildingRepo.findAllById(any())).thenReturn(List.of(b1));
+
+        // Act
+        cache.preloadProducts(List.of("P1", "P2"));
+        String buildingId = cache.product("P2").orElseThrow().getBuildingId();
+        String region = cache.building(buildingId).orElseThrow().getRegion();
+        cache.preloadProducts(List.of("P1", "P2"));
+
+        // Assert
+        assertEquals("EMEA", region);
+        verify(productRepo, times(1)).findAllById(any());
+        verify(buildingRepo, times(1)).findAllById(any());
+        verify(productRepo, never()).findById(any());
+        verify(buildingRepo, never()).findById(any());
+    }
+
+    @Test
+    void testProductIngest_DropsProductAndBuildingEntriesOnly() {
+        // Arrange
+        when(userRepo.findById("U1")).thenReturn(Optional.of(user("U1", "ADMIN", null)));
+        when(productRepo.findById("P1")).thenReturn(Optional.of(product("P1", "B1")));
+        cache.grant("U1");
+        cache.product("P1");
+
+        // Act
+        cache.onIngestCompleted(new IngestCompletedEvent("productIngestJob"));
+        cache.grant("U1");
+        cache.product("P1");
+
+        // Assert
+        verify(userRepo, times(1)).findById("U1");
+        verify(productRepo, times(2)).findById("P1");
+    }
+
+    private static User user(String id, String role, String region) {
+        User u = new User();
+        u.setId(id);
+        u.setRole(role);
+        u.setRegion(region);
+        return u;
+    }
+
+    private static Product product(String id, String buildingId) {
+        Product p = new Product();
+        p.setId(id);
+        p.setBuildingId(buildingId);
+        return p;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.pricing;
+
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.repository.ProductClusterRepository;
+import com.example.pricing.service.ClusteringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ClusteringServiceTest {
+
+    private ProductClusterRepository clusterRepo;
+    private BookingRepository bookingRepo;
+    private ClusteringService clusteringService;
+
+    @BeforeEach
+    void setUp() {
+        clusterRepo = mock(ProductClusterRepository.class);
+        bookingRepo = mock(BookingRepository.class);
+        clusteringService = new ClusteringService(clusterRepo, bookingRepo);
+    }
+
+    @Test
+    void testBookingsForCluster_JoinsOnClusterId() {
+        // Arrange
+        LocalDate arrival = LocalDate.of(2025, 5, 10);
+        com.example.pricing.model.Booking booking = new com.example.pricing.model.Booking();
+        booking.setId("BKG1");
+        when(clusterRepo.findClusterId(arrival, "Double", 2, 3, false)).thenReturn(Optional.of(7));
+        when(bookingRepo.findByClusterId(7)).thenReturn(List.of(booking));
+
+        // Act
+        List<com.example.pricing.model.Booking> result = clusteringService.bookingsForCluster(arrival, "Double", 2, 3, false);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("BKG1", result.get(0).getId());
+        verify(bookingRepo, never()).findByProductIdIn(any());
+    }
+
+    @Test
+    void testBookingsForCluster_UnknownCluster_ReturnsEmpty() {
+        // Arrange
+        when(clusterRepo.findClusterId(any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+
+        // Act
+        List<com.example.pricing.model.Booking> result = clusteringService.bookingsForCluster(null, "Suite", 3, 4, true);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(bookingRepo, never()).findByClusterId(any());
+    }
+
+    @Test
+    void testRefreshClusterDictionary_InsertsKeysThenAssignsProducts() {
+        // Arrange
+        when(clusterRepo.assignProductClusters()).thenReturn(12);
+
+        // Act
+        int assigned = clusteringService.refreshClusterDictionary();
+
+        // Assert
+        assertEquals(12, assigned);
+        var inOrder = inOrder(clusterRepo);
+        inOrder.verify(clusterRepo).insertMissingClusters();
+        inOrder.verify(clusterRepo).assignProductClusters();
+    }
+
+    @Test
+    void testClusterStats_FoldsDailyRowsIntoTotals() {
+        // Arrange
+        LocalDate arrival = LocalDate.of(2025, 5, 10);
+        BookingRepository.DailyClusterStats day1 = day(LocalDate.of(2025, 5, 10), 3, 3, 6, 330.0, 100.0, 120.0);
+        BookingRepository.DailyClusterStats day2 = day(LocalDate.of(2025, 5, 11), 1, 1, 2, 150.0, 150.0, 150.0);
+        when(clusterRepo.findClusterId(arrival, "Double", 2, 3, false)).thenReturn(Optional.of(7));
+        when(bookingRepo.dailyStatsForCluster(7)).thenReturn(Arrays.asList(day1, day2));
+        // 4 priced bookings -> nearest ranks p25=1, p50=2, p75=3, p90=4
+        when(bookingRepo.pricePaidAtRanksForCluster(eq(7), anyList()))
+                .thenReturn(Arrays.asList(
+                        new Object[]{1L, 100.0},
+                        new Object[]{2L, 110.0},
+                        new Object[]{3L, 120.0},
+                        new Object[]{4L, 150.0}));
+
+        // Act
+        ClusteringService.ClusterStats stats = clusteringService.clusterStats(arrival, "Double", 2, 3, false);
+
+        // Assert
+        assertEquals(4, stats.getBookings());
+        assertEquals(8, stats.getRoomNights());
+        assertEquals(120.0, stats.getMeanPaid(), 1e-9);
+        assertEquals(100.0, stats.getMinPaid());
+        assertEquals(150.0, stats.getMaxPaid());
+        assertEquals(110.0, stats.getPricePaidQuantiles().get("p50"));
+        assertEquals(150.0, stats.getPricePaidQuantiles().get("p90"));
+        assertEquals(2, stats.getDaily().size());
+        assertEquals(LocalDate.of(2025, 5, 11), stats.getDaily().get(1).getDate());
+        verify(bookingRepo, never()).findByProductIdIn(any());
+    }
+
+    @Test
+    void testClusterStats_EmptyCluster_SkipsQuantileQuery() {
+        // Arrange
+        when(clusterRepo.findClusterId(null, "Suite", 3, 4, true)).thenReturn(Optional.of(9));
+        when(bookingRepo.dailyStatsForCluster(9)).thenReturn(List.of());
+
+        // Act
+        ClusteringService.ClusterStats stats = clusteringService.clusterStats(null, "Suite", 3, 4, true);
+
+        // Assert
+        assertEquals(0, stats.getBookings());
+        assertNull(stats.getMeanPaid());
+        assertTrue(stats.getPricePaidQuantiles().isEmpty());
+        verify(bookingRepo, never()).pricePaidAtRanksForCluster(any(), anyList());
+    }
+
+    private static BookingRepository.DailyClusterStats day(LocalDate date, long bookings, long priced, long nights,
+                                                           double revenue, double min, double max) {
+        BookingRepository.DailyClusterStats d = mock(BookingRepository.DailyClusterStats.class);
+        when(d.getDay()).thenReturn(date);
+        when(d.getBookings()).thenReturn(bookings);
+        when(d.getPricedBookings()).thenReturn(priced);
+        when(d.getRoomNights()).thenReturn(nights);
+        when(d.getRevenue()).thenReturn(revenue);
+        when(d.getMinPaid()).thenReturn(min);
+        when(d.getMaxPaid()).thenReturn(max);
+        return d;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.pricing;
+
+import com.example.pricing.model.PriceRecommendation;
+import com.example.pricing.model.User;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.PriceRecommendationRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.UserRepository;
+import com.example.pricing.service.AuthorizationCache;
+import com.example.pricing.service.ConfirmationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Throughput of {@code ConfirmationService.confirm} at 1/8/64 threads with the per-product striped locks,
+ * against repositories that charge a fixed round-trip latency and a transaction manager that holds one of
+ * {@value #POOL_SIZE} pooled connections per transaction (Hikari's default pool size). "hot" confirms 4 products
+ * over and over (same-product work is serialized), "spread" picks from 100k products (unrelated products run
+ * in parallel), "mixed" runs half the threads on each; in "mixed" the spread threads should keep their
+ * throughput, since threads queued on a hot product wait for the lock before taking a connection.
+ * Run with: mvn test -Pbenchmark -Dtest=ConfirmationContentionBenchmark
+ */
+class ConfirmationContentionBenchmark {
+
+    private static final long READ_NANOS = 200_000;  // recommendation lookup
+    private static final long WRITE_NANOS = 300_000; // confirmation insert
+    private static final int OPS_PER_THREAD = 200;
+    private static final int POOL_SIZE = 10;
+    private static final int HOT = 4;
+    private static final int SPREAD = 100_000;
+
+    @Test
+    void hotVersusSpreadProducts() throws Exception {
+        ConfirmationService service = newService();
+
+        System.out.printf("%-8s %8s %10s %10s %12s%n", "keys", "threads", "ops", "ms", "ops/s");
+        for (String keys : new String[]{"hot", "spread", "mixed"}) {
+            for (int threads : new int[]{1, 8, 64}) {
+                run(service, keys, threads);
+            }
+        }
+    }
+
+    private static void run(ConfirmationService service, String keys, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int products = "hot".equals(keys) || ("mixed".equals(keys) && t % 2 == 0) ? HOT : SPREAD;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        String productId = "P" + ThreadLocalRandom.current().nextInt(products);
+                        service.confirm(productId, "OVERRIDE", BigDecimal.valueOf(105), "EUR", "U1");
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            long ops = (long) threads * OPS_PER_THREAD;
+            System.out.printf("%-8s %8d %10d %10d %12d%n", keys, threads, ops, ms, ops * 1000 / ms);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ConfirmationService newService() {
+        PriceConfirmationRepository confirmationRepo = mock(PriceConfirmationRepository.class, withSettings().stubOnly());
+        PriceRecommendationRepository recommendationRepo = mock(PriceRecommendationRepository.class, withSettings().stubOnly());
+        UserRepository userRepo = mock(UserRepository.class, withSettings().stubOnly());
+
+        User admin = new User();
+        admin.setId("U1");
+        admin.setRole("ADMIN");
+        PriceRecommendation last = new PriceRecommendation();
+        last.setRecommendedValue(BigDecimal.valueOf(100));
+        when(userRepo.findById("U1")).thenReturn(Optional.of(admin));
+        when(recommendationRepo.findFirstByProductIdOrderByRecommendedAtDesc(anyString())).thenAnswer(inv -> {
+            LockSupport.parkNanos(READ_NANOS);
+            return Optional.of(last);
+        });
+        when(confirmationRepo.save(any())).thenAnswer(inv -> {
+            LockSupport.parkNanos(WRITE_NANOS);
+            return inv.getArgument(0);
+        });
+        return new ConfirmationService(confirmationRepo, recommendationRepo,
+                new AuthorizationCache(userRepo, mock(ProductRepository.class, withSettings().stubOnly()),
+                        mock(BuildingRepository.class, withSettings().stubOnly()), 5, 1000),
+                new PooledTransactionManager(POOL_SIZE), 64);
+    }
+
+    // Stands in for JpaTransactionManager over a connection pool: a transaction holds a connection from begin to completion
+    private static final class PooledTransactionManager extends AbstractPlatformTransactionManager {
+        private final Semaphore connections;
+
+        PooledTransactionManager(int poolSize) {
+            this.connections = new Semaphore(poolSize, true);
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            connections.acquireUninterruptibly();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            connections.release();
+        }
+    }
+}
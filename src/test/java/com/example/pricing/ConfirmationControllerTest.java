@@ -0,0 +1,56 @@
+package com.example.pricing;
+
+import com.example.pricing.controller.ConfirmationController;
+import com.example.pricing.model.User;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.PriceRecommendationRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.repository.UserRepository;
+import com.example.pricing.service.AuthorizationCache;
+import com.example.pricing.service.ConfirmationService;
+import com.example.pricing.service.ConfirmationUploadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConfirmationControllerTest {
+
+    @Test
+    void testConfirmBatch_DatabaseFailureReportedPerItem() {
+        // Arrange
+        PriceConfirmationRepository confirmationRepo = mock(PriceConfirmationRepository.class);
+        UserRepository userRepo = mock(UserRepository.class);
+        User admin = new User();
+        admin.setId("ADMIN001");
+        admin.setRole("ADMIN");
+        when(userRepo.findAllById(any())).thenReturn(List.of(admin));
+        when(confirmationRepo.insertAll(any())).thenThrow(new DataAccessResourceFailureException(
+            "Could not insert", new SQLException("Communications link failure")));
+        ConfirmationService service = new ConfirmationService(confirmationRepo, mock(PriceRecommendationRepository.class),
+            new AuthorizationCache(userRepo, mock(ProductRepository.class), mock(BuildingRepository.class), 5, 1000),
+            mock(PlatformTransactionManager.class), 64);
+        ConfirmationController controller = new ConfirmationController(service, mock(ConfirmationUploadService.class));
+
+        // Act
+        List<Map<String, Object>> results = controller.confirmBatch(List.of(
+            Map.of("productId", "P1", "action", "ACCEPT", "price", "100", "currency", "USD", "userId", "ADMIN001"),
+            Map.of("productId", "P2", "action", "OVERRIDE", "price", "abc", "currency", "USD", "userId", "ADMIN001"),
+            Map.of("productId", "P3", "action", "ACCEPT", "price", "90", "currency", "USD", "userId", "ADMIN001")
+        ));
+
+        // Assert
+        assertEquals(List.of("P1", "P2", "P3"), results.stream().map(r -> r.get("productId")).toList());
+        assertTrue(results.stream().allMatch(r -> "failed".equals(r.get("status"))));
+        assertEquals("Not persisted: Communications link failure", results.get(0).get("error"));
+        assertEquals("Not persisted: Communications link failure", results.get(2).get("error"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.pricing;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.example.pricing.model.SyncDeadLetter;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.SyncDeadLetterRepository;
+import com.example.pricing.service.ConfirmationOutbox;
+import com.example.pricing.service.PushOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ConfirmationOutboxTest {
+
+    private PriceConfirmationRepository repo;
+    private SyncDeadLetterRepository deadLetterRepo;
+    private PlatformTransactionManager transactionManager;
+    private ConfirmationOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(PriceConfirmationRepository.class);
+        deadLetterRepo = mock(SyncDeadLetterRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        outbox = new ConfirmationOutbox(repo, deadLetterRepo, transactionManager, 50, 120, 8, 60, 3_600);
+    }
+
+    @Test
+    void testClaim_LeasesToThisWorkerInItsOwnTransaction() {
+        // Arrange
+        PriceConfirmation pc = new PriceConfirmation();
+        pc.setId(7L);
+        when(repo.claimPending(anyString(), anyInt(), any(), any())).thenReturn(List.of(pc));
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+
+        // Act
+        List<PriceConfirmation> claimed = outbox.claim();
+
+        // Assert
+        assertEquals(List.of(pc), claimed);
+        verify(repo).claimPending(eq(outbox.owner()), eq(50), now.capture(), until.capture());
+        assertEquals(Duration.ofSeconds(120), Duration.between(now.getValue(), until.getValue()));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testMarkSynced_OneShortTransactionPerChunk() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 2_500; i++) ids.add(i);
+
+        // Act
+        outbox.markSynced(ids);
+
+        // Assert
+        verify(repo, times(3)).markSynced(anyCollection());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordFailures_BacksOffOrDeadLetters() {
+        // Arrange
+        Map<PriceConfirmation, PushOutcome> failures = new LinkedHashMap<>();
+        failures.put(pending(1L, 0), PushOutcome.failed("http_503", "HTTP 503"));
+        failures.put(pending(2L, 6), PushOutcome.failed("timeout", "timeout"));
+        failures.put(pending(3L, 7), PushOutcome.failed("http_503", "HTTP 503"));
+        failures.put(pending(4L, 0), PushOutcome.rejected("http_400", "HTTP 400 BAD_REQUEST"));
+        failures.put(pending(5L, 2), PushOutcome.skipped("Hotel API circuit is open"));
+        ArgumentCaptor<List<PriceConfirmation>> updates = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<SyncDeadLetter>> letters = ArgumentCaptor.forClass(List.class);
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        outbox.recordFailures(failures);
+
+        // Assert
+        verify(repo).recordFailures(updates.capture());
+        verify(deadLetterRepo).saveAll(letters.capture());
+        verify(transactionManager, times(1)).commit(any());
+        List<PriceConfirmation> rows = updates.getValue();
+        assertEquals(1, rows.get(0).getAttempts());
+        assertBackoff(before, rows.get(0), 60);
+        assertEquals(7, rows.get(1).getAttempts());
+        assertBackoff(before, rows.get(1), 3_600); // 60 * 2^6 capped at an hour
+        assertTrue(rows.get(2).getDeadLettered());
+        assertTrue(rows.get(3).getDeadLettered());
+        assertEquals(1, rows.get(3).getAttempts());
+        assertEquals(2, rows.get(4).getAttempts());
+        assertNull(rows.get(4).getNextAttemptAt());
+        assertFalse(rows.get(4).getDeadLettered());
+        assertEquals(List.of(3L, 4L), letters.getValue().stream().map(SyncDeadLetter::getConfirmationId).toList());
+        assertEquals("HTTP 400 BAD_REQUEST", letters.getValue().get(1).getLastError());
+    }
+
+    @Test
+    void testReplay_RequeuesConfirmationsAndClosesDeadLetters() {
+        // Arrange
+        SyncDeadLetter letter = new SyncDeadLetter();
+        letter.setId(11L);
+        letter.setConfirmationId(3L);
+        when(deadLetterRepo.findByIdInAndReplayedAtIsNull(List.of(11L))).thenReturn(List.of(letter));
+        when(repo.requeue(List.of(3L))).thenReturn(1);
+
+        // Act
+        ConfirmationOutbox.Replay replayed = outbox.replay(List.of(11L));
+
+        // Assert
+        assertEquals(1, replayed.getRequeued());
+        assertEquals(0, replayed.getSuperseded());
+        assertNotNull(letter.getReplayedAt());
+        verify(deadLetterRepo).saveAll(List.of(letter));
+        verify(repo).requeue(List.of(3L));
+    }
+
+    @Test
+    void testReplay_SupersededConfirmationClosedNotRequeued() {
+        // Arrange: confirmation 3 was dead-lettered, then a newer confirmation of its product synced
+        SyncDeadLetter stale = new SyncDeadLetter();
+        stale.setId(11L);
+        stale.setConfirmationId(3L);
+        SyncDeadLetter current = new SyncDeadLetter();
+        current.setId(12L);
+        current.setConfirmationId(5L);
+        when(deadLetterRepo.findByReplayedAtIsNull()).thenReturn(List.of(stale, current));
+        when(repo.findSupersededIds(List.of(3L, 5L))).thenReturn(List.of(3L));
+        when(repo.requeue(List.of(5L))).thenReturn(1);
+
+        // Act
+        ConfirmationOutbox.Replay replayed = outbox.replay(null);
+
+        // Assert
+        assertEquals(1, replayed.getRequeued());
+        assertEquals(1, replayed.getSuperseded());
+        assertNotNull(stale.getReplayedAt());
+        assertNotNull(current.getReplayedAt());
+        verify(repo).markSynced(Set.of(3L));
+        verify(repo).requeue(List.of(5L));
+    }
+
+    private static PriceConfirmation pending(Long id, int attempts) {
+        PriceConfirmation pc = new PriceConfirmation();
+        pc.setId(id);
+        pc.setProductId("P" + id);
+        pc.setCurrency("EUR");
+        pc.setAttempts(attempts);
+        return pc;
+    }
+
+    private static void assertBackoff(LocalDateTime before, PriceConfirmation row, long seconds) {
+        assertFalse(row.getDeadLettered());
+        long actual = Duration.between(before, row.getNextAttemptAt()).getSeconds();
+        assertTrue(actual >= seconds && actual <= seconds + 5, "backoff: " + actual);
+    }
+}
@@ -2,13 +2,21 @@ package com.example.pricing;
 
 import com.example.pricing.model.*;
 import com.example.pricing.repository.*;
+import com.example.pricing.service.AuthorizationCache;
 import com.example.pricing.service.ConfirmationService;
+import com.example.pricing.service.ConfirmationService.ConfirmationRequest;
+import com.example.pricing.service.ConfirmationService.ConfirmationResult;
+import com.example.pricing.service.ConfirmationsRecordedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +30,7 @@ class ConfirmationServiceTest {
     private ProductRepository productRepo;
     private BuildingRepository buildingRepo;
     private UserRepository userRepo;
+    private PlatformTransactionManager transactionManager;
     private ConfirmationService confirmationService;
 
     @BeforeEach
@@ -31,13 +40,14 @@ class ConfirmationServiceTest {
         productRepo = mock(ProductRepository.class);
         buildingRepo = mock(BuildingRepository.class);
         userRepo = mock(UserRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
         
         confirmationService = new ConfirmationService(
             confirmationRepo, 
             recommendationRepo, 
-            productRepo, 
-            buildingRepo, 
-            userRepo
+            new AuthorizationCache(userRepo, productRepo, buildingRepo, 5, 1000),
+            transactionManager,
+            64
         );
     }
 
@@ -190,7 +200,7 @@ class ConfirmationServiceTest {
         lastRec.setRecommendedAt(LocalDateTime.now());
 
         when(userRepo.findById("ADMIN001")).thenReturn(Optional.of(admin));
-        when(recommendationRepo.findAll()).thenReturn(Arrays.asList(lastRec));
+        when(recommendationRepo.findFirstByProductIdOrderByRecommendedAtDesc("P001")).thenReturn(Optional.of(lastRec));
         when(confirmationRepo.save(any(PriceConfirmation.class))).thenAnswer(i -> i.getArgument(0));
 
         // Act - Override with 120 (within ±30% of 100: 70-130)
@@ -218,7 +228,7 @@ class ConfirmationServiceTest {
         lastRec.setRecommendedAt(LocalDateTime.now());
 
         when(userRepo.findById("ADMIN001")).thenReturn(Optional.of(admin));
-        when(recommendationRepo.findAll()).thenReturn(Arrays.asList(lastRec));
+        when(recommendationRepo.findFirstByProductIdOrderByRecommendedAtDesc("P001")).thenReturn(Optional.of(lastRec));
 
         // Act & Assert - Override with 65 (below 70% of 100)
         IllegalArgumentException exception = assertThrows(
@@ -243,7 +253,7 @@ class ConfirmationServiceTest {
         lastRec.setRecommendedAt(LocalDateTime.now());
 
         when(userRepo.findById("ADMIN001")).thenReturn(Optional.of(admin));
-        when(recommendationRepo.findAll()).thenReturn(Arrays.asList(lastRec));
+        when(recommendationRepo.findFirstByProductIdOrderByRecommendedAtDesc("P001")).thenReturn(Optional.of(lastRec));
 
         // Act & Assert - Override with 135 (above 130% of 100)
         IllegalArgumentException exception = assertThrows(
@@ -273,7 +283,7 @@ class ConfirmationServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals("ACCEPT", result.getAction());
-        verify(recommendationRepo, never()).findAll(); // Should not check recommendations
+        verify(recommendationRepo, never()).findFirstByProductIdOrderByRecommendedAtDesc(any()); // Should not check recommendations
         verify(confirmationRepo, times(1)).save(any(PriceConfirmation.class));
     }
 
@@ -296,7 +306,209 @@ class ConfirmationServiceTest {
         assertNotNull(result);
         assertEquals("REJECT", result.getAction());
         assertNull(result.getConfirmedValue());
-        verify(recommendationRepo, never()).findAll(); // Should not check recommendations
+        verify(recommendationRepo, never()).findFirstByProductIdOrderByRecommendedAtDesc(any()); // Should not check recommendations
         verify(confirmationRepo, times(1)).save(any(PriceConfirmation.class));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConfirmBatch_PrefetchesOnceAndInsertsAcceptedInOneBatch() {
+        // Arrange
+        User rm = new User();
+        rm.setId("RM_EMEA_001");
+        rm.setRole("REGIONAL_MANAGER");
+        rm.setRegion("EMEA");
+        User admin = new User();
+        admin.setId("ADMIN001");
+        admin.setRole("ADMIN");
+
+        Product p1 = new Product();
+        p1.setId("P001");
+        p1.setBuildingId("B001");
+        Product p2 = new Product();
+        p2.setId("P002");
+        p2.setBuildingId("B002");
+
+        Building emea = new Building();
+        emea.setId("B001");
+        emea.setRegion("EMEA");
+        Building apac = new Building();
+        apac.setId("B002");
+        apac.setRegion("APAC");
+
+        PriceRecommendation lastRec = new PriceRecommendation();
+        lastRec.setProductId("P003");
+        lastRec.setRecommendedValue(BigDecimal.valueOf(100));
+        lastRec.setRecommendedAt(LocalDateTime.now());
+
+        when(userRepo.findAllById(any())).thenReturn(Arrays.asList(rm, admin));
+        when(productRepo.findAllById(any())).thenReturn(Arrays.asList(p1, p2));
+        when(buildingRepo.findAllById(any())).thenReturn(Arrays.asList(emea, apac));
+        when(recommendationRepo.findLatestByProductIdIn(any())).thenReturn(List.of(lastRec));
+        when(confirmationRepo.insertAll(anyList())).thenAnswer(i -> ((List<?>) i.getArgument(0)).size());
+
+        List<ConfirmationRequest> requests = List.of(
+            new ConfirmationRequest("P001", "ACCEPT", BigDecimal.valueOf(100), "USD", "RM_EMEA_001"),
+            new ConfirmationRequest("P002", "ACCEPT", BigDecimal.valueOf(100), "USD", "RM_EMEA_001"),
+            new ConfirmationRequest("P003", "OVERRIDE", BigDecimal.valueOf(120), "USD", "ADMIN001"),
+            new ConfirmationRequest("P003", "OVERRIDE", BigDecimal.valueOf(200), "USD", "ADMIN001"),
+            new ConfirmationRequest("P004", "ACCEPT", BigDecimal.valueOf(100), "USD", "UNKNOWN")
+        );
+
+        // Act
+        List<ConfirmationResult> results = confirmationService.confirmBatch(requests);
+
+        // Assert
+        assertEquals(5, results.size());
+        assertEquals("success", results.get(0).getStatus());
+        assertEquals("failed", results.get(1).getStatus());
+        assertTrue(results.get(1).getError().contains("Building region: APAC"));
+        assertEquals("success", results.get(2).getStatus());
+        assertTrue(results.get(3).getError().contains("Override out of allowed bounds"));
+        assertTrue(results.get(4).getError().contains("User not found"));
+
+        verify(userRepo, times(1)).findAllById(any());
+        verify(productRepo, times(1)).findAllById(any());
+        verify(buildingRepo, times(1)).findAllById(any());
+        verify(recommendationRepo, times(1)).findLatestByProductIdIn(any());
+        verify(userRepo, never()).findById(any());
+        verify(confirmationRepo, never()).save(any(PriceConfirmation.class));
+        verify(confirmationRepo, times(1)).insertAll(argThat(list -> list.size() == 2
+            && list.get(0).getProductId().equals("P001") && list.get(1).getProductId().equals("P003")));
+    }
+
+    @Test
+    void testConfirmBatch_NonRegionalUsers_SkipProductAndBuildingLookups() {
+        // Arrange
+        User pricingManager = new User();
+        pricingManager.setId("PM_001");
+        pricingManager.setRole("PRICING_MANAGER");
+        when(userRepo.findAllById(any())).thenReturn(List.of(pricingManager));
+
+        // Act
+        List<ConfirmationResult> results = confirmationService.confirmBatch(List.of(
+            new ConfirmationRequest("P001", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P002", "REJECT", null, "USD", "PM_001")
+        ));
+
+        // Assert
+        assertTrue(results.stream().allMatch(ConfirmationResult::isSuccess));
+        verify(productRepo, never()).findAllById(any());
+        verify(buildingRepo, never()).findAllById(any());
+        verify(recommendationRepo, never()).findLatestByProductIdIn(any());
+        verify(confirmationRepo, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    void testConfirmBatch_PublishesRecordedEventForAcceptedItems() {
+        // Arrange
+        User pricingManager = new User();
+        pricingManager.setId("PM_001");
+        pricingManager.setRole("PRICING_MANAGER");
+        when(userRepo.findAllById(any())).thenReturn(List.of(pricingManager));
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+        confirmationService.setEvents(events);
+
+        // Act
+        confirmationService.confirmBatch(List.of(
+            new ConfirmationRequest("P001", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P002", "ACCEPT", BigDecimal.valueOf(100), "USD", "UNKNOWN")
+        ));
+
+        // Assert
+        ArgumentCaptor<ConfirmationsRecordedEvent> event = ArgumentCaptor.forClass(ConfirmationsRecordedEvent.class);
+        verify(events).publishEvent(event.capture());
+        assertEquals(1, event.getValue().getCount());
+    }
+
+    @Test
+    void testConfirmBatch_LargeBatchSplitIntoBoundedLockGroups() {
+        // Arrange
+        User pricingManager = new User();
+        pricingManager.setId("PM_001");
+        pricingManager.setRole("PRICING_MANAGER");
+        when(userRepo.findAllById(any())).thenReturn(List.of(pricingManager));
+        ConfirmationService service = new ConfirmationService(confirmationRepo, recommendationRepo,
+            new AuthorizationCache(userRepo, productRepo, buildingRepo, 5, 1000), transactionManager, 2);
+
+        // Act - P1 twice, then P2 fills the first group; P3 and P4 start the second
+        List<ConfirmationResult> results = service.confirmBatch(List.of(
+            new ConfirmationRequest("P1", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P1", "ACCEPT", BigDecimal.valueOf(101), "USD", "PM_001"),
+            new ConfirmationRequest("P2", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P3", "ACCEPT", BigDecimal.valueOf(100), "USD", "UNKNOWN"),
+            new ConfirmationRequest("P4", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001")
+        ));
+
+        // Assert
+        assertEquals(List.of("P1", "P1", "P2", "P3", "P4"), results.stream().map(ConfirmationResult::getProductId).toList());
+        assertEquals(List.of("success", "success", "success", "failed", "success"),
+            results.stream().map(ConfirmationResult::getStatus).toList());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(confirmationRepo).insertAll(argThat(list -> list.size() == 3));
+        verify(confirmationRepo).insertAll(argThat(list -> list.size() == 1 && list.get(0).getProductId().equals("P4")));
+    }
+
+    @Test
+    void testConfirmBatch_FailedGroupReportedAloneOthersCommitted() {
+        // Arrange - three groups of one product each; the insert of the second one fails
+        User pricingManager = new User();
+        pricingManager.setId("PM_001");
+        pricingManager.setRole("PRICING_MANAGER");
+        when(userRepo.findAllById(any())).thenReturn(List.of(pricingManager));
+        when(confirmationRepo.insertAll(any()))
+            .thenReturn(1).thenThrow(new IllegalStateException("Deadlock found")).thenReturn(1);
+        ConfirmationService service = new ConfirmationService(confirmationRepo, recommendationRepo,
+            new AuthorizationCache(userRepo, productRepo, buildingRepo, 5, 1000), transactionManager, 1);
+
+        // Act
+        List<ConfirmationResult> results = service.confirmBatch(List.of(
+            new ConfirmationRequest("P1", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P2", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001"),
+            new ConfirmationRequest("P2", "ACCEPT", BigDecimal.valueOf(101), "USD", "PM_001"),
+            new ConfirmationRequest("P3", "ACCEPT", BigDecimal.valueOf(100), "USD", "PM_001")
+        ));
+
+        // Assert
+        assertEquals(List.of("success", "failed", "failed", "success"),
+            results.stream().map(ConfirmationResult::getStatus).toList());
+        assertEquals("Not persisted: Deadlock found", results.get(1).getError());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager).rollback(any());
+        verify(confirmationRepo, times(3)).insertAll(any());
+    }
+
+    @Test
+    void testConfirm_NoLookupsOnceCacheWarm() {
+        // Arrange
+        User regionalManager = new User();
+        regionalManager.setId("RM_EMEA_001");
+        regionalManager.setRole("REGIONAL_MANAGER");
+        regionalManager.setRegion("EMEA");
+
+        Product product = new Product();
+        product.setId("P001");
+        product.setBuildingId("B001");
+
+        Building building = new Building();
+        building.setId("B001");
+        building.setRegion("EMEA");
+
+        when(userRepo.findById("RM_EMEA_001")).thenReturn(Optional.of(regionalManager));
+        when(productRepo.findById("P001")).thenReturn(Optional.of(product));
+        when(buildingRepo.findById("B001")).thenReturn(Optional.of(building));
+        when(confirmationRepo.save(any(PriceConfirmation.class))).thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            confirmationService.confirm("P001", "ACCEPT", BigDecimal.valueOf(100), "USD", "RM_EMEA_001");
+        }
+
+        // Assert - only the first confirmation hits the repositories
+        verify(userRepo, times(1)).findById("RM_EMEA_001");
+        verify(productRepo, times(1)).findById("P001");
+        verify(buildingRepo, times(1)).findById("B001");
+        verify(confirmationRepo, times(3)).save(any(PriceConfirmation.class));
+    }
 }
@@ -0,0 +1,129 @@
+package com.example.pricing;
+
+import com.example.pricing.service.ConfirmationService;
+import com.example.pricing.service.ConfirmationService.ConfirmationRequest;
+import com.example.pricing.service.ConfirmationService.ConfirmationResult;
+import com.example.pricing.service.ConfirmationUploadService;
+import com.example.pricing.service.ConfirmationUploadService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ConfirmationUploadServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConfirmationService confirmationService;
+    private ConfirmationUploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        confirmationService = mock(ConfirmationService.class);
+        // Every parsed row succeeds except product P3
+        when(confirmationService.confirmBatch(anyList())).thenAnswer(i -> {
+            List<ConfirmationRequest> requests = i.getArgument(0);
+            List<ConfirmationResult> results = new ArrayList<>();
+            for (ConfirmationRequest r : requests) {
+                results.add("P3".equals(r.getProductId())
+                        ? ConfirmationResult.failed(r.getProductId(), "Override out of allowed bounds (±30% of recommended)")
+                        : ConfirmationResult.success(r.getProductId()));
+            }
+            return results;
+        });
+        uploadService = new ConfirmationUploadService(confirmationService, objectMapper, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCsv_PersistsInChunksAndStreamsResultsInOrder() throws Exception {
+        // Arrange
+        String csv = "productId,action,price,currency,userId\n"
+                + "P1,ACCEPT,,EUR,U1\n"
+                + "P2,OVERRIDE,\"1,5\",EUR,U1\n"
+                + "P3,OVERRIDE,500,EUR,U1\n"
+                + "\n"
+                + "P4,REJECT,,EUR,U1\n"
+                + "P5,OVERRIDE,120.50,EUR,U1\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        Map<String, Integer> summary = uploadService.upload(stream(csv), Format.CSV, out);
+
+        // Assert
+        List<Map<String, Object>> lines = readLines(out);
+        assertEquals(5, lines.size());
+        assertEquals(List.of(2, 3, 4, 6, 7), lines.stream().map(l -> l.get("line")).toList());
+        assertEquals(List.of("success", "failed", "failed", "success", "success"), lines.stream().map(l -> l.get("status")).toList());
+        assertEquals("P2", lines.get(1).get("productId"));
+        assertEquals(Map.of("rows", 5, "succeeded", 3, "failed", 2), summary);
+        // Chunks of two rows: [P1, bad P2], [P3, P4], [P5]
+        verify(confirmationService, times(3)).confirmBatch(anyList());
+        verify(confirmationService).confirmBatch(argThat(l -> l.size() == 1 && "P5".equals(l.get(0).getProductId())
+                && new BigDecimal("120.50").equals(l.get(0).getPrice())));
+    }
+
+    @Test
+    void testNdjson_MalformedLineFailsAlone() throws Exception {
+        // Arrange
+        String ndjson = "{\"productId\":\"P1\",\"action\":\"ACCEPT\",\"currency\":\"EUR\",\"userId\":\"U1\"}\n"
+                + "{not json\n"
+                + "{\"productId\":\"P2\",\"action\":\"OVERRIDE\",\"price\":99.5,\"currency\":\"EUR\",\"userId\":\"U1\"}\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        Map<String, Integer> summary = uploadService.upload(stream(ndjson), Format.NDJSON, out);
+
+        // Assert
+        List<Map<String, Object>> lines = readLines(out);
+        assertEquals(List.of("success", "failed", "success"), lines.stream().map(l -> l.get("status")).toList());
+        assertNotNull(lines.get(1).get("error"));
+        assertEquals(1, summary.get("failed"));
+        verify(confirmationService, times(2)).confirmBatch(anyList());
+    }
+
+    @Test
+    void testChunkFailure_RowsReportedFailedAndUploadContinues() throws Exception {
+        // Arrange
+        when(confirmationService.confirmBatch(argThat(l -> l != null && "P1".equals(l.get(0).getProductId()))))
+                .thenThrow(new IllegalStateException("Write-behind is stopped"));
+        String csv = "productId,action,price,currency,userId\n"
+                + "P1,ACCEPT,,EUR,U1\n"
+                + "P2,ACCEPT,,EUR,U1\n"
+                + "P4,ACCEPT,,EUR,U1\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        Map<String, Integer> summary = uploadService.upload(stream(csv), Format.CSV, out);
+
+        // Assert
+        List<Map<String, Object>> lines = readLines(out);
+        assertEquals(List.of(2, 3, 4), lines.stream().map(l -> l.get("line")).toList());
+        assertEquals(List.of("failed", "failed", "success"), lines.stream().map(l -> l.get("status")).toList());
+        assertTrue(lines.get(0).get("error").toString().contains("Write-behind is stopped"));
+        assertEquals(Map.of("rows", 3, "succeeded", 1, "failed", 2), summary);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> readLines(ByteArrayOutputStream out) throws Exception {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pricing;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.service.ConfirmationWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ConfirmationWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSubmit_GroupCommitsAndRemovesFlushedSegments() throws Exception {
+        // Arrange
+        PriceConfirmationRepository repo = mock(PriceConfirmationRepository.class);
+        List<PriceConfirmation> inserted = new ArrayList<>();
+        when(repo.insertIfAbsentAll(anyList())).thenAnswer(i -> {
+            List<PriceConfirmation> rows = i.getArgument(0);
+            synchronized (inserted) { inserted.addAll(rows); }
+            return rows.size();
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConfirmationWriteBehind writeBehind = newWriteBehind(repo, registry, 2);
+        writeBehind.start();
+
+        // Act
+        writeBehind.submitAll(List.of(confirmation("P1"), confirmation("P2"), confirmation("P3")));
+        writeBehind.submitAll(List.of(confirmation("P4")));
+        awaitDrained(writeBehind);
+        writeBehind.stop();
+
+        // Assert
+        assertEquals(4, inserted.size());
+        assertTrue(inserted.stream().allMatch(pc -> pc.getWriteRef() != null));
+        assertEquals(0, segmentCount());
+        assertTrue(registry.get("pricing.confirmations.writebehind.commit").timer().count() >= 1);
+        assertEquals(0.0, registry.get("pricing.confirmations.writebehind.queue.depth").gauge().value());
+    }
+
+    @Test
+    void testRestart_ReplaysUnflushedEntriesWithSameWriteRef() throws Exception {
+        // Arrange: the database is down, so the first instance only gets as far as its local log
+        PriceConfirmationRepository downRepo = mock(PriceConfirmationRepository.class);
+        when(downRepo.insertIfAbsentAll(anyList())).thenThrow(new RuntimeException("Connection refused"));
+        ConfirmationWriteBehind first = newWriteBehind(downRepo, new SimpleMeterRegistry(), 10_000);
+        first.start();
+        PriceConfirmation pc = confirmation("P1");
+        first.submitAll(List.of(pc));
+        first.stop();
+        assertEquals(1, segmentCount());
+
+        PriceConfirmationRepository repo = mock(PriceConfirmationRepository.class);
+        List<PriceConfirmation> inserted = new ArrayList<>();
+        when(repo.insertIfAbsentAll(anyList())).thenAnswer(i -> {
+            List<PriceConfirmation> rows = i.getArgument(0);
+            synchronized (inserted) { inserted.addAll(rows); }
+            return rows.size();
+        });
+
+        // Act
+        ConfirmationWriteBehind second = newWriteBehind(repo, new SimpleMeterRegistry(), 10_000);
+        second.start();
+        awaitDrained(second);
+        second.stop();
+
+        // Assert
+        assertEquals(1, inserted.size());
+        assertEquals(pc.getWriteRef(), inserted.get(0).getWriteRef());
+        assertEquals("P1", inserted.get(0).getProductId());
+        assertEquals(0, new BigDecimal("120.00").compareTo(inserted.get(0).getConfirmedValue()));
+        assertEquals(0, segmentCount());
+    }
+
+    private ConfirmationWriteBehind newWriteBehind(PriceConfirmationRepository repo, SimpleMeterRegistry registry, int segmentMaxRecords) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        return new ConfirmationWriteBehind(repo, mock(PlatformTransactionManager.class), objectMapper, registry,
+                dir, 5, 500, segmentMaxRecords);
+    }
+
+    private static void awaitDrained(ConfirmationWriteBehind writeBehind) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (writeBehind.queueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, writeBehind.queueDepth());
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private static PriceConfirmation confirmation(String productId) {
+        PriceConfirmation pc = new PriceConfirmation();
+        pc.setProductId(productId);
+        pc.setAction("OVERRIDE");
+        pc.setConfirmedValue(new BigDecimal("120.00"));
+        pc.setCurrency("EUR");
+        pc.setUserId("U1");
+        pc.setConfirmedAt(LocalDateTime.now());
+        pc.setSynced(false);
+        return pc;
+    }
+}
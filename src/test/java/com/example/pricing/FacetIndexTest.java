@@ -0,0 +1,81 @@
+package com.example.pricing;
+
+import com.example.pricing.service.FacetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = FacetIndex.builder()
+                .add("B1", "EMEA", "City", "LUXURY", "Double", 2, LocalDate.of(2025, 5, 10))
+                .add("B1", "EMEA", "City", "LUXURY", "Suite", 3, LocalDate.of(2025, 5, 11))
+                .add("B1", "EMEA", "City", "FAMILY", "Double", 2, LocalDate.of(2025, 5, 12))
+                .add("B2", "EMEA", "Resort", "LUXURY", "Double", 2, LocalDate.of(2025, 6, 1))
+                .add("B3", "APAC", "City", "LUXURY", "Suite", 4, LocalDate.of(2025, 6, 2))
+                .add(null, null, null, null, "Single", 1, null)
+                .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConditionalCounts_ExcludeOwnFacetFromSelection() {
+        // Act
+        Map<String, Object> result = index.conditionalCounts(
+                Map.of(FacetIndex.REGIONS, List.of("EMEA"), FacetIndex.PRODUCT_GROUPS, List.of("LUXURY")), null, null);
+
+        // Assert
+        assertEquals(3L, result.get("matching"));
+        Map<String, Map<String, Long>> counts = (Map<String, Map<String, Long>>) result.get("counts");
+        // Room types within EMEA LUXURY
+        assertEquals(Map.of("Double", 2L, "Suite", 1L), counts.get(FacetIndex.ROOM_TYPES));
+        // Regions ignore the region selection but keep LUXURY
+        assertEquals(Map.of("EMEA", 3L, "APAC", 1L), counts.get(FacetIndex.REGIONS));
+        // Product groups ignore the group selection but keep EMEA
+        assertEquals(Map.of("LUXURY", 3L, "FAMILY", 1L), counts.get(FacetIndex.PRODUCT_GROUPS));
+        assertEquals(Map.of("B1", 2L, "B2", 1L), counts.get(FacetIndex.BUILDINGS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConditionalCounts_OrWithinFacetAndDateRange() {
+        // Act
+        Map<String, Object> all = index.conditionalCounts(Map.of(), null, null);
+        Map<String, Object> result = index.conditionalCounts(
+                Map.of(FacetIndex.BEDS, List.of("2", "4")), LocalDate.of(2025, 5, 11), LocalDate.of(2025, 6, 30));
+
+        // Assert
+        assertEquals(6L, all.get("matching"));
+        assertEquals(3L, result.get("matching")); // 2025-05-12 Double, 2025-06-01 Double, 2025-06-02 Suite
+        Map<String, Map<String, Long>> counts = (Map<String, Map<String, Long>>) result.get("counts");
+        assertEquals(Map.of("2", 2L, "3", 1L, "4", 1L), counts.get(FacetIndex.BEDS));
+        assertEquals(Map.of("Double", 2L, "Suite", 1L), counts.get(FacetIndex.ROOM_TYPES));
+    }
+
+    @Test
+    void testConditionalCounts_SpansMultipleWords() {
+        // Arrange
+        FacetIndex.Builder builder = FacetIndex.builder();
+        for (int i = 0; i < 200; i++) {
+            builder.add("B" + (i % 4), i % 2 == 0 ? "EMEA" : "APAC", "City", "LUXURY", "Double", 2, null);
+        }
+        FacetIndex large = builder.build();
+
+        // Act
+        Map<String, Object> result = large.conditionalCounts(
+                Map.of(FacetIndex.BUILDINGS, List.of("B0", "B1"), FacetIndex.REGIONS, List.of("EMEA")), null, null);
+
+        // Assert
+        assertEquals(200, large.size());
+        assertEquals(50L, result.get("matching"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pricing;
+
+import com.example.pricing.config.IngestCompletedEvent;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.service.FacetService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FacetServiceTest {
+
+    private ProductRepository productRepo;
+    private SimpleMeterRegistry meterRegistry;
+    private FacetService facetService;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        facetService = new FacetService(productRepo, meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetFacets_FoldsGroupedRowsWithCounts() {
+        // Arrange
+        List<ProductRepository.FacetRow> rows = Arrays.asList(
+                row("B1", "Building 1", "City", "EMEA", "Double", 2, "LUXURY", LocalDate.of(2025, 5, 10), LocalDate.of(2025, 5, 12), 3),
+                row("B1", "Building 1", "City", "EMEA", "Suite", 3, "FAMILY", LocalDate.of(2025, 5, 12), LocalDate.of(2025, 5, 12), 1),
+                row("B2", "Building 2", "Resort", "APAC", "Double", 2, "LUXURY", LocalDate.of(2025, 6, 5), LocalDate.of(2025, 6, 5), 2),
+                row("B3", "Building 3", "City", "AMER", null, null, null, null, null, 0),
+                row(null, null, null, null, "Single", 1, null, LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 1), 1));
+        when(productRepo.findFacetRows()).thenReturn(rows);
+
+        // Act
+        Map<String, Object> facets = facetService.getFacets();
+
+        // Assert
+        assertEquals(3, ((List<?>) facets.get("buildings")).size());
+        assertEquals(List.of("Double", "Single", "Suite"), facets.get("roomTypes"));
+        assertEquals(List.of(1, 2, 3), facets.get("beds"));
+        assertEquals(List.of("City", "Resort"), facets.get("buildingTypes"));
+        assertEquals(List.of("AMER", "APAC", "EMEA"), facets.get("regions"));
+        assertEquals(List.of("FAMILY", "LUXURY"), facets.get("productGroups"));
+        Map<String, Object> range = (Map<String, Object>) facets.get("arrivalDateRange");
+        assertEquals(LocalDate.of(2025, 4, 1), range.get("min"));
+        assertEquals(LocalDate.of(2025, 6, 5), range.get("max"));
+
+        Map<String, Map<Object, Long>> counts = (Map<String, Map<Object, Long>>) facets.get("counts");
+        assertEquals(5L, counts.get("roomTypes").get("Double"));
+        assertEquals(4L, counts.get("buildings").get("B1"));
+        assertEquals(0L, counts.get("buildings").get("B3"));
+        assertEquals(4L, counts.get("regions").get("EMEA"));
+        assertEquals(5L, counts.get("productGroups").get("LUXURY"));
+    }
+
+    @Test
+    void testGetFacets_CachedUntilIngestCompletes() {
+        // Arrange
+        when(productRepo.findFacetRows()).thenReturn(List.of());
+
+        // Act
+        facetService.getFacets();
+        facetService.getFacets();
+        facetService.getFacets();
+        facetService.onIngestCompleted(new IngestCompletedEvent("productIngestJob"));
+        facetService.getFacets();
+
+        // Assert
+        verify(productRepo, times(2)).findFacetRows();
+        assertEquals(2, meterRegistry.get("pricing.filters.facets").tag("cache", "cold").timer().count());
+        assertEquals(2, meterRegistry.get("pricing.filters.facets").tag("cache", "warm").timer().count());
+    }
+
+    private static ProductRepository.FacetRow row(String buildingId, String buildingName, String buildingType, String region,
+                                                  String roomType, Integer beds, String productGroup,
+                                                  LocalDate min, LocalDate max, long products) {
+        ProductRepository.FacetRow r = mock(ProductRepository.FacetRow.class);
+        when(r.getBuildingId()).thenReturn(buildingId);
+        when(r.getBuildingName()).thenReturn(buildingName);
+        when(r.getBuildingType()).thenReturn(buildingType);
+        when(r.getRegion()).thenReturn(region);
+        when(r.getRoomType()).thenReturn(roomType);
+        when(r.getNoOfBeds()).thenReturn(beds);
+        when(r.getProductGroup()).thenReturn(productGroup);
+        when(r.getMinArrival()).thenReturn(min);
+        when(r.getMaxArrival()).thenReturn(max);
+        when(r.getProducts()).thenReturn(products);
+        return r;
+    }
+}
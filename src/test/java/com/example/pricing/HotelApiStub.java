@@ -0,0 +1,157 @@
+package com.example.pricing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+/**
+ * Local stand-in for the hotel API: {@code POST /prices/confirm} answers after a fixed latency with the
+ * status chosen by {@code responder(productId, attempt)}; {@code POST /prices/confirm/batch} applies the
+ * responder per item (200 = "ok", otherwise an error with that {@code code}) and additionally charges
+ * {@code perItemMicros} per item. The batch endpoint can be limited in size (413) or switched off (404).
+ * Counts requests per product and the peak number of requests in flight.
+ */
+class HotelApiStub implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY each response waits on a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long latencyMs;
+    private final long perItemMicros;
+    private final BiFunction<String, Integer, Integer> responder;
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int maxBatchItems = Integer.MAX_VALUE;
+    private volatile boolean batchEndpoint = true;
+
+    HotelApiStub(long latencyMs, BiFunction<String, Integer, Integer> responder) throws IOException {
+        this(latencyMs, 0, responder);
+    }
+
+    HotelApiStub(long latencyMs, long perItemMicros, BiFunction<String, Integer, Integer> responder) throws IOException {
+        this.latencyMs = latencyMs;
+        this.perItemMicros = perItemMicros;
+        this.responder = responder;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/prices/confirm/batch", this::confirmBatch);
+        server.createContext("/prices/confirm", this::confirm);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int attempts(String productId) {
+        AtomicInteger n = attempts.get(productId);
+        return n == null ? 0 : n.get();
+    }
+
+    HotelApiStub maxBatchItems(int maxBatchItems) {
+        this.maxBatchItems = maxBatchItems;
+        return this;
+    }
+
+    HotelApiStub withoutBatchEndpoint() {
+        this.batchEndpoint = false;
+        return this;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private void confirm(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        requests.incrementAndGet();
+        try {
+            Map<?, ?> body = MAPPER.readValue(exchange.getRequestBody(), Map.class);
+            String productId = String.valueOf(body.get("productId"));
+            int attempt = attempts.computeIfAbsent(productId, k -> new AtomicInteger()).incrementAndGet();
+            sleep(latencyMs);
+            respond(exchange, responder.apply(productId, attempt), "{}");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void confirmBatch(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        requests.incrementAndGet();
+        try {
+            Map<String, List<Map<String, Object>>> body = MAPPER.readValue(exchange.getRequestBody(), Map.class);
+            if (!batchEndpoint || body.get("items").size() > maxBatchItems) {
+                respond(exchange, batchEndpoint ? 413 : 404, "{}");
+                return;
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Map<String, Object> item : body.get("items")) {
+                String productId = String.valueOf(item.get("productId"));
+                int attempt = attempts.computeIfAbsent(productId, k -> new AtomicInteger()).incrementAndGet();
+                int status = responder.apply(productId, attempt);
+                Map<String, Object> result = new HashMap<>();
+                result.put("ref", item.get("ref"));
+                result.put("status", status == 200 ? "ok" : "error");
+                if (status != 200) {
+                    result.put("code", status);
+                    result.put("error", "status " + status);
+                }
+                results.add(result);
+            }
+            LockSupport.parkNanos(latencyMs * 1_000_000 + perItemMicros * 1_000 * results.size());
+            respond(exchange, 200, MAPPER.writeValueAsString(Map.of("results", results)));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.pricing;
+
+import com.example.pricing.service.HotelCircuitBreaker;
+import com.example.pricing.service.HotelCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelCircuitBreakerTest {
+
+    @Test
+    void testFailureRate_OpensAndRejectsCalls() {
+        // Arrange
+        HotelCircuitBreaker breaker = new HotelCircuitBreaker(0.5, 10, 4, 60_000, 2);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        State belowMinimumCalls = breaker.state();
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        State atMinimumCalls = breaker.state();
+
+        // Assert: 3 of 4 failed is above the 50% threshold
+        assertEquals(State.CLOSED, belowMinimumCalls);
+        assertEquals(State.OPEN, atMinimumCalls);
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void testHalfOpen_ClosesAfterSuccessfulTrialsAndReopensOnFailure() throws Exception {
+        // Arrange
+        HotelCircuitBreaker breaker = new HotelCircuitBreaker(0.5, 4, 2, 50, 2);
+        tripOpen(breaker);
+        Thread.sleep(80);
+
+        // Act: two trial calls pass, a third is held back until they report
+        boolean firstTrial = breaker.tryAcquire();
+        boolean secondTrial = breaker.tryAcquire();
+        boolean thirdTrial = breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        State afterTrials = breaker.state();
+
+        tripOpen(breaker);
+        Thread.sleep(80);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        State afterFailedTrial = breaker.state();
+
+        // Assert
+        assertTrue(firstTrial && secondTrial);
+        assertFalse(thirdTrial);
+        assertEquals(State.CLOSED, afterTrials);
+        assertEquals(State.OPEN, afterFailedTrial);
+    }
+
+    private static void tripOpen(HotelCircuitBreaker breaker) {
+        while (breaker.state() == State.CLOSED) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.pricing;
+
+import com.example.pricing.config.IngestUpsertWriters;
+import com.example.pricing.model.Product;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class IngestUpsertWritersTest {
+
+    @Test
+    void testProducts_OneBatchedUpsertKeepingDerivedColumns() throws Exception {
+        // Arrange
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeBatch()).thenReturn(new int[]{1, 2});
+        JdbcBatchItemWriter<Product> writer = IngestUpsertWriters.products(dataSource);
+        writer.afterPropertiesSet();
+
+        // Act
+        writer.write(new Chunk<>(product("P1", LocalDate.of(2026, 3, 1)), product("P2", null)));
+
+        // Assert
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        assertTrue(sql.getValue().startsWith("insert into products (id, building_id, room_name, arrival_date,"));
+        assertTrue(sql.getValue().contains("as new on duplicate key update building_id = new.building_id"));
+        assertFalse(sql.getValue().contains("product_group"));
+        assertFalse(sql.getValue().contains("cluster_id"));
+        verify(ps, times(2)).addBatch();
+        verify(ps).executeBatch();
+        verify(ps).setDate(4, Date.valueOf(LocalDate.of(2026, 3, 1)));
+        verify(ps).setNull(4, Types.DATE);
+    }
+
+    private static Product product(String id, LocalDate arrivalDate) {
+        Product p = new Product();
+        p.setId(id);
+        p.setBuildingId("B1");
+        p.setRoomName("Room");
+        p.setArrivalDate(arrivalDate);
+        p.setNoOfBeds(2);
+        p.setRoomType("double");
+        p.setGrade(3);
+        p.setPrivatePool(false);
+        p.setProductGroup("FAMILY");
+        return p;
+    }
+}
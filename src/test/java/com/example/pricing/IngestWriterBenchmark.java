@@ -0,0 +1,114 @@
+package com.example.pricing;
+
+import com.example.pricing.config.IngestUpsertWriters;
+import com.example.pricing.model.Booking;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * JPA merge ({@code JpaItemWriter}) versus the batched upsert ({@link IngestUpsertWriters}) for 20k bookings
+ * in chunks of 500: a first pass into an empty table and a second pass updating every row, as a daily re-ingest does.
+ * Needs a scratch MySQL schema; the {@code bookings} table in it is dropped and recreated.
+ * Run with: mvn test -Pbenchmark -Dtest=IngestWriterBenchmark
+ *   -Dbench.jdbc.url=jdbc:mysql://localhost:3306/pricing_bench?rewriteBatchedStatements=true
+ *   -Dbench.jdbc.user=... -Dbench.jdbc.password=...
+ */
+class IngestWriterBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int CHUNK = 500;
+
+    @Test
+    void jpaMergeVersusUpsert() throws Exception {
+        String url = System.getProperty("bench.jdbc.url");
+        assumeTrue(url != null, "bench.jdbc.url not set");
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                url, System.getProperty("bench.jdbc.user", "root"), System.getProperty("bench.jdbc.password", ""), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop table if exists bookings");
+        jdbc.execute("create table bookings (id varchar(64) primary key, product_id varchar(64), arrival_date date, " +
+                     "nights int, price_paid double)");
+
+        LocalContainerEntityManagerFactoryBean emfBean = new LocalContainerEntityManagerFactoryBean();
+        emfBean.setDataSource(dataSource);
+        emfBean.setManagedTypes(PersistenceManagedTypes.of(Booking.class.getName()));
+        emfBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        emfBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+        emfBean.afterPropertiesSet();
+        EntityManagerFactory emf = emfBean.getObject();
+        try {
+            JpaItemWriter<Booking> jpaWriter = new JpaItemWriter<>();
+            jpaWriter.setEntityManagerFactory(emf);
+            jpaWriter.afterPropertiesSet();
+            ItemWriter<Booking> upsertWriter = IngestUpsertWriters.bookings(dataSource);
+            PlatformTransactionManager jpaTx = new JpaTransactionManager(emf);
+            PlatformTransactionManager jdbcTx = new DataSourceTransactionManager(dataSource);
+
+            System.out.printf("%-8s %-7s %8s %10s %12s %12s%n", "writer", "pass", "rows", "ms", "rows/s", "statements");
+            run("jpa", "insert", jpaWriter, jpaTx, jdbc, 1.0);
+            run("jpa", "update", jpaWriter, jpaTx, jdbc, 2.0);
+            jdbc.execute("truncate table bookings");
+            run("upsert", "insert", upsertWriter, jdbcTx, jdbc, 1.0);
+            run("upsert", "update", upsertWriter, jdbcTx, jdbc, 2.0);
+        } finally {
+            emfBean.destroy();
+            dataSource.destroy();
+        }
+    }
+
+    private static void run(String name, String pass, ItemWriter<Booking> writer, PlatformTransactionManager tx,
+                            JdbcTemplate jdbc, double priceFactor) {
+        TransactionTemplate chunkTx = new TransactionTemplate(tx);
+        long statementsBefore = questions(jdbc);
+        long start = System.nanoTime();
+        for (int from = 0; from < ROWS; from += CHUNK) {
+            List<Booking> chunk = new ArrayList<>(CHUNK);
+            for (int i = from; i < Math.min(ROWS, from + CHUNK); i++) chunk.add(booking(i, priceFactor));
+            chunkTx.executeWithoutResult(status -> {
+                try {
+                    writer.write(new Chunk<>(chunk));
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+        }
+        long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        // minus the one "show status" of the second reading
+        long statements = questions(jdbc) - statementsBefore - 1;
+        System.out.printf("%-8s %-7s %8d %10d %12d %12d%n", name, pass, ROWS, ms, ROWS * 1000L / ms, statements);
+    }
+
+    // Statements the server received on this (single) connection so far
+    private static long questions(JdbcTemplate jdbc) {
+        return jdbc.query("show session status like 'Questions'", rs -> rs.next() ? rs.getLong(2) : 0L);
+    }
+
+    private static Booking booking(int i, double priceFactor) {
+        Booking b = new Booking();
+        b.setId("B" + i);
+        b.setProductId("P" + (i % 2_000));
+        b.setArrivalDate(LocalDate.of(2026, 1, 1).plusDays(i % 365));
+        b.setNights(1 + i % 7);
+        b.setPricePaid(100.0 * priceFactor + i % 50);
+        return b;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.pricing;
+
+import com.example.pricing.model.DailyOccupancyRollup;
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.repository.BookingRepository.KpiRow;
+import com.example.pricing.repository.BuildingRepository;
+import com.example.pricing.repository.DailyOccupancyRollupRepository;
+import com.example.pricing.service.KpiService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KpiServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 5, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 6, 30);
+
+    private BookingRepository bookingRepo;
+    private BuildingRepository buildingRepo;
+    private DailyOccupancyRollupRepository rollupRepo;
+    private JobExplorer jobExplorer;
+    private KpiService kpiService;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepo = mock(BookingRepository.class);
+        buildingRepo = mock(BuildingRepository.class);
+        rollupRepo = mock(DailyOccupancyRollupRepository.class);
+        jobExplorer = mock(JobExplorer.class);
+        kpiService = new KpiService(bookingRepo, buildingRepo, rollupRepo, jobExplorer, 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        kpiService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLive_MergesPartialsFromBuildingPartitions() {
+        // Arrange
+        when(buildingRepo.findAllIds()).thenReturn(List.of("B1", "B2", "B3", "B4", "B5"));
+        List<KpiRow> first = List.of(row("EMEA", "LUXURY", "2025-05", 3, 6, 600.0, 4));
+        List<KpiRow> second = List.of(row("EMEA", "LUXURY", "2025-05", 1, 2, 200.0, 4),
+                row("APAC", "FAMILY", "2025-06", 0, 0, 0.0, 2));
+        List<KpiRow> third = List.of();
+        when(bookingRepo.kpisForBuildings(eq(List.of("B1", "B2")), any(), any())).thenReturn(first);
+        when(bookingRepo.kpisForBuildings(eq(List.of("B3", "B4")), any(), any())).thenReturn(second);
+        when(bookingRepo.kpisForBuildings(eq(List.of("B5")), any(), any())).thenReturn(third);
+
+        // Act
+        Map<String, Object> result = kpiService.portfolioKpis(FROM, TO, "live");
+
+        // Assert
+        assertEquals("live", result.get("source"));
+        verify(bookingRepo, times(3)).kpisForBuildings(anyCollection(), eq(FROM), eq(TO));
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) result.get("rows");
+        assertEquals(2, rows.size());
+        assertEquals("APAC", rows.get(0).get("region"));
+        assertNull(rows.get(0).get("adr"));
+        Map<String, Object> emea = rows.get(1);
+        assertEquals(4L, emea.get("bookings"));
+        assertEquals(8L, emea.get("roomNightsSold"));
+        assertEquals(8L, emea.get("productsAvailable"));
+        assertEquals(100.0, (Double) emea.get("adr"), 1e-9);
+        assertEquals(100.0, (Double) emea.get("revpar"), 1e-9);
+        assertEquals(0.5, (Double) emea.get("occupancy"), 1e-9);
+        verify(rollupRepo, never()).kpisFromRollups(any(), any());
+    }
+
+    @Test
+    void testAuto_UsesRollupsWhenLastIngestsCompleted() {
+        // Arrange
+        when(rollupRepo.existsByScope(DailyOccupancyRollup.SCOPE_BUILDING_GROUP)).thenReturn(true);
+        lastRun("productIngestJob", BatchStatus.COMPLETED);
+        lastRun("bookingIngestJob", BatchStatus.COMPLETED);
+        List<KpiRow> rows = List.of(row("EMEA", "LUXURY", "2025-05", 2, 4, 400.0, 4));
+        when(rollupRepo.kpisFromRollups(FROM, TO)).thenReturn(rows);
+
+        // Act
+        Map<String, Object> result = kpiService.portfolioKpis(FROM, TO, "auto");
+
+        // Assert
+        assertEquals("rollup", result.get("source"));
+        verify(buildingRepo, never()).findAllIds();
+    }
+
+    @Test
+    void testAuto_FallsBackToLiveWhenIngestFailed() {
+        // Arrange
+        when(rollupRepo.existsByScope(DailyOccupancyRollup.SCOPE_BUILDING_GROUP)).thenReturn(true);
+        lastRun("productIngestJob", BatchStatus.COMPLETED);
+        lastRun("bookingIngestJob", BatchStatus.FAILED);
+        when(buildingRepo.findAllIds()).thenReturn(List.of());
+
+        // Act
+        Map<String, Object> result = kpiService.portfolioKpis(FROM, TO, "auto");
+
+        // Assert
+        assertFalse(kpiService.rollupsFresh());
+        assertEquals("live", result.get("source"));
+        verify(rollupRepo, never()).kpisFromRollups(any(), any());
+    }
+
+    private void lastRun(String jobName, BatchStatus status) {
+        JobInstance instance = new JobInstance(1L, jobName);
+        JobExecution execution = new JobExecution(instance, 1L, null);
+        execution.setStatus(status);
+        when(jobExplorer.getLastJobInstance(jobName)).thenReturn(instance);
+        when(jobExplorer.getLastJobExecution(instance)).thenReturn(execution);
+    }
+
+    private static KpiRow row(String region, String group, String month, long bookings, long roomNights, double revenue, long products) {
+        KpiRow row = mock(KpiRow.class);
+        when(row.getRegion()).thenReturn(region);
+        when(row.getProductGroup()).thenReturn(group);
+        when(row.getMonth()).thenReturn(month);
+        when(row.getBookings()).thenReturn(bookings);
+        when(row.getRoomNights()).thenReturn(roomNights);
+        when(row.getRevenue()).thenReturn(revenue);
+        when(row.getProductsAvailable()).thenReturn(products);
+        return row;
+    }
+}
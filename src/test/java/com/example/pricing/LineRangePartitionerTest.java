@@ -0,0 +1,79 @@
+package com.example.pricing;
+
+import com.example.pricing.config.ByteRangeResource;
+import com.example.pricing.config.LineRangePartitioner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineRangePartitionerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSingleFile_SplitIntoLineAlignedRanges() throws Exception {
+        // Arrange: rows of uneven length, so naive cuts would land mid-line
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) rows.add("B" + i + ",P" + (i % 37) + ",2025-0" + (1 + i % 9) + "-01," + (i % 14) + "," + (i * 7.5));
+        Path file = dir.resolve("bookings.csv");
+        Files.writeString(file, String.join("\n", rows) + "\n");
+        LineRangePartitioner partitioner = new LineRangePartitioner(new Resource[]{new FileSystemResource(file)}, 1);
+
+        // Act
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+        // Assert: contiguous ranges covering the file, every one starting on a line
+        assertEquals(4, partitions.size());
+        long expectedStart = 0;
+        List<String> read = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            long start = context.getLong(LineRangePartitioner.START_KEY);
+            long end = context.getLong(LineRangePartitioner.END_KEY);
+            assertEquals(expectedStart, start);
+            String text = read(new ByteRangeResource(new UrlResource(context.getString(LineRangePartitioner.RESOURCE_KEY)), start, end));
+            assertTrue(text.endsWith("\n"), "range ends mid-line: " + start + "-" + end);
+            read.addAll(List.of(text.split("\n")));
+            expectedStart = end;
+        }
+        assertEquals(Files.size(file), expectedStart);
+        assertEquals(rows, read);
+    }
+
+    @Test
+    void testPreSplitFiles_OnePartitionEach() throws Exception {
+        // Arrange
+        Path first = Files.writeString(dir.resolve("prices-1.csv"), "P1,EUR,100,2025-01-01T00:00\n");
+        Path second = Files.writeString(dir.resolve("prices-2.csv"), "P2,EUR,120,2025-01-01T00:00\nP3,EUR,90,2025-01-01T00:00\n");
+        LineRangePartitioner partitioner = new LineRangePartitioner(
+                new Resource[]{new FileSystemResource(first), new FileSystemResource(second)}, 1);
+
+        // Act
+        Map<String, ExecutionContext> partitions = partitioner.partition(8);
+
+        // Assert
+        assertEquals(2, partitions.size());
+        ExecutionContext last = partitions.get("partition1");
+        assertEquals(0, last.getLong(LineRangePartitioner.START_KEY));
+        assertEquals(Files.size(second), last.getLong(LineRangePartitioner.END_KEY));
+    }
+
+    private static String read(Resource resource) throws Exception {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pricing;
+
+import com.example.pricing.controller.MetricsController;
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.service.KpiService;
+import com.example.pricing.service.OccupancyRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MetricsControllerTest {
+
+    private BookingRepository bookingRepo;
+    private MetricsController controller;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepo = mock(BookingRepository.class);
+        controller = new MetricsController(bookingRepo, mock(OccupancyRollupService.class), mock(KpiService.class));
+    }
+
+    @Test
+    void testOccupancy_UsesGroupedQuery() {
+        // Arrange
+        List<BookingRepository.BuildingOccupancy> rows = List.of(row("B1", 4L, 3L));
+        when(bookingRepo.occupancyByBuilding(anyCollection(), any(), any())).thenReturn(rows);
+
+        // Act
+        Map<String, Object> result = controller.occupancy("B1", "2025-05-01", "2025-05-31");
+
+        // Assert
+        assertEquals("B1", result.get("buildingId"));
+        assertEquals(3L, result.get("bookingCount"));
+        assertEquals(4, result.get("products"));
+        assertEquals(0.75, (Double) result.get("occupancy"), 1e-9);
+        verify(bookingRepo).occupancyByBuilding(Set.of("B1"), LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31));
+        verify(bookingRepo, never()).findByProductIdIn(anyList());
+    }
+
+    @Test
+    void testOccupancyBatch_OneQueryInRequestOrderWithMissingBuildingsZeroed() {
+        // Arrange
+        List<BookingRepository.BuildingOccupancy> rows = List.of(row("B2", 2L, 5L), row("B1", 10L, 0L));
+        when(bookingRepo.occupancyByBuilding(anyCollection(), any(), any())).thenReturn(rows);
+
+        // Act
+        List<Map<String, Object>> result = controller.occupancyBatch(List.of("B1", "B2", "B9", "B1"), "2025-05-01", "2025-05-31");
+
+        // Assert
+        verify(bookingRepo, times(1)).occupancyByBuilding(anyCollection(), any(), any());
+        assertEquals(3, result.size());
+        assertEquals(List.of("B1", "B2", "B9"), result.stream().map(m -> m.get("buildingId")).toList());
+        assertEquals(0.0, (Double) result.get(0).get("occupancy"), 1e-9);
+        assertEquals(2.5, (Double) result.get(1).get("occupancy"), 1e-9);
+        assertEquals(0, result.get(2).get("products"));
+        assertEquals(0L, result.get(2).get("bookingCount"));
+    }
+
+    @Test
+    void testTimeSeries_UnknownScopeOrGranularityIsBadRequest() {
+        // Act
+        ResponseStatusException badGranularity = assertThrows(ResponseStatusException.class,
+                () -> controller.timeSeries("BUILDING", "B1", "2025-05-01", "2025-05-31", "hour"));
+        ResponseStatusException badScope = assertThrows(ResponseStatusException.class,
+                () -> controller.timeSeries("REGION", "EMEA", "2025-05-01", "2025-05-31", "day"));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, badGranularity.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, badScope.getStatusCode());
+    }
+
+    private static BookingRepository.BuildingOccupancy row(String buildingId, Long products, Long bookings) {
+        BookingRepository.BuildingOccupancy row = mock(BookingRepository.BuildingOccupancy.class);
+        when(row.getBuildingId()).thenReturn(buildingId);
+        when(row.getProducts()).thenReturn(products);
+        when(row.getBookings()).thenReturn(bookings);
+        return row;
+    }
+}
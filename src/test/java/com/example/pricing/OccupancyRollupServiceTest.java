@@ -0,0 +1,100 @@
+package com.example.pricing;
+
+import com.example.pricing.model.DailyOccupancyRollup;
+import com.example.pricing.repository.DailyOccupancyRollupRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.service.OccupancyRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OccupancyRollupServiceTest {
+
+    private DailyOccupancyRollupRepository rollupRepo;
+    private ProductRepository productRepo;
+    private OccupancyRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepo = mock(DailyOccupancyRollupRepository.class);
+        productRepo = mock(ProductRepository.class);
+        service = new OccupancyRollupService(rollupRepo, productRepo);
+    }
+
+    @Test
+    void testRefresh_ReplacesTouchedRangeForBothScopes() {
+        // Arrange
+        LocalDate from = LocalDate.of(2025, 5, 1);
+        LocalDate to = LocalDate.of(2025, 5, 31);
+        when(rollupRepo.insertBuildingRollups(from, to)).thenReturn(20);
+        when(rollupRepo.insertClusterRollups(from, to)).thenReturn(45);
+
+        // Act
+        int written = service.refresh(from, to);
+        int nothing = service.refresh(null, null);
+
+        // Assert
+        assertEquals(65, written);
+        assertEquals(0, nothing);
+        verify(rollupRepo, times(1)).deleteRange(from, to);
+        verify(rollupRepo, times(1)).deleteRange(any(), any());
+    }
+
+    @Test
+    void testTimeSeries_DownsamplesToWeeksAndMonths() {
+        // Arrange
+        List<DailyOccupancyRollup> days = List.of(
+                day(LocalDate.of(2025, 4, 30), 2, 4, 4, 200.0),  // Wed, week of 04-28
+                day(LocalDate.of(2025, 5, 4), 1, 2, 4, 100.0),   // Sun, week of 04-28
+                day(LocalDate.of(2025, 5, 5), 3, 3, 4, 330.0));  // Mon, week of 05-05
+        when(rollupRepo.findByScopeAndScopeIdAndRollupDateBetweenOrderByRollupDate(eq("BUILDING"), eq("B1"), any(), any()))
+                .thenReturn(days);
+
+        // Act
+        List<Map<String, Object>> weekly = service.timeSeries("BUILDING", "B1", LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31), "week");
+        List<Map<String, Object>> monthly = service.timeSeries("BUILDING", "B1", LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31), "month");
+
+        // Assert
+        assertEquals(2, weekly.size());
+        assertEquals(LocalDate.of(2025, 4, 28), weekly.get(0).get("period"));
+        assertEquals(3L, weekly.get(0).get("bookings"));
+        assertEquals(6L, weekly.get(0).get("roomNights"));
+        assertEquals(8L, weekly.get(0).get("productsAvailable"));
+        assertEquals(300.0, (Double) weekly.get(0).get("revenue"), 1e-9);
+        assertEquals(0.375, (Double) weekly.get(0).get("occupancy"), 1e-9);
+
+        assertEquals(2, monthly.size());
+        assertEquals(LocalDate.of(2025, 5, 1), monthly.get(1).get("period"));
+        assertEquals(4L, monthly.get(1).get("bookings"));
+    }
+
+    @Test
+    void testTimeSeries_RejectsUnknownGranularity() {
+        // Arrange
+        when(rollupRepo.findByScopeAndScopeIdAndRollupDateBetweenOrderByRollupDate(any(), any(), any(), any()))
+                .thenReturn(List.of(day(LocalDate.of(2025, 5, 5), 1, 1, 1, 10.0)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> service.timeSeries("BUILDING", "B1", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), "quarter"));
+    }
+
+    private static DailyOccupancyRollup day(LocalDate date, long bookings, long roomNights, long products, double revenue) {
+        DailyOccupancyRollup r = new DailyOccupancyRollup();
+        r.setRollupDate(date);
+        r.setScope(DailyOccupancyRollup.SCOPE_BUILDING);
+        r.setScopeId("B1");
+        r.setBookings(bookings);
+        r.setRoomNights(roomNights);
+        r.setProductsAvailable(products);
+        r.setRevenue(revenue);
+        return r;
+    }
+}
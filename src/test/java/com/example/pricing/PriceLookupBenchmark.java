@@ -0,0 +1,82 @@
+package com.example.pricing;
+
+import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
+import com.example.pricing.repository.PriceRepository;
+import com.example.pricing.service.PriceLookupService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Throughput of bulk price lookups for 10k/100k keys against a repository that charges a fixed
+ * round-trip latency per query, compared with one by-product call per key.
+ * Run with: mvn test -Pbenchmark -Dtest=PriceLookupBenchmark
+ */
+class PriceLookupBenchmark {
+
+    private static final long ROUND_TRIP_NANOS = 500_000; // 0.5 ms per query
+
+    @Test
+    void bulkVersusPerKey() {
+        PriceRepository repo = mock(PriceRepository.class);
+        AtomicLong queries = new AtomicLong();
+        when(repo.findByIdProductIdIn(anyCollection())).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            Collection<String> ids = inv.getArgument(0);
+            List<Price> rows = new ArrayList<>(ids.size() * 2);
+            for (String id : ids) {
+                rows.add(price(id, "USD"));
+                rows.add(price(id, "EUR"));
+            }
+            return rows;
+        });
+        when(repo.findByIdProductId(anyString())).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            String id = inv.getArgument(0);
+            return List.of(price(id, "USD"), price(id, "EUR"));
+        });
+        PriceLookupService service = new PriceLookupService(repo);
+
+        System.out.printf("%-10s %-9s %10s %10s %14s%n", "mode", "keys", "queries", "ms", "keys/s");
+        for (int n : new int[]{10_000, 100_000}) {
+            List<PriceId> keys = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) keys.add(new PriceId("P" + i, i % 3 == 0 ? null : "USD"));
+
+            queries.set(0);
+            long start = System.nanoTime();
+            service.lookup(keys, chunk -> { });
+            report("bulk", n, queries.get(), System.nanoTime() - start);
+
+            if (n <= 10_000) {
+                queries.set(0);
+                start = System.nanoTime();
+                for (PriceId key : keys) repo.findByIdProductId(key.getProductId());
+                report("per-key", n, queries.get(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void report(String mode, int keys, long queries, long nanos) {
+        long ms = Math.max(1, nanos / 1_000_000);
+        System.out.printf("%-10s %-9d %10d %10d %14d%n", mode, keys, queries, ms, keys * 1000L / ms);
+    }
+
+    private static Price price(String productId, String currency) {
+        Price p = new Price();
+        p.setId(new PriceId(productId, currency));
+        p.setValue(BigDecimal.valueOf(100));
+        return p;
+    }
+}
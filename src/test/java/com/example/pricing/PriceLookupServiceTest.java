@@ -0,0 +1,85 @@
+package com.example.pricing;
+
+import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
+import com.example.pricing.repository.PriceRepository;
+import com.example.pricing.service.PriceLookupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class PriceLookupServiceTest {
+
+    private PriceRepository priceRepo;
+    private PriceLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        priceRepo = mock(PriceRepository.class);
+        service = new PriceLookupService(priceRepo);
+    }
+
+    @Test
+    void testLookup_FiltersByRequestedCurrency() {
+        // Arrange
+        when(priceRepo.findByIdProductIdIn(anyCollection())).thenReturn(Arrays.asList(
+                price("P001", "USD"), price("P001", "EUR"),
+                price("P002", "USD"), price("P002", "EGP")));
+        List<PriceId> keys = Arrays.asList(new PriceId("P001", "EUR"), new PriceId("P002", null));
+
+        // Act
+        List<Price> result = new ArrayList<>();
+        long count = service.lookup(keys, result::addAll);
+
+        // Assert
+        assertEquals(3, count);
+        assertTrue(result.contains(price("P001", "EUR")));
+        assertFalse(result.contains(price("P001", "USD")));
+        assertTrue(result.contains(price("P002", "USD")));
+        assertTrue(result.contains(price("P002", "EGP")));
+        verify(priceRepo, times(1)).findByIdProductIdIn(anyCollection());
+    }
+
+    @Test
+    void testLookup_ChunksLargeRequests() {
+        // Arrange - 2500 distinct products, some requested twice with different currencies
+        when(priceRepo.findByIdProductIdIn(anyCollection())).thenReturn(List.of());
+        List<PriceId> keys = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) keys.add(new PriceId("P" + i, "USD"));
+        for (int i = 0; i < 100; i++) keys.add(new PriceId("P" + i, "EUR"));
+
+        // Act
+        List<Integer> chunkSizes = new ArrayList<>();
+        service.lookup(keys, chunk -> chunkSizes.add(chunk.size()));
+
+        // Assert - 1000 + 1000 + 500 product ids, never one query per key
+        verify(priceRepo, times(3)).findByIdProductIdIn(anyCollection());
+        assertEquals(3, chunkSizes.size());
+        verify(priceRepo, never()).findByIdProductId(anyString());
+    }
+
+    @Test
+    void testLookup_EmptyRequest_NoQueries() {
+        // Act
+        long count = service.lookup(List.<PriceId>of(), chunk -> fail("no chunks expected"));
+
+        // Assert
+        assertEquals(0, count);
+        verify(priceRepo, never()).findByIdProductIdIn(anyCollection());
+    }
+
+    private static Price price(String productId, String currency) {
+        Price p = new Price();
+        p.setId(new PriceId(productId, currency));
+        p.setValue(BigDecimal.valueOf(100));
+        return p;
+    }
+}
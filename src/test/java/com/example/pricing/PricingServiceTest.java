@@ -108,4 +108,29 @@ class PricingServiceTest {
 		assertEquals("EUR", dto.getCurrency());
 		assertEquals(0, BigDecimal.valueOf(500.00).setScale(2).compareTo(dto.getRecommendedValue()));
 	}
+
+	@Test
+	void testStreamEmitsSameRecommendationsAsBatch() {
+		PricingService svc = new PricingService(BigDecimal.valueOf(0.6), BigDecimal.valueOf(0.5));
+		PricingService.Product p1 = new PricingService.Product("p1", LocalDate.of(2025,10,1), "Std", 2, 3, false);
+		PricingService.Product p2 = new PricingService.Product("p2", LocalDate.of(2025,10,2), "Std", 2, 3, false);
+		PricingService.Product p3 = new PricingService.Product("p3", LocalDate.of(2025,10,1), "Std", 2, 3, false);
+		PricingService.Booking b1 = new PricingService.Booking("b1", "p1", 100.0, LocalDate.now());
+		PricingService.Booking b2 = new PricingService.Booking("b2", "p2", 140.0, LocalDate.now());
+
+		List<PricingService.PriceRecommendationDto> batch = svc.recommendPrices(List.of(p1, p2, p3), List.of(b1, b2), Map.of());
+		List<PricingService.PriceRecommendationDto> streamed = svc.streamRecommendations(List.of(p1, p2, p3), List.of(b1, b2), Map.of())
+				.collectList().block();
+
+		assertNotNull(streamed);
+		assertEquals(batch.size(), streamed.size());
+		for (int i = 0; i < batch.size(); i++) {
+			assertEquals(batch.get(i).getProductId(), streamed.get(i).getProductId());
+			assertEquals(0, batch.get(i).getRecommendedValue().compareTo(streamed.get(i).getRecommendedValue()));
+		}
+		// products of one cluster are emitted together
+		assertEquals("p1", streamed.get(0).getProductId());
+		assertEquals("p3", streamed.get(1).getProductId());
+		assertEquals("p2", streamed.get(2).getProductId());
+	}
 }
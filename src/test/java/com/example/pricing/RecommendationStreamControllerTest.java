@@ -0,0 +1,59 @@
+package com.example.pricing;
+
+import com.example.pricing.controller.RecommendationStreamController;
+import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
+import com.example.pricing.model.Product;
+import com.example.pricing.repository.BookingRepository;
+import com.example.pricing.repository.PriceRepository;
+import com.example.pricing.repository.ProductRepository;
+import com.example.pricing.service.PricingService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationStreamControllerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStream_BuildingFilterLoadsOnlyThoseProductsPrices() {
+        // Arrange
+        ProductRepository productRepo = mock(ProductRepository.class);
+        BookingRepository bookingRepo = mock(BookingRepository.class);
+        PriceRepository priceRepo = mock(PriceRepository.class);
+        PricingService pricingService = mock(PricingService.class);
+        Product product = new Product();
+        product.setId("P1");
+        product.setArrivalDate(LocalDate.of(2026, 3, 1));
+        when(productRepo.findByBuildingIdIn(List.of("B1"))).thenReturn(List.of(product));
+        when(priceRepo.findByIdProductIdIn(List.of("P1"))).thenReturn(List.of(
+                price("P1", "USD", "100"), price("P1", "EUR", "90")));
+        when(pricingService.streamRecommendations(anyList(), anyList(), anyMap())).thenReturn(Flux.empty());
+        RecommendationStreamController controller =
+                new RecommendationStreamController(productRepo, bookingRepo, priceRepo, pricingService);
+
+        // Act
+        controller.stream(List.of("B1"), "EUR").blockLast();
+
+        // Assert
+        verify(priceRepo, never()).findAll();
+        verify(priceRepo, never()).findByIdCurrency(anyString());
+        verify(pricingService).streamRecommendations(anyList(), anyList(), argThat(prices ->
+                prices.size() == 1 && "EUR".equals(((Map<String, PricingService.PriceInfo>) prices).get("P1").getCurrency())));
+    }
+
+    private static Price price(String productId, String currency, String value) {
+        Price p = new Price();
+        p.setId(new PriceId(productId, currency));
+        p.setValue(new BigDecimal(value));
+        return p;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.pricing;
+
+import com.example.pricing.controller.RecommendationController;
+import com.example.pricing.model.Price;
+import com.example.pricing.model.PriceId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payload size and serialisation cost of JSON vs CBOR vs Smile, raw and gzipped.
+ * Run with: mvn test -Pbenchmark -Dtest=ResponseEncodingBenchmark
+ */
+class ResponseEncodingBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void compareEncodings() throws IOException {
+        Page<Price> prices = samplePricePage(5_000);
+        List<RecommendationController.BuildingDto> buildings = sampleBuildings(50, 100);
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build());
+        mappers.put("smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+
+        System.out.printf("%-10s %-6s %12s %12s %14s%n", "payload", "format", "bytes", "gzip bytes", "avg ser (us)");
+        long jsonBytes = 0;
+        for (Map.Entry<String, Object> payload : Map.<String, Object>of("Page<Price>", prices, "BuildingDto", buildings).entrySet()) {
+            for (Map.Entry<String, ObjectMapper> m : mappers.entrySet()) {
+                ObjectMapper mapper = m.getValue();
+                for (int i = 0; i < WARMUP; i++) mapper.writeValueAsBytes(payload.getValue());
+                long start = System.nanoTime();
+                byte[] bytes = null;
+                for (int i = 0; i < ITERATIONS; i++) bytes = mapper.writeValueAsBytes(payload.getValue());
+                long avgMicros = (System.nanoTime() - start) / ITERATIONS / 1_000;
+                int gzipped = gzip(bytes).length;
+                System.out.printf("%-10s %-6s %12d %12d %14d%n", payload.getKey(), m.getKey(), bytes.length, gzipped, avgMicros);
+
+                if (m.getKey().equals("json")) {
+                    jsonBytes = bytes.length;
+                } else {
+                    assertTrue(bytes.length < jsonBytes, m.getKey() + " should be smaller than JSON");
+                }
+            }
+        }
+    }
+
+    private static Page<Price> samplePricePage(int size) {
+        List<Price> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Price p = new Price();
+            p.setId(new PriceId("P" + i, i % 2 == 0 ? "USD" : "EUR"));
+            p.setValue(BigDecimal.valueOf(100 + (i % 250), 2));
+            p.setLastUpdated(LocalDateTime.of(2025, 5, 1, 12, 0).plusMinutes(i));
+            content.add(p);
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), size * 10L);
+    }
+
+    private static List<RecommendationController.BuildingDto> sampleBuildings(int buildings, int productsPerBuilding) {
+        List<RecommendationController.BuildingDto> result = new ArrayList<>();
+        for (int b = 0; b < buildings; b++) {
+            List<RecommendationController.ProductDto> products = new ArrayList<>();
+            for (int p = 0; p < productsPerBuilding; p++) {
+                Map<String, Object> priceMap = Map.of("USD", BigDecimal.valueOf(120 + p), "EUR", BigDecimal.valueOf(110 + p));
+                products.add(new RecommendationController.ProductDto("B" + b + "-P" + p, "Room " + p, 2,
+                        p % 2 == 0 ? "Double" : "Suite", LocalDate.of(2025, 6, 1).plusDays(p), priceMap));
+            }
+            result.add(new RecommendationController.BuildingDto("B" + b, "Building " + b, products));
+        }
+        return result;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
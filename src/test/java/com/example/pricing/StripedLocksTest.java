@@ -0,0 +1,94 @@
+package com.example.pricing;
+
+import com.example.pricing.service.StripedLocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLocksTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testSameKey_SerializedDifferentKeysParallel() throws Exception {
+        // Arrange
+        StripedLocks locks = new StripedLocks(1024);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sameKeyEntered = new AtomicInteger();
+        executor.submit(() -> locks.withLocks(List.of("P1"), () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        // Act
+        Future<?> sameKey = executor.submit(() -> locks.withLocks(List.of("P1"), sameKeyEntered::incrementAndGet));
+        boolean otherKeyRan = locks.withLocks(List.of(unlockedKey(locks)), () -> true);
+        Thread.sleep(50);
+        int enteredWhileHeld = sameKeyEntered.get();
+        release.countDown();
+        sameKey.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(otherKeyRan);
+        assertEquals(0, enteredWhileHeld);
+        assertEquals(1, sameKeyEntered.get());
+        assertFalse(locks.isLocked("P1"));
+    }
+
+    @Test
+    void testInTransaction_HeldUntilCompletion() {
+        // Arrange
+        StripedLocks locks = new StripedLocks(16);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        locks.withLocks(List.of("P1", "P2"), () -> null);
+        boolean heldBeforeCompletion = locks.isLocked("P1") && locks.isLocked("P2");
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Assert
+        assertTrue(heldBeforeCompletion);
+        assertFalse(locks.isLocked("P1"));
+        assertFalse(locks.isLocked("P2"));
+    }
+
+    // A key whose stripe is free, i.e. not the one P1 is holding
+    private static String unlockedKey(StripedLocks locks) {
+        for (int i = 0; ; i++) {
+            String candidate = "Q" + i;
+            if (!locks.isLocked(candidate)) return candidate;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
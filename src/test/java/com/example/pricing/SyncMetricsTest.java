@@ -0,0 +1,79 @@
+package com.example.pricing;
+
+import com.example.pricing.repository.PriceConfirmationRepository;
+import com.example.pricing.repository.SyncDeadLetterRepository;
+import com.example.pricing.service.PushOutcome;
+import com.example.pricing.service.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SyncMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private PriceConfirmationRepository repo;
+    private SyncDeadLetterRepository deadLetterRepo;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        repo = mock(PriceConfirmationRepository.class);
+        deadLetterRepo = mock(SyncDeadLetterRepository.class);
+    }
+
+    @Test
+    void testBacklog_QueriedOncePerRefreshInterval() {
+        // Arrange
+        PriceConfirmationRepository.Backlog backlog = mock(PriceConfirmationRepository.Backlog.class);
+        when(backlog.getPending()).thenReturn(42L);
+        when(backlog.getOldestConfirmedAt()).thenReturn(LocalDateTime.now().minusMinutes(10));
+        when(repo.backlog()).thenReturn(backlog);
+        when(deadLetterRepo.countByReplayedAtIsNull()).thenReturn(3L);
+        SyncMetrics metrics = new SyncMetrics(registry, repo, deadLetterRepo, 60_000);
+
+        // Act
+        Map<String, Object> status = metrics.status();
+        double gauge = registry.get("pricing.sync.backlog").gauge().value();
+        double age = registry.get("pricing.sync.oldest.age").gauge().value();
+        metrics.status();
+
+        // Assert
+        assertEquals(42L, status.get("backlog"));
+        assertEquals(3L, status.get("deadLetters"));
+        assertEquals(42.0, gauge);
+        assertTrue(age >= 600 && age < 610, "age: " + age);
+        verify(repo, times(1)).backlog();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPushes_CountedByOutcomeAndCause() {
+        // Arrange
+        SyncMetrics metrics = new SyncMetrics(registry, repo, deadLetterRepo, 60_000);
+
+        // Act
+        metrics.recordPush("single", 20_000_000, List.of(PushOutcome.synced()));
+        metrics.recordPush("batch", 80_000_000, List.of(PushOutcome.synced(),
+                PushOutcome.failed("http_503", "HTTP 503"), PushOutcome.rejected("http_400", "HTTP 400")));
+        metrics.recordRetry("http_503");
+        metrics.recordRun(10, 8, 6, 4, 500);
+        Map<String, Object> status = metrics.status();
+
+        // Assert
+        assertEquals(Map.of("synced", 2L, "failed", 1L, "rejected", 1L), status.get("pushes"));
+        assertEquals(Map.of("http_503", 1L, "http_400", 1L), status.get("failures"));
+        assertEquals(Map.of("http_503", 1L), status.get("retries"));
+        assertEquals(4L, status.get("coalesced"));
+        Map<String, Object> latency = (Map<String, Object>) status.get("latencyMs");
+        assertEquals(1L, ((Map<String, Object>) latency.get("batch")).get("count"));
+        assertEquals(20L, ((Map<String, Object>) latency.get("single")).get("max"));
+        assertEquals(20L, ((Map<String, Object>) status.get("lastRun")).get("rowsPerSecond"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.pricing;
+
+import com.example.pricing.service.ConfirmationsRecordedEvent;
+import com.example.pricing.service.SyncPipeline;
+import com.example.pricing.service.SyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SyncPipelineTest {
+
+    private SyncService syncService;
+    private SyncPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        syncService = mock(SyncService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void testFullMicroBatch_DrainsWithoutWaiting() {
+        // Arrange
+        pipeline = new SyncPipeline(syncService, 5, 60_000);
+        pipeline.start();
+
+        // Act
+        pipeline.onConfirmationsRecorded(new ConfirmationsRecordedEvent(3));
+        pipeline.onConfirmationsRecorded(new ConfirmationsRecordedEvent(2));
+
+        // Assert
+        verify(syncService, timeout(2_000).times(1)).drain();
+    }
+
+    @Test
+    void testPartialMicroBatch_DrainsAfterMaxWait() throws Exception {
+        // Arrange
+        pipeline = new SyncPipeline(syncService, 100, 200);
+        pipeline.start();
+
+        // Act
+        pipeline.onConfirmationsRecorded(new ConfirmationsRecordedEvent(1));
+        Thread.sleep(50);
+
+        // Assert
+        verify(syncService, never()).drain();
+        verify(syncService, timeout(2_000).times(1)).drain();
+    }
+
+    @Test
+    void testTriggersDuringDrain_CoalescedIntoOneMoreDrain() throws Exception {
+        // Arrange: the first drain blocks until released
+        CountDownLatch draining = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(syncService.drain()).thenAnswer(i -> {
+            draining.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        }).thenReturn(0);
+        pipeline = new SyncPipeline(syncService, 100, 60_000);
+        pipeline.start();
+        pipeline.onConfirmationsRecorded(new ConfirmationsRecordedEvent(500));
+        assertTrue(draining.await(2, TimeUnit.SECONDS));
+
+        // Act: an upload's worth of chunks lands while the first drain runs
+        for (int i = 0; i < 100; i++) pipeline.onConfirmationsRecorded(new ConfirmationsRecordedEvent(500));
+        release.countDown();
+
+        // Assert
+        verify(syncService, timeout(2_000).times(2)).drain();
+        Thread.sleep(200);
+        verify(syncService, times(2)).drain();
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.pricing;
+
+import com.example.pricing.model.PriceConfirmation;
+import com.example.pricing.service.AdaptiveBatchSize;
+import com.example.pricing.service.ConfirmationOutbox;
+import com.example.pricing.service.HotelApiClient;
+import com.example.pricing.service.HotelCircuitBreaker;
+import com.example.pricing.service.PushOutcome;
+import com.example.pricing.service.SyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class SyncServiceTest {
+
+    private HotelApiStub stub;
+    private HotelApiClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.shutdown();
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPush_ConcurrentWithScheduledRetries() throws Exception {
+        // Arrange: FLAKY fails once with 503, DOWN always 503, BAD is rejected with 400
+        stub = new HotelApiStub(50, (productId, attempt) -> switch (productId) {
+            case "FLAKY" -> attempt == 1 ? 503 : 200;
+            case "DOWN" -> 503;
+            case "BAD" -> 400;
+            default -> 200;
+        });
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 3, 10);
+        List<PriceConfirmation> pending = new ArrayList<>();
+        for (int i = 0; i < 40; i++) pending.add(confirmation((long) i, "P" + i));
+        pending.add(confirmation(100L, "FLAKY"));
+        pending.add(confirmation(101L, "DOWN"));
+        pending.add(confirmation(102L, "BAD"));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(pending, List.of());
+        Set<Long> marked = new HashSet<>();
+        doAnswer(i -> marked.addAll((Collection<Long>) i.getArgument(0))).when(outbox).markSynced(anyCollection());
+        SyncService service = new SyncService(outbox, client, 8, false, batchSize());
+
+        // Act
+        service.pushConfirmedPrices();
+
+        // Assert
+        assertEquals(41, marked.size());
+        assertTrue(marked.contains(100L));
+        assertFalse(marked.contains(101L));
+        assertFalse(marked.contains(102L));
+        assertEquals(2, stub.attempts("FLAKY"));
+        assertEquals(3, stub.attempts("DOWN"));
+        assertEquals(1, stub.attempts("BAD"));
+        assertTrue(stub.maxInFlight() > 1 && stub.maxInFlight() <= 8, "in flight: " + stub.maxInFlight());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchPush_MapsPerItemResultsBackToIds() throws Exception {
+        // Arrange: BAD is refused permanently (422), BUSY transiently (503)
+        stub = new HotelApiStub(10, (productId, attempt) -> switch (productId) {
+            case "BAD" -> 422;
+            case "BUSY" -> 503;
+            default -> 200;
+        });
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 3, 10);
+        List<PriceConfirmation> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) pending.add(confirmation((long) i, "P" + i));
+        pending.add(confirmation(100L, "BAD"));
+        pending.add(confirmation(101L, "BUSY"));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(pending, List.of());
+        Set<Long> marked = new HashSet<>();
+        doAnswer(i -> marked.addAll((Collection<Long>) i.getArgument(0))).when(outbox).markSynced(anyCollection());
+        AdaptiveBatchSize batchSize = batchSize();
+        SyncService service = new SyncService(outbox, client, 2, true, batchSize);
+
+        // Act
+        service.pushConfirmedPrices();
+
+        // Assert
+        assertEquals(100, marked.size());
+        assertFalse(marked.contains(100L));
+        assertTrue(stub.requests() < 20, "requests: " + stub.requests());
+        assertTrue(batchSize.current() > 10, "batch size: " + batchSize.current());
+        verify(outbox).recordFailures(argThat(failures -> failures.size() == 2 && failures.entrySet().stream().allMatch(f ->
+                f.getValue().getStatus() == (f.getKey().getId() == 100L ? PushOutcome.Status.REJECTED : PushOutcome.Status.FAILED))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchPush_TooLargeBatchIsSplitNotRejected() throws Exception {
+        // Arrange: the API takes at most 4 items per request; the adaptive size starts at 10
+        stub = new HotelApiStub(0, (productId, attempt) -> 200).maxBatchItems(4);
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 3, 10);
+        List<PriceConfirmation> pending = new ArrayList<>();
+        for (int i = 0; i < 30; i++) pending.add(confirmation((long) i, "P" + i));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(pending, List.of());
+        Set<Long> marked = new HashSet<>();
+        doAnswer(i -> marked.addAll((Collection<Long>) i.getArgument(0))).when(outbox).markSynced(anyCollection());
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1, 50, 10, 5, 1_000, 0.05);
+        SyncService service = new SyncService(outbox, client, 1, true, batchSize);
+
+        // Act
+        int synced = service.drain();
+
+        // Assert: refused at 10 and then at 5; afterwards batches stay within the limit
+        assertEquals(30, synced);
+        assertEquals(30, marked.size());
+        verify(outbox, never()).recordFailures(any());
+        assertEquals(4, batchSize.maxSize());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchPush_MissingBatchEndpointFallsBackToSinglePushes() throws Exception {
+        // Arrange
+        stub = new HotelApiStub(0, (productId, attempt) -> 200).withoutBatchEndpoint();
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 3, 10);
+        List<PriceConfirmation> pending = new ArrayList<>();
+        for (int i = 0; i < 12; i++) pending.add(confirmation((long) i, "P" + i));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(pending, List.of(confirmation(50L, "P50")), List.of());
+        Set<Long> marked = new HashSet<>();
+        doAnswer(i -> marked.addAll((Collection<Long>) i.getArgument(0))).when(outbox).markSynced(anyCollection());
+        SyncService service = new SyncService(outbox, client, 1, true, batchSize());
+
+        // Act
+        int synced = service.drain();
+
+        // Assert: one refused batch request, then every item once on its own
+        assertEquals(13, synced);
+        assertEquals(13, marked.size());
+        assertEquals(14, stub.requests());
+        verify(outbox, never()).recordFailures(any());
+    }
+
+    @Test
+    void testPush_DrainsOutboxInClaimedBatches() throws Exception {
+        // Arrange
+        stub = new HotelApiStub(0, (productId, attempt) -> "BAD".equals(productId) ? 400 : 200);
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 1, 10);
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim())
+                .thenReturn(List.of(confirmation(1L, "P1"), confirmation(2L, "BAD")))
+                .thenReturn(List.of(confirmation(3L, "P3")))
+                .thenReturn(List.of());
+        SyncService service = new SyncService(outbox, client, 4, false, batchSize());
+
+        // Act
+        service.pushConfirmedPrices();
+
+        // Assert
+        verify(outbox, times(3)).claim();
+        verify(outbox).markSynced(List.of(1L));
+        verify(outbox).markSynced(List.of(3L));
+        verify(outbox).recordFailures(argThat(failures -> failures.size() == 1
+                && failures.keySet().iterator().next().getId() == 2L
+                && failures.values().iterator().next().getStatus() == PushOutcome.Status.REJECTED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPush_CoalescesSupersededConfirmations() throws Exception {
+        // Arrange: P1 confirmed three times, only the latest (id 3) should be pushed
+        stub = new HotelApiStub(0, (productId, attempt) -> 200);
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 1, 10);
+        LocalDateTime now = LocalDateTime.now();
+        PriceConfirmation first = confirmation(1L, "P1");
+        first.setConfirmedAt(now.minusHours(2));
+        PriceConfirmation latest = confirmation(3L, "P1");
+        latest.setConfirmedAt(now);
+        latest.setConfirmedValue(new BigDecimal("120.00"));
+        PriceConfirmation second = confirmation(2L, "P1");
+        second.setConfirmedAt(now.minusHours(1));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(List.of(first, latest, second, confirmation(4L, "P2")), List.of());
+        Set<Long> marked = new HashSet<>();
+        doAnswer(i -> marked.addAll((Collection<Long>) i.getArgument(0))).when(outbox).markSynced(anyCollection());
+        SyncService service = new SyncService(outbox, client, 4, false, batchSize());
+
+        // Act
+        int synced = service.drain();
+
+        // Assert
+        assertEquals(4, synced);
+        assertEquals(Set.of(1L, 2L, 3L, 4L), marked);
+        assertEquals(2, stub.requests());
+        assertEquals(1, stub.attempts("P1"));
+    }
+
+    @Test
+    void testPush_OlderRowRetriedAfterNewerSyncedIsSkipped() throws Exception {
+        // Arrange: A (older) fails, B (newer, same product) syncs, then A comes back from its backoff
+        // flagged superseded by the claim and must not overwrite B's price
+        stub = new HotelApiStub(0, (productId, attempt) -> attempt == 1 ? 503 : 200);
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 1, 10);
+        LocalDateTime now = LocalDateTime.now();
+        PriceConfirmation older = confirmation(1L, "P1");
+        older.setConfirmedAt(now.minusMinutes(5));
+        PriceConfirmation newer = confirmation(2L, "P1");
+        newer.setConfirmedAt(now);
+        newer.setConfirmedValue(new BigDecimal("120.00"));
+        PriceConfirmation olderRetried = confirmation(1L, "P1");
+        olderRetried.setConfirmedAt(older.getConfirmedAt());
+        olderRetried.setSuperseded(true);
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim())
+                .thenReturn(List.of(older))
+                .thenReturn(List.of(newer))
+                .thenReturn(List.of(olderRetried))
+                .thenReturn(List.of());
+        SyncService service = new SyncService(outbox, client, 4, false, batchSize());
+
+        // Act
+        service.drain();
+
+        // Assert
+        assertEquals(2, stub.attempts("P1"));
+        verify(outbox).recordFailures(argThat(failures -> failures.size() == 1
+                && failures.keySet().iterator().next().getId() == 1L
+                && failures.values().iterator().next().getStatus() == PushOutcome.Status.FAILED));
+        verify(outbox).markSynced(List.of(2L));
+        verify(outbox).markSynced(List.of(1L));
+    }
+
+    @Test
+    void testPush_OpenCircuitFailsFastAndStopsClaiming() throws Exception {
+        // Arrange: the API is down; the circuit opens after 4 failed attempts
+        stub = new HotelApiStub(0, (productId, attempt) -> 503);
+        client = new HotelApiClient(WebClient.builder(), stub.baseUrl(), "test-key", 8, 2_000, 3, 1);
+        client.setCircuitBreaker(new HotelCircuitBreaker(0.5, 4, 4, 60_000, 1));
+        List<PriceConfirmation> pending = new ArrayList<>();
+        for (int i = 0; i < 40; i++) pending.add(confirmation((long) i, "P" + i));
+        ConfirmationOutbox outbox = mock(ConfirmationOutbox.class);
+        when(outbox.claim()).thenReturn(pending).thenReturn(List.of(confirmation(99L, "P99"))).thenReturn(List.of());
+        SyncService service = new SyncService(outbox, client, 1, false, batchSize());
+
+        // Act
+        int synced = service.drain();
+
+        // Assert: 3 attempts for the first item, 1 for the second, the rest never leave the process
+        assertEquals(0, synced);
+        assertEquals(4, stub.requests());
+        assertTrue(client.isCircuitOpen());
+        verify(outbox, times(1)).claim();
+    }
+
+    private static AdaptiveBatchSize batchSize() {
+        return new AdaptiveBatchSize(5, 50, 10, 5, 1_000, 0.05);
+    }
+
+    private static PriceConfirmation confirmation(Long id, String productId) {
+        PriceConfirmation pc = new PriceConfirmation();
+        pc.setId(id);
+        pc.setProductId(productId);
+        pc.setAction("ACCEPT");
+        pc.setConfirmedValue(new BigDecimal("100.00"));
+        pc.setCurrency("EUR");
+        pc.setUserId("U1");
+        pc.setConfirmedAt(LocalDateTime.now());
+        pc.setSynced(false);
+        return pc;
+    }
+}